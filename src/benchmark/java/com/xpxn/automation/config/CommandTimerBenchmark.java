@@ -0,0 +1,47 @@
+package com.xpxn.automation.config;
+
+import com.xpxn.automation.StubDriver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.WebDriver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost {@link CommandTimer} adds to every driver command, against the same stub driver without timing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommandTimerBenchmark {
+    private WebDriver bare;
+    private WebDriver timed;
+
+    @Setup
+    public void setup() {
+        bare = StubDriver.create((method, args) -> "title");
+        timed = CommandTimer.scope(CommandTimer.wrap(bare), CommandTimerBenchmark.class);
+        CommandTimer.test("CommandTimerBenchmark.command");
+    }
+
+    @Benchmark
+    public String bareCommand() {
+        return bare.getTitle();
+    }
+
+    @Benchmark
+    public String timedCommand() {
+        return timed.getTitle();
+    }
+}
@@ -0,0 +1,52 @@
+package com.xpxn.automation.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link Configuration#flatten(Properties...)} when merging layers of the given size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConfigurationBenchmark {
+    @Param({"100", "1000", "10000"})
+    private int size;
+
+    private Properties baseline;
+    private Properties custom;
+    private Properties system;
+
+    @Setup
+    public void setup() {
+        baseline = new Properties();
+        custom = new Properties();
+        system = new Properties();
+        for (int i = 0; i < size; i++) {
+            baseline.setProperty("key." + i, "baseline-" + i);
+            // Every other key is overridden, a tenth are blanked to exercise the empty-string rule
+            if (i % 2 == 0) custom.setProperty("key." + i, i % 10 == 0 ? "" : "custom-" + i);
+            if (i % 5 == 0) system.setProperty("key." + i, "system-" + i);
+        }
+    }
+
+    @Benchmark
+    public Properties flatten() {
+        return Configuration.flatten(baseline, custom, system);
+    }
+}
@@ -0,0 +1,49 @@
+package com.xpxn.automation.config;
+
+import com.xpxn.automation.StubDriver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.WebDriver;
+
+import java.net.MalformedURLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Framework overhead of {@link DriverFactory} around a stub driver, without launching a browser.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DriverFactoryBenchmark {
+    private static final String ENV = "stub";
+
+    @Setup
+    public void setup() {
+        DriverFactory.register(ENV, caps -> StubDriver.create());
+    }
+
+    @Benchmark
+    public WebDriver buildAndDestroy() throws MalformedURLException {
+        MutableCapabilities caps = DriverFactory.setup(ENV);
+        WebDriver dr = DriverFactory.build(ENV, caps);
+        DriverFactory.DestroyDriver();
+        return dr;
+    }
+
+    @Benchmark
+    public WebDriver buildCached() throws MalformedURLException {
+        return DriverFactory.build(ENV, null);
+    }
+}
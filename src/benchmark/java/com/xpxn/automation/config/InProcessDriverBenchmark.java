@@ -0,0 +1,84 @@
+package com.xpxn.automation.config;
+
+import com.xpxn.automation.network.FixtureServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page checks per second on {@link InProcessDriver} against the local fixture site: load the page, find a link
+ * and read its href, the shape of the link checks in {@code FirstTest}. Every thread has its own driver, as the
+ * parallel suite workers do.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class InProcessDriverBenchmark {
+    private static final By LINK = By.cssSelector(".topicmenu ul li:nth-child(2) a");
+
+    @State(Scope.Benchmark)
+    public static class Site {
+        FixtureServer server;
+        String url;
+
+        @Setup(Level.Trial)
+        public void start() throws IOException {
+            server = new FixtureServer("fixtures");
+            url = server.url("/");
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            server.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        WebDriver driver;
+
+        @Setup(Level.Trial)
+        public void start() {
+            driver = new InProcessDriver(InProcessDriver.capabilities());
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            driver.quit();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String pageCheck(Site site, Session session) {
+        return check(site, session);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String pageCheckParallel(Site site, Session session) {
+        return check(site, session);
+    }
+
+    private static String check(Site site, Session session) {
+        session.driver.navigate().to(site.url);
+        return session.driver.findElement(LINK).getAttribute("href");
+    }
+}
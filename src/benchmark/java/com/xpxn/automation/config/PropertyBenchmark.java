@@ -0,0 +1,66 @@
+package com.xpxn.automation.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading configuration values through {@link Property}, as done by every Configuration accessor.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropertyBenchmark {
+    private Property browser;
+    private Property timeout;
+
+    @Setup
+    public void setup() {
+        browser = Configuration.envBrowserName();
+        timeout = Configuration.envPoolTimeout();
+    }
+
+    @Benchmark
+    public String get() {
+        return browser.get();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String getContended() {
+        return browser.get();
+    }
+
+    @Benchmark
+    public String expectAllowed() {
+        return browser.expect("chrome", "edge", "firefox");
+    }
+
+    @Benchmark
+    public boolean is() {
+        return browser.is("edge", "firefox", "chrome");
+    }
+
+    @Benchmark
+    public int asInt() {
+        return timeout.asInt();
+    }
+
+    @Benchmark
+    public String accessor() {
+        return Configuration.appEnv().expect();
+    }
+}
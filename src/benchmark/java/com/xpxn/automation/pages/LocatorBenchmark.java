@@ -0,0 +1,55 @@
+package com.xpxn.automation.pages;
+
+import com.xpxn.automation.StubDriver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of resolving a locator by name: the original per-call reflection against the cached registry.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LocatorBenchmark {
+    private final SamplePage page = new SamplePage();
+
+    @Benchmark
+    public By reflective() throws Exception {
+        Field field = page.getClass().getDeclaredField("consolePC");
+        field.setAccessible(true);
+        Object obj = field.get(page);
+        if (!(obj instanceof By)) {
+            throw new IllegalArgumentException("Field consolePC is not of expected type (By).");
+        }
+        return (By) obj;
+    }
+
+    @Benchmark
+    public By registry() {
+        return page.getBy("consolePC");
+    }
+
+    static class SamplePage extends BasePage {
+        private By allTopics = By.cssSelector(".topicmenu ul li:nth-child(1) a");
+        private By consolePC = By.cssSelector(".topicmenu ul li:nth-child(2) a");
+        private By smartphoneTab = By.cssSelector(".topicmenu ul li:nth-child(3) a");
+
+        SamplePage() {
+            super(StubDriver.create());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.xpxn.automation.visual;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of comparing a region with its baseline: hashing alone (identical images) against the full tile diff.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VisualDiffBenchmark {
+    @Param({"320x200", "1920x1080"})
+    private String size;
+
+    private int[] baseline;
+    private int[] changed;
+    private int width;
+    private int height;
+
+    @Setup
+    public void setup() {
+        String[] parts = size.split("x");
+        width = Integer.parseInt(parts[0]);
+        height = Integer.parseInt(parts[1]);
+        baseline = new int[width * height];
+        Random random = new Random(42);
+        for (int i = 0; i < baseline.length; i++)
+            baseline[i] = random.nextInt(0xFFFFFF);
+        changed = baseline.clone();
+        // A small changed area, as after a text change
+        for (int y = height / 2; y < height / 2 + 10; y++)
+            for (int x = width / 2; x < width / 2 + 40; x++)
+                changed[y * width + x] ^= 0x808080;
+    }
+
+    @Benchmark
+    public long hash() {
+        // Fresh views so the cached hashes are not reused
+        return PixelImage.of(baseline, width, height).contentHash();
+    }
+
+    @Benchmark
+    public VisualDiff diff() {
+        return VisualDiff.compare(PixelImage.of(baseline, width, height), PixelImage.of(changed, width, height), 8);
+    }
+}
@@ -0,0 +1,69 @@
+package com.xpxn.automation.config;
+
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Browser execution profile selected with {@code env.browser.mode} (headless or headed, headless by default).
+ * Headless mode also applies startup-lean flags and a fixed window size ({@code env.browser.window}, eg. 1920x1080)
+ * so more sessions fit on one host.
+ */
+public final class BrowserMode {
+    private static final Logger logger = LoggerFactory.getLogger(BrowserMode.class);
+
+    private BrowserMode() {
+    }
+
+    public static boolean isHeadless() {
+        Property mode = Configuration.envBrowserMode();
+        return !mode.hasValue() || "headless".equals(mode.expect("headless", "headed"));
+    }
+
+    /**
+     * Applies the configured mode to the capabilities of the given browser.
+     *
+     * @param caps    Capabilities being built
+     * @param browser Browser name
+     * @return the same capabilities
+     */
+    public static MutableCapabilities apply(MutableCapabilities caps, String browser) {
+        String[] size = Configuration.envBrowserWindow().get("1920x1080").split("x");
+        String width = size[0].trim();
+        String height = size[1].trim();
+
+        if (caps instanceof ChromeOptions) {
+            ChromeOptions chrome = (ChromeOptions) caps;
+            chrome.addArguments("--window-size=" + width + "," + height);
+            if (isHeadless()) {
+                chrome.setHeadless(true);
+                chrome.addArguments(
+                        "--disable-gpu",
+                        "--disable-extensions",
+                        "--disable-dev-shm-usage",
+                        "--disable-background-networking",
+                        "--disable-default-apps",
+                        "--disable-sync",
+                        "--mute-audio",
+                        "--no-first-run",
+                        "--no-default-browser-check");
+            }
+        } else if (caps instanceof FirefoxOptions) {
+            FirefoxOptions firefox = (FirefoxOptions) caps;
+            firefox.addArguments("--width=" + width, "--height=" + height);
+            if (isHeadless()) {
+                firefox.setHeadless(true);
+                firefox.addPreference("extensions.update.enabled", false);
+                firefox.addPreference("app.update.enabled", false);
+                firefox.addPreference("browser.shell.checkDefaultBrowser", false);
+                firefox.addPreference("datareporting.policy.dataSubmissionEnabled", false);
+                firefox.addPreference("media.autoplay.default", 5);
+            }
+        } else if (isHeadless()) {
+            logger.warn("Headless mode is not supported for browser '" + browser + "', running headed.");
+        }
+        return caps;
+    }
+}
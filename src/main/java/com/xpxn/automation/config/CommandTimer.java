@@ -0,0 +1,279 @@
+package com.xpxn.automation.config;
+
+import com.xpxn.automation.metrics.Histograms;
+import com.xpxn.automation.metrics.LatencyHistogram;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.WrapsElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times every WebDriver command (driver, navigation, options, target locator and element calls) into the
+ * {@value #GROUP} histograms, tagged with the page class and the running test method.
+ * Enabled with {@code env.metrics.commands} (on by default), exported to {@code env.metrics.dir} at suite end.
+ * <p>
+ * The wrapper implements every interface of the original driver plus {@link WrapsDriver}, and wrapped elements
+ * implement {@link WrapsElement}, so casts, scripts and actions keep working. On top of the reflective call of the
+ * original, a command costs two {@code nanoTime} calls, a lookup of its histogram in a per-page map keyed by method,
+ * which only goes through {@link Histograms} when the test changes, and a lock-free histogram update.
+ * {@code CommandTimerBenchmark} measures it against the bare driver.
+ */
+public final class CommandTimer {
+    public static final String GROUP = "commands";
+    private static final Logger logger = LoggerFactory.getLogger(CommandTimer.class);
+    private static final String SEPARATOR = "|";
+    private static final ThreadLocal<String> test = ThreadLocal.withInitial(() -> "-");
+    // Accessors returning command groups, only the calls made on the returned objects are timed
+    private static final Set<String> SCOPES = new LinkedHashSet<>(Arrays.asList("navigate", "manage", "switchTo", "window", "timeouts"));
+    // Histograms of each page tag, "-" for commands issued outside of pages
+    private static final Map<String, Timers> pages = new ConcurrentHashMap<>();
+
+    private CommandTimer() {
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(Configuration.envMetricsCommands().get("true"));
+    }
+
+    /**
+     * Tags the commands issued by the current thread with the running test.
+     *
+     * @param name Test method, or null to clear the tag
+     */
+    public static void test(String name) {
+        if (name == null) test.remove();
+        else test.set(name);
+    }
+
+    /**
+     * Wraps the driver when command timing is enabled.
+     *
+     * @param driver Driver to instrument
+     * @return Timed driver, or the driver itself when disabled
+     */
+    public static WebDriver wrap(WebDriver driver) {
+        if (driver == null || !isEnabled() || Proxy.isProxyClass(driver.getClass())
+                && Proxy.getInvocationHandler(driver) instanceof Handler) return driver;
+        return (WebDriver) proxy(driver, timers("-"), WrapsDriver.class);
+    }
+
+    /**
+     * View of a timed driver whose commands are tagged with the given page.
+     *
+     * @param driver Driver handed to the page
+     * @param page   Page class
+     * @return Tagged driver, or the driver itself when it is not timed
+     */
+    public static WebDriver scope(WebDriver driver, Class<?> page) {
+        if (driver == null || !Proxy.isProxyClass(driver.getClass())) return driver;
+        InvocationHandler handler = Proxy.getInvocationHandler(driver);
+        if (!(handler instanceof Handler)) return driver;
+        return (WebDriver) proxy(((Handler) handler).target, timers(page.getSimpleName()), WrapsDriver.class);
+    }
+
+    /**
+     * @param driver Possibly timed driver
+     * @return The original driver
+     */
+    public static WebDriver unwrap(WebDriver driver) {
+        while (driver instanceof WrapsDriver && Proxy.isProxyClass(driver.getClass())
+                && Proxy.getInvocationHandler(driver) instanceof Handler)
+            driver = ((WrapsDriver) driver).getWrappedDriver();
+        return driver;
+    }
+
+    /**
+     * Writes the command histograms as {@code commands.json} and {@code commands.csv} (microseconds).
+     *
+     * @return Folder holding the files, or null when nothing was recorded
+     */
+    public static Path export() {
+        List<Map.Entry<String, LatencyHistogram>> ranked = Histograms.ranked(GROUP);
+        if (ranked.isEmpty()) return null;
+        Path directory = Paths.get(Configuration.envMetricsDir().get("target/metrics"));
+        try {
+            Files.createDirectories(directory);
+            try (Writer json = Files.newBufferedWriter(directory.resolve(GROUP + ".json"), StandardCharsets.UTF_8);
+                 Writer csv = Files.newBufferedWriter(directory.resolve(GROUP + ".csv"), StandardCharsets.UTF_8)) {
+                json.write("[");
+                csv.write("command,page,test,count,totalUs,meanUs,p50Us,p95Us,p99Us,maxUs\n");
+                for (int i = 0; i < ranked.size(); i++) {
+                    String[] tags = ranked.get(i).getKey().split("\\" + SEPARATOR, 3);
+                    LatencyHistogram h = ranked.get(i).getValue();
+                    String summary = h.toJson();
+                    json.write((i == 0 ? "" : ",") + "\n  {\"command\":\"" + escape(tags[0]) + "\",\"page\":\"" + escape(tags[1])
+                            + "\",\"test\":\"" + escape(tags[2]) + "\"," + summary.substring(1));
+                    csv.write(csv(tags[0]) + "," + csv(tags[1]) + "," + csv(tags[2]) + "," + h.count() + "," + h.totalNanos() / 1000
+                            + "," + h.meanNanos() / 1000 + "," + h.percentileNanos(0.5) / 1000 + "," + h.percentileNanos(0.95) / 1000
+                            + "," + h.percentileNanos(0.99) / 1000 + "," + h.maxNanos() / 1000 + "\n");
+                }
+                json.write("\n]\n");
+            }
+            return directory;
+        } catch (IOException e) {
+            logger.warn("Unable to export command timings to '" + directory + "'.", e);
+            return null;
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    // RFC 4180 quoting, page and test names may hold commas or quotes (eg. data provider parameters)
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+            return value;
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    private static Timers timers(String page) {
+        return pages.computeIfAbsent(page, p -> new Timers("", p, null));
+    }
+
+    private static Object proxy(Object target, Timers timers, Class<?> wrapper) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        collect(target.getClass(), interfaces);
+        if (wrapper != null) interfaces.add(wrapper);
+        return Proxy.newProxyInstance(CommandTimer.class.getClassLoader(), interfaces.toArray(new Class<?>[0]),
+                new Handler(target, timers));
+    }
+
+    private static void collect(Class<?> type, Set<Class<?>> interfaces) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass())
+            for (Class<?> candidate : current.getInterfaces())
+                if (interfaces.add(candidate)) collect(candidate, interfaces);
+    }
+
+    /**
+     * Histograms of one page tag and command prefix (eg. {@code element.} or {@code manage.window.}), per method.
+     */
+    private static final class Timers {
+        private final String prefix;
+        private final String page;
+        private final Timers root;
+        private final Map<Method, Timer> methods = new ConcurrentHashMap<>();
+        private final Map<String, Timers> scopes = new ConcurrentHashMap<>();
+
+        private Timers(String prefix, String page, Timers root) {
+            this.prefix = prefix;
+            this.page = page;
+            this.root = root == null ? this : root;
+        }
+
+        private Timers scope(String name) {
+            return scopes.computeIfAbsent(name, n -> new Timers(prefix + n + ".", page, root));
+        }
+
+        private Timers elements() {
+            return root.scope("element");
+        }
+
+        private LatencyHistogram histogram(Method method) {
+            String current = test.get();
+            Timer timer = methods.get(method);
+            // The tag of a thread is the same String instance for the whole test
+            if (timer == null || timer.test != current) {
+                timer = new Timer(current, Histograms.get(GROUP, prefix + method.getName() + SEPARATOR + page + SEPARATOR + current));
+                methods.put(method, timer);
+            }
+            return timer.histogram;
+        }
+    }
+
+    private static final class Timer {
+        private final String test;
+        private final LatencyHistogram histogram;
+
+        private Timer(String test, LatencyHistogram histogram) {
+            this.test = test;
+            this.histogram = histogram;
+        }
+    }
+
+    private static final class Handler implements InvocationHandler {
+        private final Object target;
+        private final Timers timers;
+
+        private Handler(Object target, Timers timers) {
+            this.target = target;
+            this.timers = timers;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "getWrappedDriver":
+                    // Elements implement WrapsDriver as well, only the driver wrapper unwraps to its target
+                    if (target instanceof WebDriver) return target;
+                    break;
+                case "getWrappedElement":
+                    if (method.getDeclaringClass() == WrapsElement.class) return target;
+                    break;
+                case "equals":
+                    if (args != null && args.length == 1 && method.getParameterTypes()[0] == Object.class)
+                        return proxy == args[0] || target.equals(args[0] instanceof WrapsElement && Proxy.isProxyClass(args[0].getClass())
+                                ? ((WrapsElement) args[0]).getWrappedElement() : args[0]);
+                    break;
+                case "hashCode":
+                case "toString":
+                    if (args == null) return invoke(method, target, null);
+                    break;
+                default:
+                    break;
+            }
+            if (args == null && SCOPES.contains(name))
+                return proxy(invoke(method, target, null), timers.scope(name), null);
+
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invoke(method, target, args);
+            } finally {
+                timers.histogram(method).record(System.nanoTime() - start);
+            }
+            if (result == target) return proxy;
+            if (result instanceof WebElement) return element((WebElement) result);
+            if (result instanceof List && "findElements".equals(name)) {
+                List<Object> elements = new ArrayList<>();
+                for (Object element : (List<?>) result)
+                    elements.add(element instanceof WebElement ? element((WebElement) element) : element);
+                return elements;
+            }
+            return result;
+        }
+
+        private Object element(WebElement element) {
+            return proxy(element, timers.elements(), WrapsElement.class);
+        }
+
+        private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -5,75 +5,99 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Enumeration;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class for handling system properties and properties files.
  */
 public final class Configuration {
     private static final Logger logger = LoggerFactory.getLogger(Configuration.class);
+    private static final Map<String, Properties> profiles = new ConcurrentHashMap<>();
+    private static volatile Snapshot snapshot;
+    private static volatile long initNanos;
 
     private Configuration() {
     }
 
-    static {
-        try {
-            init();
-        } catch (IOException e) {
-            // Stuff went south, real fast. BAIL!
-            logger.error("Configuration initialization failed.", e);
-            System.exit(1);
-        }
-    }
-
     /**
-     * Initializes the Configuration by preparing various properties files and system properties.
+     * Initializes the Configuration by preparing various properties files.
      * Loaded in the following order: defaults -&gt; platform-specific -&gt; user-definitions -&gt; system-derived
      * Value overrides occur in the following order of importance: null -&gt; empty string -&gt; non-empty string
+     * The system-derived layers (environment variables, then system properties) override any value and are
+     * resolved per key by {@link Snapshot#get(String)} instead of being copied.
+     * Runs lazily on first access, so classes that never read configuration don't pay for it.
      *
      * @throws IOException Properties files were not setup correctly.
      */
     private static void init() throws IOException {
+        long start = System.nanoTime();
+        snapshot = new Snapshot(assemble());
+        initNanos = System.nanoTime() - start;
+        logger.debug("Configuration initialized in " + TimeUnit.NANOSECONDS.toMicros(initNanos) + "us.");
+    }
+
+    /**
+     * Merges the file layers without publishing the result.
+     *
+     * @return Merged properties
+     * @throws IOException Properties files were not setup correctly.
+     */
+    static Properties assemble() throws IOException {
         Properties baseline = load("test.properties");
         Properties custom = load("custom.properties", true);
 
-        Properties tmp = flatten(baseline, custom, System.getProperties());
-
-        Properties platform;
-        try {
-//            platform = load("profiles/" + new Property("app.profile", tmp) + ".properties");
-        } catch (NullPointerException e) {
-            throw new IllegalStateException("Must specify a platform profile to use.", e);
-        }
+        // The profile layer is only loaded when one is requested
+        String profileName = Snapshot.resolve("app.profile", flatten(baseline, custom).getProperty("app.profile"));
+        Properties platform = profileName == null || profileName.length() == 0
+                ? new Properties()
+                : profile(profileName);
 
         Properties squashed = flatten(
                 baseline,
+                platform,
                 custom
-//                ,platform
         );
-        // Add environment variables
-        for (Map.Entry<String, String> entry : System.getenv().entrySet()) {
-            squashed.put(entry.getKey(), entry.getValue());
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("========== Begin Properties List ==========");
+            for (String k : squashed.stringPropertyNames()) {
+                String v = squashed.getProperty(k);
+                if (v.length() > 40)
+                    v = v.substring(0, 37) + "...";
+                logger.debug(k + "=" + v);
+            }
+            logger.debug("=========== End Properties List ===========");
         }
-        // Any arguments pass via CLI will forcefully override the equivalent property, regardless of value
-        // TODO: Better way of differentiating between maven properties and command line properties.
-        //     Use unique names and combine them in here?
-        squashed.putAll(System.getProperties());
-
-        logger.debug("========== Begin Properties List ==========");
-        Enumeration keys = squashed.keys();
-        while (keys.hasMoreElements()) {
-            String k = (String) keys.nextElement();
-            String v = (String) squashed.get(k);
-            if (v.length() > 40)
-                v = v.substring(0, 37) + "...";
-            logger.debug(k + "=" + v);
+        return squashed;
+    }
+
+    /**
+     * Loads the platform profile {@code profiles/<name>.properties}, once per profile.
+     *
+     * @param name Profile name, usually taken from {@code app.profile}
+     * @return Properties object
+     * @throws IOException Profile file does not exist or cannot be read
+     */
+    public static Properties profile(String name) throws IOException {
+        Properties cached = profiles.get(name);
+        if (cached == null) {
+            cached = load("profiles/" + name + ".properties");
+            Properties existing = profiles.putIfAbsent(name, cached);
+            if (existing != null) cached = existing;
         }
-        logger.debug("=========== End Properties List ===========");
-        System.setProperties(squashed);
+        return cached;
+    }
 
+    /**
+     * Time spent assembling the configuration, or 0 when it has not been initialized yet.
+     *
+     * @return Nanoseconds
+     */
+    public static long initNanos() {
+        return initNanos;
     }
 
     /**
@@ -117,7 +141,7 @@ public final class Configuration {
      * @param sources Properties objects to combine
      * @return Resulting Properties object
      */
-    private static Properties flatten(Properties... sources) {
+    static Properties flatten(Properties... sources) {
         Properties target = new Properties();
         for (Properties source : sources) {
             for (String prop : source.stringPropertyNames()) {
@@ -132,13 +156,56 @@ public final class Configuration {
         return target;
     }
 
+    /**
+     * Current immutable view of the merged properties, used by {@link Property} for lock-free reads.
+     *
+     * @return Snapshot
+     */
+    static Snapshot current() {
+        Snapshot current = snapshot;
+        return current != null ? current : initialize();
+    }
+
+    private static synchronized Snapshot initialize() {
+        if (snapshot == null) {
+            try {
+                init();
+            } catch (IOException e) {
+                logger.error("Configuration initialization failed.", e);
+                throw new IllegalStateException("Configuration initialization failed.", e);
+            }
+        }
+        return snapshot;
+    }
+
     /**
      * Dynamically add properties to the default properties object.
+     * Values are merged with the {@link #flatten(Properties...)} rules into the system properties, the top layer.
+     * A new snapshot is published atomically, readers keep using the previous one until then.
      *
      * @param source Properties object to merge.
      */
-    public static void extend(Properties source) {
-        System.setProperties(flatten(System.getProperties(), source));
+    public static synchronized void extend(Properties source) {
+        Snapshot current = current();
+        for (String key : source.stringPropertyNames()) {
+            String value = source.getProperty(key);
+            String check = current.get(key);
+            if (check == null || check.length() == 0 || value.length() > 0)
+                System.setProperty(key, value);
+        }
+        snapshot = current.republish();
+    }
+
+    /**
+     * Forcefully sets a single property, even to an empty value.
+     *
+     * @param key   Property name
+     * @param value Desired value
+     */
+    static synchronized void set(String key, String value) {
+        Snapshot current = current();
+        System.setProperty(key, value);
+        snapshot = current.republish();
     }
 
     /**
@@ -166,4 +233,220 @@ public final class Configuration {
         return new Property("env.remote.url");
     }
 
+    public static Property envBrowserMode(){
+        return new Property("env.browser.mode");
+    }
+
+    public static Property envBrowserWindow(){
+        return new Property("env.browser.window");
+    }
+
+    public static Property envBrowserVersion(){
+        return new Property("env.browser.version");
+    }
+
+    public static Property envDriverCache(){
+        return new Property("env.driver.cache");
+    }
+
+    public static Property envDriverCacheTtl(){
+        return new Property("env.driver.cacheTtl");
+    }
+
+    public static Property envDriverQuitTimeout(){
+        return new Property("env.driver.quitTimeout");
+    }
+
+    public static Property envParallelMode(){
+        return new Property("env.parallel.mode");
+    }
+
+    public static Property envParallelThreads(){
+        return new Property("env.parallel.threads");
+    }
+
+    public static Property envWaitTimeout(){
+        return new Property("env.wait.timeout");
+    }
+
+    public static Property envWaitPollMin(){
+        return new Property("env.wait.pollMin");
+    }
+
+    public static Property envWaitPollMax(){
+        return new Property("env.wait.pollMax");
+    }
+
+    public static Property envWaitEvents(){
+        return new Property("env.wait.events");
+    }
+
+    public static Property envPageBatch(){
+        return new Property("env.page.batch");
+    }
+
+    public static Property envPageCache(){
+        return new Property("env.page.cache");
+    }
+
+    public static Property envLoadStrategy(){
+        return new Property("env.load.strategy");
+    }
+
+    public static Property envLoadImages(){
+        return new Property("env.load.images");
+    }
+
+    public static Property envLoadCss(){
+        return new Property("env.load.css");
+    }
+
+    public static Property envLoadBlock(){
+        return new Property("env.load.block");
+    }
+
+    public static Property envLoadReplay(){
+        return new Property("env.load.replay");
+    }
+
+    public static Property envLoadProxy(){
+        return new Property("env.load.proxy");
+    }
+
+    public static Property envLoadBind(){
+        return new Property("env.load.bind");
+    }
+
+    public static Property envRemoteSlots(){
+        return new Property("env.remote.slots");
+    }
+
+    public static Property envRemoteQueueTimeout(){
+        return new Property("env.remote.queueTimeout");
+    }
+
+    public static Property envScheduleStore(){
+        return new Property("env.schedule.store");
+    }
+
+    public static Property envShardTotal(){
+        return new Property("env.shard.total");
+    }
+
+    public static Property envShardIndex(){
+        return new Property("env.shard.index");
+    }
+
+    public static Property envMetricsCommands(){
+        return new Property("env.metrics.commands");
+    }
+
+    public static Property envMetricsDir(){
+        return new Property("env.metrics.dir");
+    }
+
+    public static Property envReportStream(){
+        return new Property("env.report.stream");
+    }
+
+    public static Property envReportFsyncMs(){
+        return new Property("env.report.fsyncMs");
+    }
+
+    public static Property envCaptureDir(){
+        return new Property("env.capture.dir");
+    }
+
+    public static Property envCaptureMaxKb(){
+        return new Property("env.capture.maxKb");
+    }
+
+    public static Property envCaptureQueue(){
+        return new Property("env.capture.queue");
+    }
+
+    public static Property envCaptureWaitMs(){
+        return new Property("env.capture.waitMs");
+    }
+
+    public static Property envBrowserRender(){
+        return new Property("env.browser.render");
+    }
+
+    public static Property envImpactBase(){
+        return new Property("env.impact.base");
+    }
+
+    public static Property envImpactChanged(){
+        return new Property("env.impact.changed");
+    }
+
+    public static Property envImpactSmoke(){
+        return new Property("env.impact.smoke");
+    }
+
+    public static Property envImpactIndex(){
+        return new Property("env.impact.index");
+    }
+
+    public static Property envVisualBaselines(){
+        return new Property("env.visual.baselines");
+    }
+
+    public static Property envVisualDir(){
+        return new Property("env.visual.dir");
+    }
+
+    public static Property envVisualTolerance(){
+        return new Property("env.visual.tolerance");
+    }
+
+    public static Property envVisualMaxDiff(){
+        return new Property("env.visual.maxDiff");
+    }
+
+    public static Property envVisualHashDistance(){
+        return new Property("env.visual.hashDistance");
+    }
+
+    public static Property envVisualUpdate(){
+        return new Property("env.visual.update");
+    }
+
+    public static Property envVisualRequire(){
+        return new Property("env.visual.require");
+    }
+
+    public static Property envScenarioUsers(){
+        return new Property("env.scenario.users");
+    }
+
+    public static Property envScenarioRampUp(){
+        return new Property("env.scenario.rampUp");
+    }
+
+    public static Property envScenarioThink(){
+        return new Property("env.scenario.think");
+    }
+
+    public static Property envScenarioDuration(){
+        return new Property("env.scenario.duration");
+    }
+
+    public static Property envPoolSize(){
+        return new Property("env.pool.size");
+    }
+
+    public static Property envPoolWarm(){
+        return new Property("env.pool.warm");
+    }
+
+    public static Property envPoolMaxReuse(){
+        return new Property("env.pool.maxReuse");
+    }
+
+    public static Property envPoolTimeout(){
+        return new Property("env.pool.timeout");
+    }
+
 }
\ No newline at end of file
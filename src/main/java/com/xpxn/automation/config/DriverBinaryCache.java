@@ -0,0 +1,210 @@
+package com.xpxn.automation.config;
+
+import io.github.bonigarcia.wdm.DriverManagerType;
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Caches WebDriverManager binary resolution per browser and version.
+ * Resolved paths are kept for the lifetime of the JVM and persisted to a manifest file so later runs
+ * can skip version resolution entirely (and start offline) until the entry expires.
+ */
+public final class DriverBinaryCache {
+    private static final Logger logger = LoggerFactory.getLogger(DriverBinaryCache.class);
+
+    private static final Map<String, String> resolved = new ConcurrentHashMap<>();
+    private static final AtomicLong memoryHits = new AtomicLong();
+    private static final AtomicLong diskHits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static BiFunction<String, String, String> resolver = DriverBinaryCache::download;
+
+    private DriverBinaryCache() {
+    }
+
+    /**
+     * Makes sure the driver binary for the given browser is available and exported to its system property.
+     *
+     * @param browser Browser name (chrome, edge, firefox)
+     * @return Absolute path to the driver binary
+     */
+    public static String resolve(String browser) {
+        String version = Configuration.envBrowserVersion().get("latest");
+        String key = browser + "@" + version;
+        String path = resolved.get(key);
+        if (path != null) {
+            memoryHits.incrementAndGet();
+        } else {
+            path = resolved.computeIfAbsent(key, k -> load(browser, version, k));
+        }
+        System.setProperty(exportProperty(browser), path);
+        return path;
+    }
+
+    public static long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public static long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Human readable summary of the cache usage.
+     *
+     * @return String
+     */
+    public static String stats() {
+        return "driver binary cache: memory hits=" + memoryHits.get() + ", disk hits=" + diskHits.get()
+                + ", misses=" + misses.get();
+    }
+
+    /**
+     * Replaces the WebDriverManager resolution and forgets the paths resolved so far, for tests that must not download.
+     *
+     * @param resolution Resolves the binary path for a browser and version, null for WebDriverManager
+     */
+    static synchronized void use(BiFunction<String, String, String> resolution) {
+        resolver = resolution == null ? DriverBinaryCache::download : resolution;
+        resolved.clear();
+    }
+
+    private static String load(String browser, String version, String key) {
+        Path manifest = manifest();
+        long ttl = TimeUnit.HOURS.toMillis(Long.parseLong(Configuration.envDriverCacheTtl().get("24")));
+        synchronized (DriverBinaryCache.class) {
+            // Forked test JVMs share the manifest: the first one resolves, the others wait and reuse its result
+            try (FileChannel lock = FileChannel.open(lockFile(manifest), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = lock.lock()) {
+                return resolveLocked(manifest, browser, version, key, ttl);
+            } catch (IOException e) {
+                logger.warn("Unable to lock driver manifest '" + manifest + "', resolving without it.", e);
+                return resolveLocked(manifest, browser, version, key, ttl);
+            }
+        }
+    }
+
+    private static String resolveLocked(Path manifest, String browser, String version, String key, long ttl) {
+        Properties entries = read(manifest);
+        String entry = entries.getProperty(key);
+        int split = entry == null ? -1 : entry.indexOf('|');
+        if (split > 0) {
+            String path = entry.substring(split + 1);
+            try {
+                long stamp = Long.parseLong(entry.substring(0, split));
+                if (System.currentTimeMillis() - stamp < ttl && new File(path).canExecute()) {
+                    diskHits.incrementAndGet();
+                    logger.debug("Using cached driver binary for " + key + ": " + path);
+                    return path;
+                }
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring corrupt driver manifest entry " + key + "=" + entry);
+            }
+        } else if (entry != null) {
+            // Resolved again and overwritten below
+            logger.warn("Ignoring corrupt driver manifest entry " + key + "=" + entry);
+        }
+
+        misses.incrementAndGet();
+        String path = resolver.apply(browser, version);
+        logger.debug("Resolved driver binary for " + key + ": " + path);
+
+        // Re-read in case another JVM updated the manifest while we were resolving
+        entries = read(manifest);
+        entries.setProperty(key, System.currentTimeMillis() + "|" + path);
+        write(manifest, entries);
+        return path;
+    }
+
+    private static String download(String browser, String version) {
+        WebDriverManager manager = WebDriverManager.getInstance(type(browser));
+        if (!"latest".equals(version))
+            manager.version(version);
+        manager.setup();
+        return manager.getBinaryPath();
+    }
+
+    private static Path lockFile(Path manifest) throws IOException {
+        Path absolute = manifest.toAbsolutePath();
+        Files.createDirectories(absolute.getParent());
+        return absolute.resolveSibling(absolute.getFileName() + ".lock");
+    }
+
+    private static Path manifest() {
+        String location = Configuration.envDriverCache().get(
+                Paths.get(System.getProperty("user.home"), ".cache", "testframework", "drivers.properties").toString());
+        return Paths.get(location);
+    }
+
+    private static Properties read(Path manifest) {
+        Properties entries = new Properties();
+        if (!Files.isReadable(manifest)) return entries;
+        try (InputStream in = Files.newInputStream(manifest)) {
+            entries.load(in);
+        } catch (IOException e) {
+            logger.warn("Unable to read driver manifest '" + manifest + "', ignoring it.", e);
+        }
+        return entries;
+    }
+
+    private static void write(Path manifest, Properties entries) {
+        try {
+            Files.createDirectories(manifest.toAbsolutePath().getParent());
+            Path tmp = Files.createTempFile(manifest.toAbsolutePath().getParent(), "drivers", ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                entries.store(out, "Resolved WebDriver binaries");
+            }
+            Files.move(tmp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Unable to persist driver manifest '" + manifest + "'.", e);
+        }
+    }
+
+    private static DriverManagerType type(String browser) {
+        switch (browser) {
+            case "chrome":
+                return DriverManagerType.CHROME;
+            case "edge":
+                return DriverManagerType.EDGE;
+            case "firefox":
+                return DriverManagerType.FIREFOX;
+            default:
+                throw new IllegalArgumentException("Provided browser '" + browser + "' is not supported.");
+        }
+    }
+
+    private static String exportProperty(String browser) {
+        switch (browser) {
+            case "chrome":
+                return "webdriver.chrome.driver";
+            case "edge":
+                return "webdriver.edge.driver";
+            case "firefox":
+                return "webdriver.gecko.driver";
+            default:
+                throw new IllegalArgumentException("Provided browser '" + browser + "' is not supported.");
+        }
+    }
+}
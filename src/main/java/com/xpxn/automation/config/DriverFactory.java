@@ -1,6 +1,5 @@
 package com.xpxn.automation.config;
 
-import io.github.bonigarcia.wdm.WebDriverManager;
 import org.openqa.selenium.MutableCapabilities;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
@@ -9,17 +8,20 @@ import org.openqa.selenium.edge.EdgeDriver;
 import org.openqa.selenium.edge.EdgeOptions;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.remote.CapabilityType;
 import org.openqa.selenium.remote.DesiredCapabilities;
-import org.openqa.selenium.remote.RemoteWebDriver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.MalformedURLException;
-import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 public class DriverFactory {
     private static final Logger logger = LoggerFactory.getLogger(DriverFactory.class);
     private static ThreadLocal<WebDriver> driver = new ThreadLocal<>();
+    private static final Map<String, Function<MutableCapabilities, WebDriver>> backends = new ConcurrentHashMap<>();
 
     private DriverFactory() {
     }
@@ -32,10 +34,40 @@ public class DriverFactory {
                 return setupRemote();
 
             default:
-                return null;
+                return backends.containsKey(env) ? new MutableCapabilities() : null;
         }
     }
 
+    /**
+     * Capabilities for a browser other than the configured {@code env.browser.name}, eg. a real browser for
+     * tests that need rendering while the rest of the suite runs in process.
+     *
+     * @param env     Desired environment (local, remote)
+     * @param browser Browser name
+     * @return MutableCapabilities
+     */
+    public static MutableCapabilities setup(String env, String browser) {
+        switch (env) {
+            case "local":
+                return setupLocal(browser);
+            case "remote":
+                MutableCapabilities caps = setupRemote();
+                caps.setCapability(CapabilityType.BROWSER_NAME, browser);
+                return caps;
+
+            default:
+                return setup(env);
+        }
+    }
+
+    /**
+     * @param browser Browser name
+     * @return true for the JVM-only driver, which does not render pages
+     */
+    public static boolean isInProcess(String browser) {
+        return InProcessDriver.BROWSER.equals(browser);
+    }
+
     public static WebDriver build(String env, MutableCapabilities caps) throws MalformedURLException {
         if (driver.get() != null) {
             return driver.get();
@@ -47,15 +79,32 @@ public class DriverFactory {
             case "remote":
                 return buildRemote(caps);
             default:
-                return null;
+                Function<MutableCapabilities, WebDriver> backend = backends.get(env);
+                if (backend == null) return null;
+                WebDriver dr = backend.apply(caps);
+                driver.set(dr);
+                return dr;
         }
     }
 
+    /**
+     * Registers a custom environment, eg. a stub driver for benchmarks or an in-process implementation.
+     *
+     * @param env     Environment name used with {@link #setup(String)} and {@link #build(String, MutableCapabilities)}
+     * @param builder Creates a new driver from the given capabilities
+     */
+    public static void register(String env, Function<MutableCapabilities, WebDriver> builder) {
+        backends.put(env, builder);
+    }
+
     public static MutableCapabilities setupLocal(){
-        Property browser = Configuration.envBrowserName();
-        MutableCapabilities caps = null;
+        return setupLocal(Configuration.envBrowserName().expect("chrome", "edge", "firefox", InProcessDriver.BROWSER));
+    }
 
-        switch (browser.expect("chrome", "edge", "firefox")) {
+    public static MutableCapabilities setupLocal(String browser){
+        MutableCapabilities caps;
+
+        switch (browser) {
             case "chrome":
                 caps = new ChromeOptions();
                 break;
@@ -65,46 +114,114 @@ public class DriverFactory {
             case"firefox":
                 caps = new FirefoxOptions();
                 break;
+            case InProcessDriver.BROWSER:
+                // No window, no headless switch
+                return LoadProfile.apply(InProcessDriver.capabilities(), browser);
             default:
-                break;
+                throw new IllegalArgumentException("Provided browser '" + browser + "' is not supported.");
         }
-        return caps;
+        return LoadProfile.apply(BrowserMode.apply(caps, browser), browser);
     }
 
     public static MutableCapabilities setupRemote(){
-        return new DesiredCapabilities();
+        return LoadProfile.apply(new DesiredCapabilities(), null);
+    }
+
+    /**
+     * Creates a brand new driver for the given environment without binding it to the calling thread.
+     * Used by {@link DriverPool} which manages the session lifecycle itself.
+     *
+     * @param env  Desired environment (local, remote)
+     * @param caps Capabilities produced by {@link #setup(String)}
+     * @return New WebDriver session
+     * @throws MalformedURLException Remote url is not valid
+     */
+    public static WebDriver create(String env, MutableCapabilities caps) throws MalformedURLException {
+        switch (env) {
+            case "local":
+                return CommandTimer.wrap(newLocal(caps));
+            case "remote":
+                return CommandTimer.wrap(GridBroker.get().acquire(caps));
+            default:
+                Function<MutableCapabilities, WebDriver> backend = backends.get(env);
+                if (backend == null)
+                    throw new IllegalArgumentException("Provided environment '" + env + "' is not supported.");
+                return CommandTimer.wrap(backend.apply(caps));
+        }
     }
 
     public static WebDriver buildLocal(MutableCapabilities caps) {
-        Property browser = Configuration.envBrowserName();
+        WebDriver dr = CommandTimer.wrap(newLocal(caps));
+        driver.set(dr);
+        return dr;
+    }
+
+    private static WebDriver newLocal(MutableCapabilities caps) {
+        // The capabilities decide, so sessions for another browser than the configured one can be built too
+        String browser = caps instanceof EdgeOptions ? "edge" : caps.getBrowserName();
         WebDriver dr;
+        long start = System.nanoTime();
 
-        switch (browser.expect("chrome", "edge", "firefox")) {
+        switch (browser) {
             case "chrome":
-                WebDriverManager.chromedriver().setup();
+                DriverBinaryCache.resolve("chrome");
                 dr = new ChromeDriver((ChromeOptions)caps);
                 break;
             case "edge":
-                WebDriverManager.edgedriver().setup();
+                DriverBinaryCache.resolve("edge");
                 dr = new EdgeDriver((EdgeOptions)caps);
                 break;
             case "firefox":
-                WebDriverManager.firefoxdriver().setup();
+                DriverBinaryCache.resolve("firefox");
                 dr = new FirefoxDriver((FirefoxOptions)caps);
                 break;
+            case InProcessDriver.BROWSER:
+                dr = new InProcessDriver(caps);
+                break;
             default:
                 throw new IllegalArgumentException("Provided browser '" + browser + "' is not supported.");
         }
-        driver.set(dr);
+        SessionMetrics.launched(browser, dr, System.nanoTime() - start);
         return dr;
     }
 
+    /**
+     * Obtains a session from the {@link GridBroker} and binds it to the calling thread.
+     *
+     * @param caps Capabilities produced by {@link #setupRemote()}
+     * @return WebDriver
+     * @throws MalformedURLException Remote url is not valid
+     */
     public static WebDriver buildRemote(MutableCapabilities caps) throws MalformedURLException {
-        return new RemoteWebDriver(new URL(Configuration.envRemoteUrl().expect()), caps);
+        WebDriver dr = CommandTimer.wrap(GridBroker.get().acquire(caps));
+        driver.set(dr);
+        return dr;
+    }
+
+    /**
+     * Ends a session created by this factory. Grid sessions free their broker slot.
+     *
+     * @param dr Session to end
+     */
+    public static void quit(WebDriver dr) {
+        dr = CommandTimer.unwrap(dr);
+        GridBroker broker = GridBroker.owner(dr);
+        if (broker != null) broker.discard(dr);
+        else dr.quit();
     }
+
+    /**
+     * Unbinds the calling thread's driver and ends it in the background through the {@link DriverReaper}.
+     * Does nothing when no driver was built.
+     */
     public static void DestroyDriver() {
-        driver.get().quit();
+        WebDriver dr = driver.get();
+        if (dr == null) return;
         driver.set(null);
+        GridBroker broker = GridBroker.owner(CommandTimer.unwrap(dr));
+        // Grid sessions go back to the broker for reuse instead of being torn down
+        if (broker != null) DriverReaper.submit("release", () -> broker.release(CommandTimer.unwrap(dr)));
+        else DriverReaper.reap(dr);
     }
 
-}
\ No newline at end of file
+}
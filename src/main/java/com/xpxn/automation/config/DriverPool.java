@@ -0,0 +1,293 @@
+package com.xpxn.automation.config;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of warm WebDriver sessions with borrow/return semantics.
+ * Sessions are reset when returned and evicted once they reach the reuse limit or fail a health check.
+ * Resets and evictions run in the background so teardown overlaps with the next borrow.
+ */
+public class DriverPool {
+    private static final Logger logger = LoggerFactory.getLogger(DriverPool.class);
+    private static DriverPool instance;
+    private static DriverPool rendering;
+
+    private final String env;
+    private final String browser;
+    private final int maxReuse;
+    private final long timeoutSeconds;
+    private final Semaphore permits;
+    private final BlockingQueue<WebDriver> idle = new LinkedBlockingQueue<>();
+    private final Map<WebDriver, AtomicInteger> uses = new ConcurrentHashMap<>();
+    // Sessions currently borrowed, each holding one permit
+    private final Set<WebDriver> leased = ConcurrentHashMap.newKeySet();
+    // Window each session had when it was borrowed, the one kept by the reset
+    private final Map<WebDriver, String> windows = new ConcurrentHashMap<>();
+    private volatile boolean closed = false;
+
+    /**
+     * @param env            Environment passed to {@link DriverFactory#setup(String)}
+     * @param size           Maximum amount of live sessions
+     * @param maxReuse       Amount of borrows before a session is replaced
+     * @param timeoutSeconds Maximum time to wait for a free session
+     */
+    public DriverPool(String env, int size, int maxReuse, long timeoutSeconds) {
+        this(env, null, size, maxReuse, timeoutSeconds);
+    }
+
+    /**
+     * @param env            Environment passed to {@link DriverFactory#setup(String, String)}
+     * @param browser        Browser of the sessions, null for the configured {@code env.browser.name}
+     * @param size           Maximum amount of live sessions
+     * @param maxReuse       Amount of borrows before a session is replaced
+     * @param timeoutSeconds Maximum time to wait for a free session
+     */
+    public DriverPool(String env, String browser, int size, int maxReuse, long timeoutSeconds) {
+        if (size < 1)
+            throw new IllegalArgumentException("Pool size must be at least 1, got " + size + ".");
+        this.env = env;
+        this.browser = browser;
+        this.maxReuse = maxReuse;
+        this.timeoutSeconds = timeoutSeconds;
+        this.permits = new Semaphore(size, true);
+    }
+
+    /**
+     * Shared pool configured through the {@code env.pool.*} properties.
+     * The pool size defaults to the amount of parallel threads so every worker can hold a session.
+     *
+     * @return DriverPool
+     */
+    public static synchronized DriverPool get() {
+        if (instance == null || instance.closed) {
+            instance = new DriverPool(
+                    Configuration.appEnv().expect(),
+                    Integer.parseInt(Configuration.envPoolSize().get(threads())),
+                    Integer.parseInt(Configuration.envPoolMaxReuse().get("20")),
+                    Long.parseLong(Configuration.envPoolTimeout().get("120")));
+        }
+        return instance;
+    }
+
+    /**
+     * Pool for tests marked with {@link RequiresRendering}. While the suite runs on the {@link InProcessDriver}
+     * this is a second pool of real browsers ({@code env.browser.render}, default chrome), otherwise the shared pool.
+     *
+     * @param needsRendering Whether the test reads layout or computed styles
+     * @return DriverPool
+     */
+    public static synchronized DriverPool get(boolean needsRendering) {
+        if (!needsRendering || !DriverFactory.isInProcess(Configuration.envBrowserName().get("chrome")))
+            return get();
+        if (rendering == null || rendering.closed) {
+            rendering = new DriverPool(
+                    Configuration.appEnv().expect(),
+                    Configuration.envBrowserRender().get("chrome"),
+                    Integer.parseInt(Configuration.envPoolSize().get(threads())),
+                    Integer.parseInt(Configuration.envPoolMaxReuse().get("20")),
+                    Long.parseLong(Configuration.envPoolTimeout().get("120")));
+        }
+        return rendering;
+    }
+
+    /**
+     * Shuts down the shared pool and the rendering pool, if they were started.
+     */
+    public static synchronized void shutdownAll() {
+        if (rendering != null) rendering.shutdown();
+        if (instance != null) instance.shutdown();
+    }
+
+    private static String threads() {
+        String threads = Configuration.envParallelThreads().get("1");
+        return "auto".equals(threads) ? String.valueOf(Runtime.getRuntime().availableProcessors()) : threads;
+    }
+
+    /**
+     * Starts the desired amount of sessions up front so the first borrows don't pay for browser launch.
+     *
+     * @param count Sessions to start, capped by the pool size
+     */
+    public void warm(int count) {
+        int target = Math.min(count, permits.availablePermits()) - idle.size();
+        for (int i = 0; i < target; i++) {
+            try {
+                idle.offer(open());
+            } catch (RuntimeException | MalformedURLException e) {
+                logger.warn("Unable to pre-warm driver session.", e);
+                return;
+            }
+        }
+        logger.debug("Pool warmed with " + idle.size() + " idle session(s).");
+    }
+
+    /**
+     * Takes a healthy session out of the pool, starting a new one when none are idle.
+     *
+     * @return WebDriver
+     * @throws MalformedURLException Remote url is not valid
+     */
+    public WebDriver borrow() throws MalformedURLException {
+        if (closed)
+            throw new IllegalStateException("Driver pool has been shut down.");
+        try {
+            if (!permits.tryAcquire(timeoutSeconds, TimeUnit.SECONDS))
+                throw new IllegalStateException("No driver session became available within " + timeoutSeconds + "s.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a driver session.", e);
+        }
+        try {
+            WebDriver dr;
+            String window = null;
+            while ((dr = idle.poll()) != null) {
+                if ((window = window(dr)) != null) break;
+                evict(dr);
+            }
+            if (dr == null) {
+                dr = open();
+                try {
+                    window = dr.getWindowHandle();
+                } catch (RuntimeException e) {
+                    evict(dr);
+                    throw e;
+                }
+            }
+            windows.put(dr, window);
+            uses.get(dr).incrementAndGet();
+            leased.add(dr);
+            return dr;
+        } catch (RuntimeException | MalformedURLException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Hands a session back. The session is reset to a blank state, or evicted when worn out or broken.
+     * Both happen in the background through the {@link DriverReaper}, so the caller does not wait for the browser.
+     *
+     * @param dr Session obtained through {@link #borrow()}, other sessions and repeated releases are ignored
+     */
+    public void release(WebDriver dr) {
+        if (dr == null) return;
+        if (!leased.remove(dr)) {
+            // Returning the permit again would let the pool grow past its size
+            logger.warn("Ignoring release of a session that is not borrowed from this pool: " + dr);
+            return;
+        }
+        AtomicInteger count = uses.get(dr);
+        if (closed || count == null || count.get() >= maxReuse) {
+            evict(dr);
+            permits.release();
+            return;
+        }
+        // The permit is only returned once the session is idle again or evicted, so the pool never exceeds its size
+        AtomicBoolean settled = new AtomicBoolean();
+        DriverReaper.submit("reset", () -> {
+            boolean clean = !closed && reset(dr, windows.get(dr));
+            // A reset that outlived the quit timeout has been given up on already
+            if (!settled.compareAndSet(false, true)) return;
+            try {
+                if (clean) {
+                    idle.offer(dr);
+                    // shutdown() may have drained the queue in the meantime, the session would never be quit
+                    if (closed && idle.remove(dr)) evict(dr);
+                } else {
+                    evict(dr);
+                }
+            } finally {
+                permits.release();
+            }
+        }, () -> {
+            // A wedged browser must not hold its permit until the hung reset returns
+            if (!settled.compareAndSet(false, true)) return;
+            evict(dr);
+            permits.release();
+        });
+    }
+
+    /**
+     * Quits every idle session and refuses further borrows.
+     */
+    public void shutdown() {
+        closed = true;
+        List<WebDriver> drained = new ArrayList<>();
+        idle.drainTo(drained);
+        for (WebDriver dr : drained)
+            evict(dr);
+    }
+
+    private WebDriver open() throws MalformedURLException {
+        WebDriver dr = DriverFactory.create(env, browser == null ? DriverFactory.setup(env) : DriverFactory.setup(env, browser));
+        uses.put(dr, new AtomicInteger());
+        return dr;
+    }
+
+    private void evict(WebDriver dr) {
+        uses.remove(dr);
+        windows.remove(dr);
+        DriverReaper.reap(dr);
+    }
+
+    /**
+     * Health check of an idle session.
+     *
+     * @return the current window, or null when the session is broken
+     */
+    private static String window(WebDriver dr) {
+        try {
+            return dr.getWindowHandle();
+        } catch (RuntimeException e) {
+            logger.debug("Driver session failed health check.", e);
+            return null;
+        }
+    }
+
+    /**
+     * @param original Window of the session when it was borrowed, the window handle order is not guaranteed
+     */
+    private static boolean reset(WebDriver dr, String original) {
+        try {
+            Set<String> handles = dr.getWindowHandles();
+            if (original == null || !handles.contains(original)) {
+                logger.debug("Original window of the driver session was closed, evicting it.");
+                return false;
+            }
+            for (String handle : handles) {
+                if (!handle.equals(original)) dr.switchTo().window(handle).close();
+            }
+            dr.switchTo().window(original);
+            dr.manage().deleteAllCookies();
+            if (dr instanceof JavascriptExecutor) {
+                try {
+                    ((JavascriptExecutor) dr).executeScript(
+                            "try{window.localStorage.clear();window.sessionStorage.clear();}catch(e){}");
+                } catch (RuntimeException ignored) {
+                    // Storage is not reachable on every page (eg. about:blank, file urls)
+                }
+            }
+            dr.navigate().to("about:blank");
+            return true;
+        } catch (RuntimeException e) {
+            logger.debug("Driver session could not be reset.", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.xpxn.automation.config;
+
+import com.xpxn.automation.metrics.Histograms;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ends driver sessions in the background so quitting one session overlaps with starting the next.
+ * <p>
+ * A quit that takes longer than {@code env.driver.quitTimeout} seconds (default 30) or fails counts as a leak,
+ * and the browser and driver processes of the session are killed. {@link #shutdown(long)} waits for pending
+ * teardowns and kills driver processes of this JVM that outlived their sessions. Killing needs {@code /proc}
+ * and is skipped on other platforms.
+ */
+public final class DriverReaper {
+    private static final Logger logger = LoggerFactory.getLogger(DriverReaper.class);
+    private static final AtomicInteger threads = new AtomicInteger();
+    private static final ExecutorService workers = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "driver-reaper-" + threads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Object lock = new Object();
+    private static final LongAdder reaped = new LongAdder();
+    private static final LongAdder leaked = new LongAdder();
+    private static final LongAdder killed = new LongAdder();
+    private static int pending = 0;
+
+    private DriverReaper() {
+    }
+
+    /**
+     * Quits the session in the background.
+     *
+     * @param driver Session to end, ignored when null
+     */
+    public static void reap(WebDriver driver) {
+        if (driver == null) return;
+        submit(() -> {
+            // Collected before quitting, the capabilities are gone afterwards
+            Set<Integer> processes = SessionMetrics.sessionProcesses(CommandTimer.unwrap(driver));
+            if (!run(() -> DriverFactory.quit(driver), "quit")) kill(processes);
+        });
+    }
+
+    /**
+     * Runs a teardown step (eg. resetting a session before it is reused) in the background with the quit timeout.
+     *
+     * @param name   Step name used in logs and histograms
+     * @param action Teardown step
+     */
+    public static void submit(String name, Runnable action) {
+        submit(name, action, () -> {
+        });
+    }
+
+    /**
+     * Runs a teardown step in the background with the quit timeout, and gives up on the session when it hangs or fails.
+     *
+     * @param name   Step name used in logs and histograms
+     * @param action Teardown step
+     * @param onLeak Runs when the step timed out or failed, eg. to evict the session, while a hung step may still run
+     */
+    public static void submit(String name, Runnable action, Runnable onLeak) {
+        submit(() -> {
+            if (!run(action, name)) onLeak.run();
+        });
+    }
+
+    /**
+     * Waits for pending teardowns, then kills driver processes of this JVM that are still around.
+     *
+     * @param timeoutSeconds Maximum wait for pending teardowns
+     */
+    public static void shutdown(long timeoutSeconds) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        synchronized (lock) {
+            try {
+                long remaining;
+                while (pending > 0 && (remaining = deadline - System.nanoTime()) > 0)
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (pending > 0) logger.warn(pending + " driver teardown(s) still running at shutdown.");
+        }
+        Set<Integer> orphans = SessionMetrics.driverProcesses();
+        if (!orphans.isEmpty()) {
+            logger.warn("Killing " + orphans.size() + " orphaned driver/browser process(es).");
+            kill(orphans);
+        }
+    }
+
+    public static long getLeaked() {
+        return leaked.sum();
+    }
+
+    public static String stats() {
+        return "driver reaper: reaped=" + reaped.sum() + ", leaked=" + leaked.sum() + ", killed processes=" + killed.sum();
+    }
+
+    private static void submit(Runnable task) {
+        synchronized (lock) {
+            pending++;
+        }
+        workers.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                synchronized (lock) {
+                    pending--;
+                    lock.notifyAll();
+                }
+            }
+        });
+    }
+
+    /**
+     * @return true when the action completed in time
+     */
+    private static boolean run(Runnable action, String name) {
+        long timeout = Long.parseLong(Configuration.envDriverQuitTimeout().get("30"));
+        long start = System.nanoTime();
+        Future<?> future = workers.submit(action);
+        try {
+            future.get(timeout, TimeUnit.SECONDS);
+            reaped.increment();
+            return true;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            leaked.increment();
+            logger.warn("Driver " + name + " did not finish within " + timeout + "s, treating the session as leaked.");
+            return false;
+        } catch (ExecutionException e) {
+            leaked.increment();
+            logger.warn("Driver " + name + " failed, treating the session as leaked.", e.getCause());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            Histograms.get(SessionMetrics.GROUP, name).record(System.nanoTime() - start);
+        }
+    }
+
+    private static void kill(Set<Integer> processes) {
+        if (processes.isEmpty()) return;
+        List<String> command = new ArrayList<>();
+        command.add("kill");
+        command.add("-9");
+        for (int pid : processes)
+            command.add(String.valueOf(pid));
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            if (process.waitFor(10, TimeUnit.SECONDS)) killed.add(processes.size());
+        } catch (IOException e) {
+            logger.warn("Unable to kill processes " + processes + ".", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.xpxn.automation.config;
+
+import com.xpxn.automation.metrics.Histograms;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Hands out remote sessions across one or more grid endpoints without overloading them.
+ * <p>
+ * {@code env.remote.url} holds a comma separated list of endpoints, each optionally suffixed with
+ * {@code |slots} (defaults to {@code env.remote.slots}). Requests queue in arrival order until a slot is free,
+ * new sessions go to the least loaded endpoint, released sessions are kept and reused for equal capabilities,
+ * and failed creations are retried on the next endpoint.
+ */
+public final class GridBroker {
+    public static final String GROUP = "grid";
+    private static final Logger logger = LoggerFactory.getLogger(GridBroker.class);
+    private static GridBroker instance;
+
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private final Map<WebDriver, Lease> leases = new IdentityHashMap<>();
+    private final long queueTimeoutNanos;
+    private final BiFunction<URL, Capabilities, WebDriver> sessions;
+    private long nextTicket = 0;
+    private long serving = 0;
+    // Tickets abandoned before their turn must not block the line
+    private final Set<Long> abandoned = new HashSet<>();
+
+    /**
+     * @param urls                Endpoint urls, optionally suffixed with {@code |slots}
+     * @param defaultSlots        Slots for endpoints without an explicit amount
+     * @param queueTimeoutSeconds Maximum time a request waits for a free slot
+     * @throws MalformedURLException An endpoint url is not valid
+     */
+    public GridBroker(List<String> urls, int defaultSlots, long queueTimeoutSeconds) throws MalformedURLException {
+        this(urls, defaultSlots, queueTimeoutSeconds, RemoteWebDriver::new);
+    }
+
+    /**
+     * @param sessions Creates a session on an endpoint, a stub in tests
+     */
+    GridBroker(List<String> urls, int defaultSlots, long queueTimeoutSeconds,
+               BiFunction<URL, Capabilities, WebDriver> sessions) throws MalformedURLException {
+        for (String entry : urls) {
+            int split = entry.lastIndexOf('|');
+            String url = split < 0 ? entry : entry.substring(0, split);
+            int slots = split < 0 ? defaultSlots : Integer.parseInt(entry.substring(split + 1).trim());
+            endpoints.add(new Endpoint(new URL(url.trim()), slots));
+        }
+        if (endpoints.isEmpty())
+            throw new IllegalArgumentException("At least one remote endpoint is required.");
+        this.queueTimeoutNanos = TimeUnit.SECONDS.toNanos(queueTimeoutSeconds);
+        this.sessions = sessions;
+    }
+
+    /**
+     * Shared broker configured through {@code env.remote.url}, {@code env.remote.slots} and {@code env.remote.queueTimeout}.
+     *
+     * @return GridBroker
+     * @throws MalformedURLException An endpoint url is not valid
+     */
+    public static synchronized GridBroker get() throws MalformedURLException {
+        if (instance == null) {
+            List<String> urls = new ArrayList<>();
+            for (String url : Configuration.envRemoteUrl().expect().split(","))
+                if (!url.trim().isEmpty()) urls.add(url.trim());
+            instance = new GridBroker(urls,
+                    Integer.parseInt(Configuration.envRemoteSlots().get("1")),
+                    Long.parseLong(Configuration.envRemoteQueueTimeout().get("300")));
+        }
+        return instance;
+    }
+
+    /**
+     * @param driver Any driver
+     * @return the shared broker when it created the driver, null otherwise
+     */
+    static synchronized GridBroker owner(WebDriver driver) {
+        return instance != null && instance.owns(driver) ? instance : null;
+    }
+
+    /**
+     * Quits the idle sessions of the shared broker, if one was created.
+     */
+    public static void shutdownShared() {
+        GridBroker broker;
+        synchronized (GridBroker.class) {
+            broker = instance;
+        }
+        if (broker != null) broker.shutdown();
+    }
+
+    /**
+     * Returns an idle session with equal capabilities, or creates one on the least loaded endpoint.
+     *
+     * @param caps Desired capabilities
+     * @return WebDriver
+     */
+    public WebDriver acquire(Capabilities caps) {
+        long queued = System.nanoTime();
+        String key = caps.asMap().toString();
+        List<Endpoint> tried = new ArrayList<>();
+        WebDriverException failure = null;
+        while (tried.size() < endpoints.size()) {
+            Endpoint endpoint;
+            synchronized (this) {
+                do {
+                    WebDriver reused = takeIdle(key);
+                    if (reused != null) {
+                        Histograms.get(GROUP, "queue").record(System.nanoTime() - queued);
+                        return reused;
+                    }
+                    // Null when a session with equal capabilities was released while waiting in line
+                    endpoint = reserve(key, tried, queued);
+                } while (endpoint == null);
+            }
+            tried.add(endpoint);
+            long start = System.nanoTime();
+            try {
+                WebDriver driver = sessions.apply(endpoint.url, caps);
+                Histograms.get(GROUP, "create " + endpoint.url).record(System.nanoTime() - start);
+                synchronized (this) {
+                    endpoint.failures = 0;
+                    leases.put(driver, new Lease(endpoint, key));
+                }
+                return driver;
+            } catch (WebDriverException e) {
+                Histograms.get(GROUP, "failed " + endpoint.url).record(System.nanoTime() - start);
+                logger.warn("Session creation on " + endpoint.url + " failed, trying the next endpoint.", e);
+                failure = e;
+                synchronized (this) {
+                    endpoint.failures++;
+                    endpoint.used--;
+                    notifyAll();
+                }
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * Keeps the session for reuse by a later {@link #acquire(Capabilities)} with equal capabilities.
+     *
+     * @param driver Session obtained from this broker
+     */
+    public void release(WebDriver driver) {
+        synchronized (this) {
+            Lease lease = leases.get(driver);
+            // Releasing twice would hand the same session to two callers
+            if (lease == null || lease.idle) return;
+        }
+        try {
+            driver.manage().deleteAllCookies();
+            driver.navigate().to("about:blank");
+        } catch (WebDriverException e) {
+            discard(driver);
+            return;
+        }
+        synchronized (this) {
+            Lease lease = leases.get(driver);
+            if (lease != null && !lease.idle) {
+                lease.idle = true;
+                lease.endpoint.idle.addLast(driver);
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Quits the session and frees its slot.
+     *
+     * @param driver Session obtained from this broker
+     */
+    public void discard(WebDriver driver) {
+        Lease lease;
+        synchronized (this) {
+            lease = leases.remove(driver);
+            if (lease == null) return;
+            lease.endpoint.idle.remove(driver);
+        }
+        try {
+            driver.quit();
+        } catch (WebDriverException e) {
+            logger.debug("Remote session was already gone.", e);
+        } finally {
+            synchronized (this) {
+                lease.endpoint.used--;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @param driver Any driver
+     * @return true when the session was created by this broker and is not discarded yet
+     */
+    public synchronized boolean owns(WebDriver driver) {
+        return leases.containsKey(driver);
+    }
+
+    /**
+     * Quits every idle session.
+     */
+    public void shutdown() {
+        List<WebDriver> idle = new ArrayList<>();
+        synchronized (this) {
+            for (Endpoint endpoint : endpoints)
+                idle.addAll(endpoint.idle);
+        }
+        for (WebDriver driver : idle)
+            discard(driver);
+    }
+
+    private WebDriver takeIdle(String key) {
+        for (Endpoint endpoint : endpoints) {
+            for (WebDriver driver : endpoint.idle) {
+                Lease lease = leases.get(driver);
+                if (key.equals(lease.key)) {
+                    endpoint.idle.remove(driver);
+                    lease.idle = false;
+                    return driver;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean hasIdle(String key) {
+        for (Endpoint endpoint : endpoints)
+            for (WebDriver driver : endpoint.idle)
+                if (key.equals(leases.get(driver).key)) return true;
+        return false;
+    }
+
+    /**
+     * Waits in line for a free slot and reserves it on the least loaded endpoint not tried yet.
+     * An idle session with other capabilities is sacrificed when that is the only way to get a slot.
+     *
+     * @return the reserved endpoint, or null when an idle session with the given key can be reused instead
+     */
+    private Endpoint reserve(String key, List<Endpoint> exclude, long queued) {
+        long ticket = nextTicket++;
+        try {
+            while (true) {
+                // Reuse needs no slot, no need to keep waiting in line for one
+                if (hasIdle(key)) return null;
+                if (ticket == serving) {
+                    Endpoint best = null;
+                    for (Endpoint endpoint : endpoints) {
+                        if (exclude.contains(endpoint) || endpoint.used >= endpoint.slots) continue;
+                        if (best == null || endpoint.failures < best.failures
+                                || (endpoint.failures == best.failures && endpoint.load() < best.load()))
+                            best = endpoint;
+                    }
+                    if (best == null) {
+                        // Every idle session has other capabilities here, equal ones were reused above
+                        for (Endpoint endpoint : endpoints) {
+                            WebDriver victim = exclude.contains(endpoint) ? null : endpoint.idle.peekFirst();
+                            if (victim != null) {
+                                endpoint.idle.removeFirst();
+                                leases.remove(victim);
+                                endpoint.used--;
+                                // Quitting is a remote call, it must not hold up every acquire and release
+                                DriverReaper.submit("quit", () -> quitQuietly(victim));
+                                best = endpoint;
+                                break;
+                            }
+                        }
+                    }
+                    if (best != null) {
+                        best.used++;
+                        Histograms.get(GROUP, "queue").record(System.nanoTime() - queued);
+                        return best;
+                    }
+                }
+                long remaining = queueTimeoutNanos - (System.nanoTime() - queued);
+                if (remaining <= 0)
+                    throw new WebDriverException("No grid slot became available within "
+                            + TimeUnit.NANOSECONDS.toSeconds(queueTimeoutNanos) + "s.");
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverException("Interrupted while waiting for a grid slot.", e);
+        } finally {
+            // Let the next request in line try, whether this one got a slot or gave up
+            if (ticket == serving) serving++;
+            else abandoned.add(ticket);
+            // Skip tickets that gave up while waiting for an earlier one
+            while (abandoned.remove(serving)) serving++;
+            notifyAll();
+        }
+    }
+
+    private static void quitQuietly(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (WebDriverException ignored) {
+            // Already gone
+        }
+    }
+
+    private static final class Endpoint {
+        private final URL url;
+        private final int slots;
+        private final Deque<WebDriver> idle = new ArrayDeque<>();
+        private int used;
+        // Consecutive creation failures, endpoints that keep failing are tried last
+        private int failures;
+
+        private Endpoint(URL url, int slots) {
+            this.url = url;
+            this.slots = slots;
+        }
+
+        private double load() {
+            return (double) (used - idle.size()) / slots;
+        }
+    }
+
+    private static final class Lease {
+        private final Endpoint endpoint;
+        private final String key;
+        private boolean idle;
+
+        private Lease(Endpoint endpoint, String key) {
+            this.endpoint = endpoint;
+            this.key = key;
+        }
+    }
+}
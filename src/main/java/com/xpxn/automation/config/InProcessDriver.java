@@ -0,0 +1,110 @@
+package com.xpxn.automation.config;
+
+import com.gargoylesoftware.htmlunit.SilentCssErrorHandler;
+import com.gargoylesoftware.htmlunit.StringWebResponse;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.javascript.SilentJavaScriptErrorListener;
+import com.gargoylesoftware.htmlunit.util.WebConnectionWrapper;
+import com.xpxn.automation.network.LocalProxy;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.remote.BrowserType;
+import org.openqa.selenium.remote.CapabilityType;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * JVM-only driver for checks that don't need rendering (links, urls, text), selected with
+ * {@code env.browser.name=htmlunit}. No browser process is started, so a session costs a few milliseconds and
+ * pages load without painting, images or fonts.
+ * <p>
+ * Layout and computed styles are approximations: tests reading them are marked with
+ * {@link RequiresRendering} and get a real browser through {@link DriverPool#get(boolean)}.
+ * Hosts of {@code env.load.block} are answered with an empty page without a proxy, stylesheets are skipped
+ * when {@code env.load.css} is false.
+ */
+public class InProcessDriver extends HtmlUnitDriver {
+    public static final String BROWSER = BrowserType.HTMLUNIT;
+
+    public InProcessDriver(Capabilities caps) {
+        super(caps);
+    }
+
+    /**
+     * @return Capabilities with javascript enabled
+     */
+    public static DesiredCapabilities capabilities() {
+        DesiredCapabilities caps = DesiredCapabilities.htmlUnit();
+        caps.setCapability(CapabilityType.SUPPORTS_JAVASCRIPT, true);
+        return caps;
+    }
+
+    @Override
+    public Object executeScript(String script, Object... args) {
+        return normalize(super.executeScript(script, args));
+    }
+
+    @Override
+    public Object executeAsyncScript(String script, Object... args) {
+        return normalize(super.executeAsyncScript(script, args));
+    }
+
+    @Override
+    protected WebClient modifyWebClient(WebClient client) {
+        // Called from the super constructor, so nothing here may rely on fields of this class
+        // Behave like a browser on broken pages instead of failing the test: report nothing, keep going
+        client.getOptions().setThrowExceptionOnScriptError(false);
+        client.getOptions().setThrowExceptionOnFailingStatusCode(false);
+        client.getOptions().setPrintContentOnFailingStatusCode(false);
+        client.getOptions().setCssEnabled(Boolean.parseBoolean(Configuration.envLoadCss().get("true")));
+        client.setCssErrorHandler(new SilentCssErrorHandler());
+        client.setJavaScriptErrorListener(new SilentJavaScriptErrorListener());
+        client.setIncorrectnessListener((message, origin) -> {
+        });
+
+        List<Pattern> blocked = new ArrayList<>();
+        for (String host : Configuration.envLoadBlock().get("").split(","))
+            if (!host.trim().isEmpty()) blocked.add(LocalProxy.glob(host));
+        if (!blocked.isEmpty()) {
+            new WebConnectionWrapper(client) {
+                @Override
+                public WebResponse getResponse(WebRequest request) throws IOException {
+                    String host = request.getUrl().getHost();
+                    for (Pattern pattern : blocked)
+                        if (pattern.matcher(host).matches()) return new StringWebResponse("", request.getUrl());
+                    return super.getResponse(request);
+                }
+            };
+        }
+        return client;
+    }
+
+    /**
+     * Script results may hold Rhino strings inside lists and maps, callers expect {@link String}.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object normalize(Object value) {
+        if (value instanceof CharSequence && !(value instanceof String)) return value.toString();
+        if (value instanceof List) {
+            List<Object> out = new ArrayList<>();
+            for (Object item : (List<Object>) value)
+                out.add(normalize(item));
+            return out;
+        }
+        if (value instanceof Map) {
+            Map<String, Object> out = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet())
+                out.put(entry.getKey(), normalize(entry.getValue()));
+            return out;
+        }
+        return value;
+    }
+}
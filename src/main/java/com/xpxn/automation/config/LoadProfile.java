@@ -0,0 +1,141 @@
+package com.xpxn.automation.config;
+
+import com.xpxn.automation.network.LocalProxy;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.Proxy;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.remote.CapabilityType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Page load tuning applied when capabilities are built, configured through the {@code env.load.*} properties.
+ * <ul>
+ * <li>{@code env.load.strategy}: normal, eager or none</li>
+ * <li>{@code env.load.images} / {@code env.load.css}: false to stop downloading them</li>
+ * <li>{@code env.load.block}: comma separated host patterns, eg. {@code *.doubleclick.net,fonts.googleapis.com}</li>
+ * <li>{@code env.load.replay}: folder of recorded responses served by the embedded {@link LocalProxy}</li>
+ * <li>{@code env.load.proxy}: external proxy (host:port), ignored when the embedded proxy is needed</li>
+ * <li>{@code env.load.bind}: routable interface address for the embedded proxy of remote sessions</li>
+ * </ul>
+ * Remote browsers cannot reach the loopback proxy, so they only get the external proxy unless
+ * {@code env.load.bind} opts in to an embedded proxy listening on an address the grid can reach.
+ */
+public final class LoadProfile {
+    private static final Logger logger = LoggerFactory.getLogger(LoadProfile.class);
+    private static LocalProxy proxy;
+    private static LocalProxy remoteProxy;
+
+    private LoadProfile() {
+    }
+
+    /**
+     * Applies the configured load profile to the capabilities of the given browser.
+     *
+     * @param caps    Capabilities being built
+     * @param browser Browser name, or null for remote/unknown browsers
+     * @return the same capabilities
+     */
+    public static MutableCapabilities apply(MutableCapabilities caps, String browser) {
+        String strategy = Configuration.envLoadStrategy().get("normal");
+        caps.setCapability(CapabilityType.PAGE_LOAD_STRATEGY, strategy);
+
+        boolean images = Boolean.parseBoolean(Configuration.envLoadImages().get("true"));
+        boolean css = Boolean.parseBoolean(Configuration.envLoadCss().get("true"));
+        List<String> blocked = hosts();
+        String replay = Configuration.envLoadReplay().get("");
+
+        boolean chromium = caps instanceof ChromeOptions;
+        if (chromium) {
+            ChromeOptions chrome = (ChromeOptions) caps;
+            Map<String, Object> prefs = new HashMap<>();
+            if (!images) prefs.put("profile.managed_default_content_settings.images", 2);
+            if (!css) prefs.put("profile.managed_default_content_settings.stylesheets", 2);
+            if (!prefs.isEmpty()) chrome.setExperimentalOption("prefs", prefs);
+            // Chromium fails lookups of blocked hosts instantly, no proxy needed
+            if (!blocked.isEmpty()) {
+                List<String> rules = new ArrayList<>();
+                for (String host : blocked)
+                    rules.add("MAP " + host + " ~NOTFOUND");
+                chrome.addArguments("--host-resolver-rules=" + String.join(", ", rules));
+            }
+        } else if (caps instanceof FirefoxOptions) {
+            FirefoxOptions firefox = (FirefoxOptions) caps;
+            if (!images) firefox.addPreference("permissions.default.image", 2);
+            if (!css) firefox.addPreference("permissions.default.stylesheet", 2);
+        } else if (DriverFactory.isInProcess(browser)) {
+            // Never fetches images, stylesheets are switched off by InProcessDriver itself
+        } else if (!images || !css) {
+            logger.warn("Disabling images/css is not supported for browser '" + browser + "'.");
+        }
+
+        String address = null;
+        // Chromium and the in-process driver block hosts on their own, the proxy is only needed for the others
+        boolean blocksItself = chromium || DriverFactory.isInProcess(browser);
+        boolean needsProxy = !replay.isEmpty() || (!blocksItself && !blocked.isEmpty());
+        Path recordings = replay.isEmpty() ? null : Paths.get(replay).toAbsolutePath();
+        if (needsProxy && browser != null) {
+            address = embeddedProxy(blocked, recordings).address();
+        } else if (needsProxy && Configuration.envLoadBind().hasValue()) {
+            address = remoteProxy(blocked, recordings, Configuration.envLoadBind().get()).address();
+        } else if (Configuration.envLoadProxy().hasValue()) {
+            address = Configuration.envLoadProxy().get();
+        }
+        if (address != null) {
+            Proxy settings = new Proxy();
+            settings.setHttpProxy(address);
+            settings.setSslProxy(address);
+            caps.setCapability(CapabilityType.PROXY, settings);
+        }
+        return caps;
+    }
+
+    private static List<String> hosts() {
+        List<String> hosts = new ArrayList<>();
+        for (String host : Configuration.envLoadBlock().get("").split(","))
+            if (!host.trim().isEmpty()) hosts.add(host.trim());
+        return hosts;
+    }
+
+    private static synchronized LocalProxy embeddedProxy(List<String> blocked, Path replay) {
+        if (proxy == null) {
+            try {
+                proxy = new LocalProxy(blocked, replay);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to start the embedded proxy.", e);
+            }
+        }
+        return proxy;
+    }
+
+    private static synchronized LocalProxy remoteProxy(List<String> blocked, Path replay, String bind) {
+        if (remoteProxy == null) {
+            InetAddress address;
+            try {
+                address = InetAddress.getByName(bind);
+            } catch (UnknownHostException e) {
+                throw new IllegalArgumentException("Unknown interface '" + bind + "' in env.load.bind.", e);
+            }
+            if (address.isLoopbackAddress() || address.isAnyLocalAddress())
+                throw new IllegalArgumentException("env.load.bind must be an address the grid can reach, got '" + bind + "'.");
+            try {
+                remoteProxy = new LocalProxy(blocked, replay, address);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to start the embedded proxy on " + bind + ".", e);
+            }
+        }
+        return remoteProxy;
+    }
+}
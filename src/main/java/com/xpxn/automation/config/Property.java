@@ -12,18 +12,19 @@ public class Property {
     private static final Logger logger = LoggerFactory.getLogger(Property.class);
 
     private String target;
+    // null means the shared configuration snapshot
     private Properties properties;
     private String description = null;
 
     /**
      * Stores the desired property for future reference
-     * Properties object defaults to {@code System.getProperties()}
+     * Values are read from the immutable {@link Configuration} snapshot
      *
      * @param target Desired property.
      */
     public Property(String target) {
         this.target = target;
-        this.properties = System.getProperties();
+        this.properties = null;
     }
 
     /**
@@ -66,7 +67,12 @@ public class Property {
      * @return String
      */
     public String get() {
-        return this.properties.getProperty(target);
+        return value();
+    }
+
+    private String value() {
+        Properties props = this.properties;
+        return props == null ? Configuration.current().get(target) : props.getProperty(target);
     }
 
     /**
@@ -76,7 +82,10 @@ public class Property {
      * @return Property
      */
     public Property set(String value) {
-        this.properties.setProperty(target, value);
+        if (this.properties == null)
+            Configuration.set(target, value);
+        else
+            this.properties.setProperty(target, value);
         return this;
     }
 
@@ -87,7 +96,7 @@ public class Property {
      * @return String
      */
     public String get(String defaultValue) {
-        String out = this.properties.getProperty(target);
+        String out = value();
         if (out == null || out.length() == 0) {
             out = defaultValue;
             logger.debug("No value present for the '" + target + "' property. Using given default '" + defaultValue + "'.");
@@ -102,7 +111,7 @@ public class Property {
      * @throws NullPointerException Only when value is null
      */
     public String expectNonNull() {
-        String val = this.properties.getProperty(target);
+        String val = value();
         if (val == null)
             throw new NullPointerException("Expected the '" + target + "' property to be present and not null.");
         return val;
@@ -115,7 +124,7 @@ public class Property {
      * @throws NullPointerException When value is null or empty
      */
     public String expect() {
-        String val = this.properties.getProperty(target);
+        String val = value();
         if (val == null)
             throw new NullPointerException("Expected the '" + target + "' property to be present and not null.");
         if (val.length() == 0)
@@ -153,7 +162,7 @@ public class Property {
      * @return boolean
      */
     public boolean hasValue() {
-        String val = this.properties.getProperty(target);
+        String val = value();
         return val != null && val.length() > 0;
     }
 
@@ -163,7 +172,7 @@ public class Property {
      * @return boolean
      */
     public boolean isEmpty() {
-        String val = this.properties.getProperty(target);
+        String val = value();
         return val != null && val.length() == 0;
     }
 
@@ -173,7 +182,7 @@ public class Property {
      * @return boolean
      */
     public boolean isNull() {
-        String val = this.properties.getProperty(target);
+        String val = value();
         return val == null;
     }
 
@@ -206,7 +215,9 @@ public class Property {
      * @return New {@code Property} instance
      */
     public Property using(String target) {
-        return new Property(target, this.properties);
+        Property property = new Property(target);
+        property.properties = this.properties;
+        return property;
     }
 
     /**
@@ -225,6 +236,10 @@ public class Property {
      * @return int
      */
     public int asInt() {
+        if (this.properties == null) {
+            Integer cached = Configuration.current().asInt(target);
+            if (cached != null) return cached;
+        }
         return Integer.parseInt(expect());
     }
 
@@ -244,8 +259,10 @@ public class Property {
      * @return boolean
      */
     public boolean is(String... anyOf) {
+        if (anyOf.length == 0) return false;
+        String val = expect();
         for (String option : anyOf)
-            if (expect().equals(option)) {
+            if (val.equals(option)) {
                 return true;
             }
         return false;
@@ -258,8 +275,10 @@ public class Property {
      * @return boolean
      */
     public boolean isNot(String... anyOf) {
+        if (anyOf.length == 0) return true;
+        String val = expect();
         for (String option : anyOf)
-            if (expect().equals(option)) {
+            if (val.equals(option)) {
                 return false;
             }
         return true;
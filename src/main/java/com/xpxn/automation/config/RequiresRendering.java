@@ -0,0 +1,16 @@
+package com.xpxn.automation.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a test class or method that reads layout or computed styles (colors, sizes, visibility after css).
+ * When the suite runs on the {@link InProcessDriver}, these tests get a real browser instead, chosen with
+ * {@code env.browser.render} (default chrome).
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface RequiresRendering {
+}
@@ -0,0 +1,227 @@
+package com.xpxn.automation.config;
+
+import com.xpxn.automation.metrics.Histograms;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Launch time and resident memory of browser sessions, used to size parallelism per node.
+ * Memory is read from {@code /proc}, so it is only reported on Linux. Reading it scans the whole process table,
+ * so it is sampled on a background thread and never delays the test that launched the session.
+ */
+public final class SessionMetrics {
+    public static final String GROUP = "browser";
+    private static final Logger logger = LoggerFactory.getLogger(SessionMetrics.class);
+
+    private static final LongAdder sessions = new LongAdder();
+    private static final LongAdder totalRssKb = new LongAdder();
+    private static final LongAccumulator maxRssKb = new LongAccumulator(Math::max, 0);
+    private static final ExecutorService sampler = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "session-metrics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private SessionMetrics() {
+    }
+
+    /**
+     * Records a freshly launched session.
+     *
+     * @param browser     Browser name
+     * @param driver      New session
+     * @param launchNanos Time spent creating the session
+     */
+    public static void launched(String browser, WebDriver driver, long launchNanos) {
+        Histograms.get(GROUP, "launch " + browser).record(launchNanos);
+        logger.info(browser + " session launched in " + TimeUnit.NANOSECONDS.toMillis(launchNanos) + "ms");
+        if (!new File("/proc/self").exists() || !(driver instanceof HasCapabilities)) return;
+        sampler.execute(() -> {
+            long rss = rssKb(driver);
+            if (rss > 0) {
+                sessions.increment();
+                totalRssKb.add(rss);
+                maxRssKb.accumulate(rss);
+                logger.debug(browser + " session RSS " + rss / 1024 + "MB");
+            }
+        });
+    }
+
+    /**
+     * Summary of the recorded launches, after waiting briefly for pending memory samples.
+     *
+     * @return String
+     */
+    public static String report() {
+        try {
+            // Runs after every sample queued so far
+            sampler.submit(() -> {
+            }).get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            logger.debug("Memory samples still pending.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long n = sessions.sum();
+        return Histograms.report(GROUP) + System.lineSeparator() + "browser RSS: " +
+                (n == 0 ? "not available" : "avg " + totalRssKb.sum() / n / 1024 + "MB, max " + maxRssKb.get() / 1024 + "MB over " + n + " session(s)");
+    }
+
+    /**
+     * Resident memory of the browser process tree behind the session.
+     *
+     * @param driver Session
+     * @return Kilobytes, or -1 when it cannot be determined
+     */
+    public static long rssKb(WebDriver driver) {
+        Set<Integer> pids = browserProcesses(driver);
+        if (pids.isEmpty()) return -1;
+        long total = 0;
+        for (int pid : pids)
+            total += rss(pid);
+        return total;
+    }
+
+    /**
+     * Process ids of the browser tree behind a local session, empty when unknown (eg. remote sessions).
+     */
+    static Set<Integer> browserProcesses(WebDriver driver) {
+        return sessionProcesses(driver, false);
+    }
+
+    /**
+     * Browser tree of a local session plus the driver service that started it.
+     */
+    static Set<Integer> sessionProcesses(WebDriver driver) {
+        return sessionProcesses(driver, true);
+    }
+
+    private static Set<Integer> sessionProcesses(WebDriver driver, boolean withService) {
+        if (!new File("/proc/self").exists() || !(driver instanceof HasCapabilities)) return new HashSet<>();
+        try {
+            Capabilities caps = ((HasCapabilities) driver).getCapabilities();
+            Object firefox = caps.getCapability("moz:processID");
+            Object chrome = caps.getCapability("chrome");
+            Object dir = chrome instanceof Map ? ((Map<?, ?>) chrome).get("userDataDir") : null;
+            // Remote and in-process sessions have no local browser, no need to scan the process table
+            if (!(firefox instanceof Number) && dir == null) return new HashSet<>();
+            Map<Integer, Integer> parents = processes();
+            Set<Integer> roots = new HashSet<>();
+            if (firefox instanceof Number) roots.add(((Number) firefox).intValue());
+            if (dir != null) roots.addAll(matching("--user-data-dir=" + dir, parents.keySet()));
+            if (withService) {
+                for (int root : new ArrayList<>(roots)) {
+                    Integer parent = parents.get(root);
+                    if (parent != null && isDriverService(parent)) roots.add(parent);
+                }
+            }
+            return roots.isEmpty() ? roots : tree(roots, parents);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Unable to determine browser processes.", e);
+            return new HashSet<>();
+        }
+    }
+
+    /**
+     * Driver service processes (chromedriver, geckodriver, msedgedriver) started by this JVM, with their browsers.
+     */
+    static Set<Integer> driverProcesses() {
+        Set<Integer> found = new HashSet<>();
+        if (!new File("/proc/self").exists()) return found;
+        try {
+            int self = Integer.parseInt(Files.readSymbolicLink(Paths.get("/proc/self")).toString());
+            Map<Integer, Integer> parents = processes();
+            Set<Integer> services = new HashSet<>();
+            for (Map.Entry<Integer, Integer> entry : parents.entrySet())
+                if (entry.getValue() == self && isDriverService(entry.getKey())) services.add(entry.getKey());
+            if (!services.isEmpty()) found.addAll(tree(services, parents));
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Unable to list driver processes.", e);
+        }
+        return found;
+    }
+
+    private static boolean isDriverService(int pid) {
+        try {
+            String name = new String(Files.readAllBytes(Paths.get("/proc", String.valueOf(pid), "comm")), StandardCharsets.UTF_8).trim();
+            return name.equals("chromedriver") || name.equals("geckodriver") || name.equals("msedgedriver");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static Map<Integer, Integer> processes() throws IOException {
+        Map<Integer, Integer> parents = new HashMap<>();
+        File[] entries = new File("/proc").listFiles();
+        if (entries == null) return parents;
+        for (File entry : entries) {
+            if (!entry.getName().matches("\\d+")) continue;
+            try {
+                String stat = new String(Files.readAllBytes(Paths.get(entry.getPath(), "stat")), StandardCharsets.UTF_8);
+                // pid (comm) state ppid ...; comm may contain spaces, so split after the closing parenthesis
+                String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+                parents.put(Integer.parseInt(entry.getName()), Integer.parseInt(fields[1]));
+            } catch (IOException ignored) {
+                // Process exited while scanning
+            }
+        }
+        return parents;
+    }
+
+    private static List<Integer> matching(String argument, Set<Integer> pids) {
+        List<Integer> found = new ArrayList<>();
+        for (int pid : pids) {
+            try {
+                String cmdline = new String(Files.readAllBytes(Paths.get("/proc", String.valueOf(pid), "cmdline")), StandardCharsets.UTF_8);
+                if (cmdline.contains(argument)) found.add(pid);
+            } catch (IOException ignored) {
+                // Process exited while scanning
+            }
+        }
+        return found;
+    }
+
+    private static Set<Integer> tree(Set<Integer> roots, Map<Integer, Integer> parents) {
+        Set<Integer> all = new HashSet<>(roots);
+        boolean grown = true;
+        while (grown) {
+            grown = false;
+            for (Map.Entry<Integer, Integer> entry : parents.entrySet())
+                if (all.contains(entry.getValue()) && all.add(entry.getKey())) grown = true;
+        }
+        return all;
+    }
+
+    private static long rss(int pid) {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc", String.valueOf(pid), "status"), StandardCharsets.UTF_8))
+                if (line.startsWith("VmRSS:"))
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+        } catch (IOException | NumberFormatException ignored) {
+            // Process exited while scanning
+        }
+        return 0;
+    }
+}
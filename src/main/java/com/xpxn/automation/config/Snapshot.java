@@ -0,0 +1,69 @@
+package com.xpxn.automation.config;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable view of the merged configuration files. Reads never lock, a new instance is published on every change.
+ * Environment variables and system properties are looked up per key on top of the files, they are never copied.
+ */
+final class Snapshot {
+    private final Map<String, String> values;
+    private final Map<String, Integer> ints = new ConcurrentHashMap<>();
+
+    Snapshot(Properties source) {
+        Map<String, String> copy = new HashMap<>();
+        for (String key : source.stringPropertyNames())
+            copy.put(key, source.getProperty(key));
+        this.values = Collections.unmodifiableMap(copy);
+    }
+
+    private Snapshot(Map<String, String> values) {
+        this.values = values;
+    }
+
+    /**
+     * Same file values with fresh parse caches, published after a system property changed.
+     *
+     * @return Snapshot
+     */
+    Snapshot republish() {
+        return new Snapshot(values);
+    }
+
+    /**
+     * @param key Property name
+     * @return System property, else environment variable, else file value, regardless of empty values
+     */
+    String get(String key) {
+        return resolve(key, values.get(key));
+    }
+
+    static String resolve(String key, String fileValue) {
+        String value = System.getProperty(key);
+        if (value == null) value = System.getenv(key);
+        return value != null ? value : fileValue;
+    }
+
+    /**
+     * Integer value of the given key, parsed once per snapshot. System properties changed without going through
+     * {@link Configuration} are not seen by keys parsed before.
+     *
+     * @param key Property name
+     * @return Parsed value, or null when the property is missing or empty
+     * @throws NumberFormatException Value is not an integer
+     */
+    Integer asInt(String key) {
+        Integer parsed = ints.get(key);
+        if (parsed == null) {
+            String value = get(key);
+            if (value == null || value.length() == 0) return null;
+            parsed = Integer.valueOf(value);
+            ints.put(key, parsed);
+        }
+        return parsed;
+    }
+}
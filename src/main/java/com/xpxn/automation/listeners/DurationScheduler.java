@@ -0,0 +1,194 @@
+package com.xpxn.automation.listeners;
+
+import com.xpxn.automation.config.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.IAlterSuiteListener;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Orders and shards the suite by historical runtime (see {@link DurationStore}) to shorten the slowest worker.
+ * Register through the {@code <listeners>} section of the suite file, before {@link ParallelSuiteListener}.
+ * <ul>
+ * <li>Tests, their classes and the method groups of each class run longest first, so the parallel workers
+ * pick up the long work before the short work.</li>
+ * <li>{@code env.shard.total} / {@code env.shard.index} (0 based) split the classes into balanced shards,
+ * each agent running one shard. Classes are assigned longest first to the least loaded shard.</li>
+ * </ul>
+ * Methods inside a class keep their declared order, and classes that never ran are estimated at the average.
+ */
+public class DurationScheduler implements IAlterSuiteListener, IMethodInterceptor, ITestListener, ISuiteListener {
+    private static final Logger logger = LoggerFactory.getLogger(DurationScheduler.class);
+    private static DurationStore store;
+    // Estimate for classes without history
+    private long average = 1;
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        for (XmlSuite suite : suites) {
+            // Estimated over the whole suite, so sharding and ordering agree on classes without history
+            average = average(suite);
+            int total = Integer.parseInt(Configuration.envShardTotal().get("1"));
+            if (total > 1) {
+                int index = Integer.parseInt(Configuration.envShardIndex().expect());
+                if (index < 0 || index >= total)
+                    throw new IllegalArgumentException("Shard index " + index + " is outside of 0.." + (total - 1) + ".");
+                shard(suite, total, index);
+            }
+            order(suite);
+        }
+    }
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        Map<String, List<IMethodInstance>> byClass = new LinkedHashMap<>();
+        for (IMethodInstance method : methods)
+            byClass.computeIfAbsent(method.getMethod().getRealClass().getName(), k -> new ArrayList<>()).add(method);
+
+        List<String> classes = new ArrayList<>(byClass.keySet());
+        classes.sort(Comparator.comparingLong(this::estimate).reversed());
+        List<IMethodInstance> ordered = new ArrayList<>(methods.size());
+        for (String className : classes)
+            ordered.addAll(byClass.get(className));
+        return ordered;
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        record(result);
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        record(result);
+    }
+
+    @Override
+    public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+        record(result);
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        store().save();
+    }
+
+    @Override
+    public void onStart(ISuite suite) {
+    }
+
+    @Override
+    public void onTestStart(ITestResult result) {
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+    }
+
+    @Override
+    public void onStart(ITestContext context) {
+    }
+
+    @Override
+    public void onFinish(ITestContext context) {
+    }
+
+    /**
+     * Replaces the store of this JVM, for tests that schedule against a known history.
+     *
+     * @param history Store to read and record durations with
+     */
+    static synchronized void use(DurationStore history) {
+        store = history;
+    }
+
+    private static synchronized DurationStore store() {
+        if (store == null) store = DurationStore.open();
+        return store;
+    }
+
+    private static void record(ITestResult result) {
+        store().record(result.getTestClass().getName(), result.getMethod().getMethodName(),
+                result.getEndMillis() - result.getStartMillis());
+    }
+
+    private long estimate(String className) {
+        long known = store().classMillis(className);
+        // Floor at 1ms so classes without real cost still spread over the shards
+        return known >= 0 ? Math.max(1, known) : average;
+    }
+
+    private void order(XmlSuite suite) {
+        for (XmlTest test : suite.getTests())
+            test.getXmlClasses().sort(Comparator.comparingLong((XmlClass c) -> estimate(c.getName())).reversed());
+        suite.getTests().sort(Comparator.comparingLong(this::testEstimate).reversed());
+        for (XmlTest test : suite.getTests())
+            logger.info("Scheduled '" + test.getName() + "' (~" + testEstimate(test) / 1000 + "s)");
+    }
+
+    private long testEstimate(XmlTest test) {
+        long total = 0;
+        for (XmlClass testClass : test.getXmlClasses())
+            total += estimate(testClass.getName());
+        return total;
+    }
+
+    private void shard(XmlSuite suite, int total, int index) {
+        List<XmlClass> classes = new ArrayList<>();
+        for (XmlTest test : suite.getTests())
+            classes.addAll(test.getXmlClasses());
+        classes.sort(Comparator.comparingLong((XmlClass c) -> estimate(c.getName())).reversed());
+
+        // Longest processing time first: each class goes to the shard with the least work so far
+        long[] load = new long[total];
+        Set<XmlClass> mine = new HashSet<>();
+        for (XmlClass testClass : classes) {
+            int target = 0;
+            for (int i = 1; i < total; i++)
+                if (load[i] < load[target]) target = i;
+            load[target] += estimate(testClass.getName());
+            if (target == index) mine.add(testClass);
+        }
+
+        for (Iterator<XmlTest> tests = suite.getTests().iterator(); tests.hasNext(); ) {
+            XmlTest test = tests.next();
+            test.getXmlClasses().removeIf(testClass -> !mine.contains(testClass));
+            if (test.getXmlClasses().isEmpty()) tests.remove();
+        }
+        logger.info("Shard " + index + "/" + total + " runs " + mine.size() + " of " + classes.size()
+                + " class(es), ~" + load[index] / 1000 + "s");
+    }
+
+    private long average(XmlSuite suite) {
+        long sum = 0;
+        int known = 0;
+        for (XmlTest test : suite.getTests()) {
+            for (XmlClass testClass : test.getXmlClasses()) {
+                long millis = store().classMillis(testClass.getName());
+                if (millis >= 0) {
+                    sum += millis;
+                    known++;
+                }
+            }
+        }
+        return known == 0 ? 1 : Math.max(1, sum / known);
+    }
+}
@@ -0,0 +1,136 @@
+package com.xpxn.automation.listeners;
+
+import com.xpxn.automation.config.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Historical test durations keyed by {@code class#method}, persisted to {@code env.schedule.store}
+ * (defaults to {@code .test-durations.properties} in the working directory).
+ * <p>
+ * When no store exists yet it is seeded from the last {@code target/surefire-reports/testng-results.xml}.
+ * New measurements are blended with the stored value so one slow run does not reorder the whole suite.
+ */
+public class DurationStore {
+    private static final Logger logger = LoggerFactory.getLogger(DurationStore.class);
+    private static final Path REPORT = Paths.get("target", "surefire-reports", "testng-results.xml");
+
+    private final Path location;
+    private final Map<String, Long> durations = new ConcurrentHashMap<>();
+    private final Map<String, Long> measured = new ConcurrentHashMap<>();
+
+    public DurationStore(Path location) {
+        this.location = location;
+        if (Files.isReadable(location)) load();
+        else seed();
+    }
+
+    public static DurationStore open() {
+        return new DurationStore(Paths.get(Configuration.envScheduleStore().get(".test-durations.properties")));
+    }
+
+    /**
+     * @param className Fully qualified test class
+     * @return Sum of the known method durations in ms, or -1 when the class never ran
+     */
+    public long classMillis(String className) {
+        String prefix = className + "#";
+        long total = -1;
+        for (Map.Entry<String, Long> entry : durations.entrySet())
+            if (entry.getKey().startsWith(prefix))
+                total = Math.max(total, 0) + entry.getValue();
+        return total;
+    }
+
+    /**
+     * Records a measurement of the current run, persisted by {@link #save()}.
+     *
+     * @param className  Fully qualified test class
+     * @param methodName Test method
+     * @param millis     Duration
+     */
+    public void record(String className, String methodName, long millis) {
+        measured.merge(className + "#" + methodName, millis, Long::sum);
+    }
+
+    /**
+     * Blends this run's measurements into the store and writes it atomically.
+     */
+    public synchronized void save() {
+        if (measured.isEmpty()) return;
+        Path directory = location.toAbsolutePath().getParent();
+        // Forked test JVMs save to the same store, so merge under a file lock
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(directory.resolve(location.getFileName() + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                if (Files.isReadable(location)) load();
+                for (Map.Entry<String, Long> entry : measured.entrySet()) {
+                    Long previous = durations.get(entry.getKey());
+                    durations.put(entry.getKey(), previous == null ? entry.getValue() : (previous + entry.getValue()) / 2);
+                }
+                measured.clear();
+
+                Properties entries = new Properties();
+                for (Map.Entry<String, Long> entry : durations.entrySet())
+                    entries.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+                Path tmp = Files.createTempFile(directory, "durations", ".tmp");
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    entries.store(out, "Test durations in ms");
+                }
+                Files.move(tmp, location, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to persist test durations to '" + location + "'.", e);
+        }
+    }
+
+    private void load() {
+        Properties entries = new Properties();
+        try (InputStream in = Files.newInputStream(location)) {
+            entries.load(in);
+            for (String key : entries.stringPropertyNames())
+                durations.put(key, Long.parseLong(entries.getProperty(key).trim()));
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Unable to read test durations from '" + location + "', ignoring them.", e);
+        }
+    }
+
+    private void seed() {
+        if (!Files.isReadable(REPORT)) return;
+        try (InputStream in = Files.newInputStream(REPORT)) {
+            NodeList classes = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in).getElementsByTagName("class");
+            for (int i = 0; i < classes.getLength(); i++) {
+                Element testClass = (Element) classes.item(i);
+                NodeList methods = testClass.getElementsByTagName("test-method");
+                for (int j = 0; j < methods.getLength(); j++) {
+                    Element method = (Element) methods.item(j);
+                    if ("true".equals(method.getAttribute("is-config")) || "SKIP".equals(method.getAttribute("status"))) continue;
+                    durations.merge(testClass.getAttribute("name") + "#" + method.getAttribute("name"),
+                            Long.parseLong(method.getAttribute("duration-ms")), Long::sum);
+                }
+            }
+            logger.info("Seeded " + durations.size() + " test duration(s) from " + REPORT);
+        } catch (Exception e) {
+            logger.warn("Unable to seed test durations from " + REPORT + ".", e);
+        }
+    }
+}
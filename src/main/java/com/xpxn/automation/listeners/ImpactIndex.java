@@ -0,0 +1,472 @@
+package com.xpxn.automation.listeners;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * What every method of the compiled test sources touches, read straight from the bytecode: classes, string
+ * constants (eg. locator names passed to {@code getBy(String)}), fields and called methods, also through method
+ * references and lambdas ({@code invokedynamic} bootstrap arguments).
+ * {@link #reach(String, String)} follows calls into page objects and helpers so a test method knows every locator
+ * it uses, also indirectly.
+ * <p>
+ * The index is cached in a properties file and only the class files whose size or modification time changed
+ * are parsed again.
+ */
+public class ImpactIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ImpactIndex.class);
+    static final char CLASS = 'C';
+    static final char STRING = 'S';
+    static final char FIELD = 'F';
+    static final char METHOD = 'M';
+    // A reached call may run an override declared in an indexed subtype
+    static final char DISPATCH = 'D';
+    // Bumped whenever the parser records more, so older caches are rebuilt
+    private static final String VERSION = "2";
+
+    private final Path cache;
+    // class -> "size:mtime" of its class file
+    private final Map<String, String> stamps = new HashMap<>();
+    private final Map<String, String> supers = new HashMap<>();
+    private final Map<String, Set<String>> interfaces = new HashMap<>();
+    // class -> method -> tokens ("C pages.HomePage", "S loginBtn", "F pages.HomePage.loginBtn", "M pages.HomePage.Go")
+    private final Map<String, Map<String, Set<String>>> methods = new HashMap<>();
+    private boolean dirty = false;
+
+    private ImpactIndex(Path cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Loads the cached index and brings it up to date with the class files below the root.
+     *
+     * @param root  Class output folder, eg. target/test-classes
+     * @param cache Cache file
+     * @return ImpactIndex
+     * @throws IOException Unable to read the class files
+     */
+    public static ImpactIndex open(Path root, Path cache) throws IOException {
+        ImpactIndex index = new ImpactIndex(cache);
+        if (Files.isReadable(cache)) index.load();
+        index.update(root);
+        if (index.dirty) index.save();
+        return index;
+    }
+
+    /**
+     * @param className Class name
+     * @return The class, its nested classes and all indexed classes extending or implementing any of them,
+     * directly or not
+     */
+    public Set<String> family(String className) {
+        Set<String> result = new HashSet<>(Collections.singleton(className));
+        for (String indexed : methods.keySet())
+            if (indexed.startsWith(className + "$")) result.add(indexed);
+        return subtypes(result);
+    }
+
+    /**
+     * Every token reachable from the method through calls to indexed classes, including the declaring class.
+     * Calls that may land in an override of an indexed subtype add a {@link #DISPATCH} token, the callee is not
+     * known statically then.
+     *
+     * @param className  Class declaring or inheriting the method
+     * @param methodName Method name, overloads are merged
+     * @return Tokens
+     */
+    public Set<String> reach(String className, String methodName) {
+        Set<String> tokens = new HashSet<>();
+        tokens.add(CLASS + " " + className);
+        Set<String> visited = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(className + "." + methodName);
+        while (!pending.isEmpty()) {
+            String reference = pending.poll();
+            int dot = reference.lastIndexOf('.');
+            String type = reference.substring(0, dot);
+            String name = reference.substring(dot + 1);
+            String owner = resolve(type, name);
+            if (owner == null || !visited.add(owner + "." + name)) continue;
+            if (overridden(type, name)) tokens.add(DISPATCH + " " + reference);
+            Map<String, Set<String>> declared = methods.get(owner);
+            for (Map.Entry<String, Set<String>> method : declared.entrySet()) {
+                // Lambda bodies are compiled to lambda$<enclosing method>$n
+                if (!method.getKey().equals(name) && !method.getKey().startsWith("lambda$" + name + "$")) continue;
+                for (String token : method.getValue()) {
+                    tokens.add(token);
+                    if (token.charAt(0) == METHOD) pending.add(token.substring(2));
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @return Whether an indexed strict subtype of the receiver type declares the method as well
+     */
+    private boolean overridden(String type, String methodName) {
+        // Constructors and lambda bodies are never dispatched
+        if (methodName.startsWith("<") || methodName.startsWith("lambda$")) return false;
+        for (String subtype : subtypes(Collections.singleton(type)))
+            if (!subtype.equals(type) && methods.containsKey(subtype) && methods.get(subtype).containsKey(methodName))
+                return true;
+        return false;
+    }
+
+    /**
+     * @return The given classes and every indexed class extending or implementing any of them, directly or not
+     */
+    private Set<String> subtypes(Set<String> types) {
+        Set<String> result = new HashSet<>(types);
+        boolean grown = true;
+        while (grown) {
+            grown = false;
+            for (String indexed : methods.keySet()) {
+                if (result.contains(indexed)) continue;
+                boolean extending = result.contains(supers.get(indexed));
+                for (String implemented : interfaces.getOrDefault(indexed, Collections.<String>emptySet()))
+                    extending |= result.contains(implemented);
+                if (extending && result.add(indexed)) grown = true;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The indexed class declaring the method, looking through superclasses, or null
+     */
+    private String resolve(String className, String methodName) {
+        for (String owner = className; owner != null && methods.containsKey(owner); owner = supers.get(owner))
+            if (methods.get(owner).containsKey(methodName)) return owner;
+        return null;
+    }
+
+    private void update(Path root) throws IOException {
+        Set<String> seen = new HashSet<>();
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(p -> p.toString().endsWith(".class")).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            String name = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), ".");
+            name = name.substring(0, name.length() - ".class".length());
+            seen.add(name);
+            String stamp = Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis();
+            if (stamp.equals(stamps.get(name))) continue;
+            parse(name, Files.readAllBytes(file));
+            stamps.put(name, stamp);
+            dirty = true;
+        }
+        if (stamps.keySet().retainAll(seen)) {
+            methods.keySet().retainAll(seen);
+            supers.keySet().retainAll(seen);
+            interfaces.keySet().retainAll(seen);
+            dirty = true;
+        }
+    }
+
+    private void load() {
+        Properties entries = new Properties();
+        try (InputStream in = Files.newInputStream(cache)) {
+            entries.load(in);
+        } catch (IOException e) {
+            logger.warn("Unable to read impact index '" + cache + "', rebuilding it.", e);
+            return;
+        }
+        if (!VERSION.equals(entries.getProperty("version"))) {
+            logger.info("Impact index '" + cache + "' was written by an older version, rebuilding it.");
+            return;
+        }
+        for (String key : entries.stringPropertyNames()) {
+            String value = entries.getProperty(key);
+            if (key.startsWith("stamp.")) {
+                stamps.put(key.substring(6), value);
+            } else if (key.startsWith("super.")) {
+                supers.put(key.substring(6), value);
+            } else if (key.startsWith("interfaces.")) {
+                interfaces.put(key.substring(11), new LinkedHashSet<>(Arrays.asList(value.split(","))));
+            } else if (key.startsWith("method.")) {
+                int hash = key.indexOf('#');
+                Map<String, Set<String>> declared = methods.computeIfAbsent(key.substring(7, hash), k -> new HashMap<>());
+                // Classes without methods are stored with an empty method name
+                if (hash == key.length() - 1) continue;
+                Set<String> tokens = new LinkedHashSet<>();
+                for (String token : value.split("\n"))
+                    if (!token.isEmpty()) tokens.add(token);
+                declared.put(key.substring(hash + 1), tokens);
+            }
+        }
+        // A class without methods entry was never parsed completely
+        stamps.keySet().retainAll(methods.keySet());
+    }
+
+    private void save() {
+        Properties entries = new Properties();
+        entries.setProperty("version", VERSION);
+        for (Map.Entry<String, String> entry : stamps.entrySet())
+            entries.setProperty("stamp." + entry.getKey(), entry.getValue());
+        for (Map.Entry<String, String> entry : supers.entrySet())
+            entries.setProperty("super." + entry.getKey(), entry.getValue());
+        for (Map.Entry<String, Set<String>> entry : interfaces.entrySet())
+            entries.setProperty("interfaces." + entry.getKey(), String.join(",", entry.getValue()));
+        for (Map.Entry<String, Map<String, Set<String>>> owner : methods.entrySet()) {
+            if (owner.getValue().isEmpty()) entries.setProperty("method." + owner.getKey() + "#", "");
+            for (Map.Entry<String, Set<String>> method : owner.getValue().entrySet())
+                entries.setProperty("method." + owner.getKey() + "#" + method.getKey(), String.join("\n", method.getValue()));
+        }
+        try {
+            if (cache.toAbsolutePath().getParent() != null)
+                Files.createDirectories(cache.toAbsolutePath().getParent());
+            try (OutputStream out = Files.newOutputStream(cache)) {
+                entries.store(out, "Test impact index");
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to write impact index '" + cache + "'.", e);
+        }
+    }
+
+    private void parse(String className, byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (in.readInt() != 0xCAFEBABE)
+            throw new IOException(className + " is not a class file.");
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+
+        int count = in.readUnsignedShort();
+        int[] tags = new int[count];
+        // Utf8 text, or the referenced pool indexes of the other entries
+        Object[] pool = new Object[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            tags[i] = tag;
+            switch (tag) {
+                case 1:
+                    pool[i] = in.readUTF();
+                    break;
+                case 3:
+                case 4:
+                    in.readInt();
+                    break;
+                case 5:
+                case 6:
+                    in.readLong();
+                    i++;
+                    break;
+                case 7:
+                case 8:
+                case 16:
+                case 19:
+                case 20:
+                    pool[i] = new int[]{in.readUnsignedShort()};
+                    break;
+                case 9:
+                case 10:
+                case 11:
+                case 12:
+                case 17:
+                case 18:
+                    pool[i] = new int[]{in.readUnsignedShort(), in.readUnsignedShort()};
+                    break;
+                case 15:
+                    in.readUnsignedByte();
+                    pool[i] = new int[]{in.readUnsignedShort()};
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag + " in " + className + ".");
+            }
+        }
+
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        int superIndex = in.readUnsignedShort();
+        if (superIndex != 0) supers.put(className, type(pool, superIndex));
+        interfaces.remove(className);
+        for (int implemented = in.readUnsignedShort(); implemented > 0; implemented--)
+            interfaces.computeIfAbsent(className, k -> new LinkedHashSet<>()).add(type(pool, in.readUnsignedShort()));
+        for (int fields = in.readUnsignedShort(); fields > 0; fields--) {
+            in.skipBytes(6);
+            skipAttributes(in);
+        }
+
+        Map<String, Set<String>> declared = new HashMap<>();
+        // method -> bootstrap methods of its invokedynamic instructions, resolved once the class attributes are read
+        Map<String, List<Integer>> dynamic = new HashMap<>();
+        for (int remaining = in.readUnsignedShort(); remaining > 0; remaining--) {
+            in.readUnsignedShort();
+            String name = (String) pool[in.readUnsignedShort()];
+            in.readUnsignedShort();
+            Set<String> tokens = declared.computeIfAbsent(name, k -> new LinkedHashSet<>());
+            List<Integer> bootstraps = dynamic.computeIfAbsent(name, k -> new ArrayList<>());
+            for (int attributes = in.readUnsignedShort(); attributes > 0; attributes--) {
+                String attribute = (String) pool[in.readUnsignedShort()];
+                int length = in.readInt();
+                if (!"Code".equals(attribute)) {
+                    in.skipBytes(length);
+                    continue;
+                }
+                in.skipBytes(4);
+                byte[] code = new byte[in.readInt()];
+                in.readFully(code);
+                scan(code, tags, pool, tokens, bootstraps);
+                in.skipBytes(length - 8 - code.length);
+            }
+        }
+
+        int[][] arguments = new int[0][];
+        for (int attributes = in.readUnsignedShort(); attributes > 0; attributes--) {
+            String attribute = (String) pool[in.readUnsignedShort()];
+            int length = in.readInt();
+            if (!"BootstrapMethods".equals(attribute)) {
+                in.skipBytes(length);
+                continue;
+            }
+            arguments = new int[in.readUnsignedShort()][];
+            for (int i = 0; i < arguments.length; i++) {
+                // The bootstrap method itself, eg. LambdaMetafactory.metafactory, is not test code
+                in.readUnsignedShort();
+                arguments[i] = new int[in.readUnsignedShort()];
+                for (int j = 0; j < arguments[i].length; j++)
+                    arguments[i][j] = in.readUnsignedShort();
+            }
+        }
+        // Method references and lambda bodies are method handle arguments of the bootstrap method
+        for (Map.Entry<String, List<Integer>> method : dynamic.entrySet())
+            for (int bootstrap : method.getValue())
+                for (int argument : arguments[bootstrap])
+                    constant(tags, pool, argument, declared.get(method.getKey()));
+        methods.put(className, declared);
+    }
+
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        for (int attributes = in.readUnsignedShort(); attributes > 0; attributes--) {
+            in.readUnsignedShort();
+            in.skipBytes(in.readInt());
+        }
+    }
+
+    /**
+     * Walks the instructions and records the constants they refer to.
+     */
+    private static void scan(byte[] code, int[] tags, Object[] pool, Set<String> tokens, List<Integer> bootstraps) {
+        int pc = 0;
+        while (pc < code.length) {
+            int op = code[pc] & 0xFF;
+            switch (op) {
+                case 0x12: // ldc
+                    constant(tags, pool, code[pc + 1] & 0xFF, tokens);
+                    break;
+                case 0x13: // ldc_w
+                case 0x14: // ldc2_w
+                    constant(tags, pool, u2(code, pc + 1), tokens);
+                    break;
+                case 0xB2: // getstatic, getfield
+                case 0xB4:
+                    member(pool, u2(code, pc + 1), FIELD, tokens);
+                    break;
+                case 0xB3: // putstatic, putfield: initializing a locator is not using it
+                case 0xB5:
+                    tokens.add(CLASS + " " + type(pool, ((int[]) pool[u2(code, pc + 1)])[0]));
+                    break;
+                case 0xB6: // invokevirtual, invokespecial, invokestatic, invokeinterface
+                case 0xB7:
+                case 0xB8:
+                case 0xB9:
+                    member(pool, u2(code, pc + 1), METHOD, tokens);
+                    break;
+                case 0xBA: // invokedynamic
+                    bootstraps.add(((int[]) pool[u2(code, pc + 1)])[0]);
+                    break;
+                case 0xBB: // new, anewarray, checkcast, instanceof, multianewarray
+                case 0xBD:
+                case 0xC0:
+                case 0xC1:
+                case 0xC5:
+                    tokens.add(CLASS + " " + type(pool, u2(code, pc + 1)));
+                    break;
+                default:
+                    break;
+            }
+            pc += length(code, pc);
+        }
+    }
+
+    private static void constant(int[] tags, Object[] pool, int index, Set<String> tokens) {
+        if (tags[index] == 8) {
+            tokens.add(STRING + " " + pool[((int[]) pool[index])[0]]);
+        } else if (tags[index] == 7) {
+            tokens.add(CLASS + " " + type(pool, index));
+        } else if (tags[index] == 15) {
+            int reference = ((int[]) pool[index])[0];
+            member(pool, reference, tags[reference] == 9 ? FIELD : METHOD, tokens);
+        }
+    }
+
+    private static void member(Object[] pool, int index, char kind, Set<String> tokens) {
+        int[] ref = (int[]) pool[index];
+        String owner = type(pool, ref[0]);
+        String name = (String) pool[((int[]) pool[ref[1]])[0]];
+        tokens.add(CLASS + " " + owner);
+        tokens.add(kind + " " + owner + "." + name);
+    }
+
+    /**
+     * Class constant as a source level name, arrays reduced to their element type.
+     */
+    private static String type(Object[] pool, int classIndex) {
+        String name = (String) pool[((int[]) pool[classIndex])[0]];
+        name = name.replaceFirst("^\\[+", "");
+        if (name.startsWith("L") && name.endsWith(";")) name = name.substring(1, name.length() - 1);
+        return name.replace('/', '.');
+    }
+
+    private static int u2(byte[] code, int at) {
+        return (code[at] & 0xFF) << 8 | code[at + 1] & 0xFF;
+    }
+
+    private static int s4(byte[] code, int at) {
+        return (code[at] & 0xFF) << 24 | (code[at + 1] & 0xFF) << 16 | (code[at + 2] & 0xFF) << 8 | code[at + 3] & 0xFF;
+    }
+
+    /**
+     * Instruction length in bytes, see the JVM specification chapter 6.5.
+     */
+    private static int length(byte[] code, int pc) {
+        int op = code[pc] & 0xFF;
+        if (op == 0xAA || op == 0xAB) {
+            int base = pc + 1 + (4 - (pc + 1) % 4) % 4;
+            if (op == 0xAA) return base - pc + 12 + 4 * (s4(code, base + 8) - s4(code, base + 4) + 1);
+            return base - pc + 8 + 8 * s4(code, base + 4);
+        }
+        if (op == 0xC4) return (code[pc + 1] & 0xFF) == 0x84 ? 6 : 4;
+        if (op == 0x10 || op == 0x12 || op >= 0x15 && op <= 0x19 || op >= 0x36 && op <= 0x3A || op == 0xA9 || op == 0xBC)
+            return 2;
+        if (op == 0x11 || op == 0x13 || op == 0x14 || op == 0x84 || op >= 0x99 && op <= 0xA8 || op >= 0xB2 && op <= 0xB8
+                || op == 0xBB || op == 0xBD || op == 0xC0 || op == 0xC1 || op == 0xC6 || op == 0xC7)
+            return 3;
+        if (op == 0xC5) return 4;
+        if (op == 0xB9 || op == 0xBA || op == 0xC8 || op == 0xC9) return 5;
+        return 1;
+    }
+}
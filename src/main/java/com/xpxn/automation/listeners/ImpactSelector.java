@@ -0,0 +1,229 @@
+package com.xpxn.automation.listeners;
+
+import com.xpxn.automation.config.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs only the test methods affected by a change, plus the always-run smoke set {@code env.impact.smoke}
+ * (classes or {@code Class#method}, simple or fully qualified names). Register through the {@code <listeners>}
+ * section of the suite file, before {@link DurationScheduler}.
+ * <p>
+ * The change is the diff against the git revision {@code env.impact.base} (eg. origin/master, working tree
+ * included), or the file list {@code env.impact.changed}. Without either every test runs. Edits to page objects
+ * that only touch {@code By} declarations select the tests using those locators, through a field read or the
+ * locator name; other edits to test sources select every test reaching the class. Edits anywhere else (framework,
+ * build, resources) run everything, and so do tests calling a method that an indexed subclass overrides, as the
+ * code that really runs is only known at runtime. Usage comes from the {@link ImpactIndex}, cached in
+ * {@code env.impact.index}.
+ */
+public class ImpactSelector implements IMethodInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(ImpactSelector.class);
+    private static final Pattern SOURCE = Pattern.compile("(?:.*/)?src/test/java/(.+)\\.java");
+    private static final Pattern LOCATOR = Pattern.compile("\\bBy\\s+(\\w+)\\s*[=;]");
+    private static final Pattern IGNORED = Pattern.compile("(?:.*/)?[^/]+\\.(?:md|txt)|\\.gitignore");
+    // Changed class -> changed locator names, null when other code of the class changed
+    private static Map<String, Set<String>> changes;
+    private static boolean everything;
+    private static final Map<Path, ImpactIndex> indexes = new HashMap<>();
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        if (methods.isEmpty() || !Configuration.envImpactBase().hasValue() && !Configuration.envImpactChanged().hasValue())
+            return methods;
+        long start = System.nanoTime();
+        if (!collect()) return methods;
+        ImpactIndex index = index(methods.get(0).getMethod().getRealClass());
+        if (index == null) return methods;
+
+        List<String> smoke = Arrays.asList(Configuration.envImpactSmoke().get("").split("\\s*,\\s*"));
+        List<IMethodInstance> selected = new ArrayList<>();
+        for (IMethodInstance method : methods)
+            if (isSmoke(method.getMethod(), smoke)
+                    || isAffected(index, changes, method.getMethod().getRealClass().getName(), method.getMethod().getMethodName()))
+                selected.add(method);
+        logger.info("Impact selection kept " + selected.size() + " of " + methods.size() + " test method(s) of '"
+                + context.getName() + "' in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        return selected;
+    }
+
+    /**
+     * @param changed Changed class to changed locator names, null when other code of the class changed
+     * @return Whether the test method reaches a change, or calls code whose target is only known at runtime
+     */
+    static boolean isAffected(ImpactIndex index, Map<String, Set<String>> changed, String className, String methodName) {
+        if (changed.isEmpty()) return false;
+        Set<String> tokens = index.reach(className, methodName);
+        for (String token : tokens)
+            if (token.charAt(0) == ImpactIndex.DISPATCH) return true;
+        for (Map.Entry<String, Set<String>> change : changed.entrySet()) {
+            for (String type : index.family(change.getKey())) {
+                if (change.getValue() == null) {
+                    if (tokens.contains(ImpactIndex.CLASS + " " + type)) return true;
+                    continue;
+                }
+                for (String locator : change.getValue()) {
+                    if (tokens.contains(ImpactIndex.FIELD + " " + type + "." + locator)) return true;
+                    // Locators looked up by name, eg. getBy("loginBtn")
+                    if (tokens.contains(ImpactIndex.CLASS + " " + type) && tokens.contains(ImpactIndex.STRING + " " + locator))
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSmoke(ITestNGMethod method, List<String> smoke) {
+        Class<?> type = method.getRealClass();
+        for (String entry : smoke) {
+            int hash = entry.indexOf('#');
+            String className = hash < 0 ? entry : entry.substring(0, hash);
+            if (!className.equals(type.getName()) && !className.equals(type.getSimpleName())) continue;
+            if (hash < 0 || entry.substring(hash + 1).equals(method.getMethodName())) return true;
+        }
+        return false;
+    }
+
+    private static synchronized ImpactIndex index(Class<?> testClass) {
+        Path root;
+        try {
+            root = Paths.get(testClass.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException | RuntimeException e) {
+            logger.warn("Unable to locate the classes of " + testClass.getName() + ", running every test.", e);
+            return null;
+        }
+        if (!Files.isDirectory(root)) {
+            logger.warn("Test classes are packaged in " + root + ", impact selection needs a class folder. Running every test.");
+            return null;
+        }
+        ImpactIndex index = indexes.get(root);
+        if (index == null) {
+            try {
+                index = ImpactIndex.open(root, Paths.get(Configuration.envImpactIndex().get("target/impact-index.properties")));
+            } catch (IOException e) {
+                logger.warn("Unable to index " + root + ", running every test.", e);
+                return null;
+            }
+            indexes.put(root, index);
+        }
+        return index;
+    }
+
+    /**
+     * Reads the change once per run.
+     *
+     * @return false when everything has to run
+     */
+    private static synchronized boolean collect() {
+        if (changes != null) return !everything;
+        changes = new LinkedHashMap<>();
+        Map<String, List<String>> files = new LinkedHashMap<>();
+        try {
+            if (Configuration.envImpactChanged().hasValue()) {
+                // A plain file list has no hunks, so every listed class counts as changed as a whole
+                for (String file : Configuration.envImpactChanged().get().split("\\s*,\\s*"))
+                    if (!file.isEmpty()) files.put(file.replace('\\', '/'), null);
+            } else {
+                diff(Configuration.envImpactBase().get(), files);
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to read the change set, running every test.", e);
+            everything = true;
+            return false;
+        }
+
+        for (Map.Entry<String, List<String>> file : files.entrySet()) {
+            if (IGNORED.matcher(file.getKey()).matches()) continue;
+            Matcher source = SOURCE.matcher(file.getKey());
+            if (!source.matches()) {
+                logger.info("Impact selection: " + file.getKey() + " is outside of the test sources, running every test.");
+                everything = true;
+                return false;
+            }
+            Set<String> locators = locators(file.getValue());
+            if (locators == null || !locators.isEmpty())
+                changes.put(source.group(1).replace('/', '.'), locators);
+        }
+        logger.info("Impact selection: changed " + changes);
+        return true;
+    }
+
+    /**
+     * @param lines Changed lines of a file, null when unknown
+     * @return Locator names when only {@code By} declarations changed, null for any other change
+     */
+    static Set<String> locators(List<String> lines) {
+        if (lines == null) return null;
+        Set<String> names = new HashSet<>();
+        for (String line : lines) {
+            String code = line.trim();
+            if (code.isEmpty() || code.startsWith("//") || code.startsWith("*") || code.startsWith("/*")) continue;
+            Matcher locator = LOCATOR.matcher(code);
+            if (!locator.find()) return null;
+            names.add(locator.group(1));
+        }
+        return names;
+    }
+
+    /**
+     * Changed lines per file between the base revision and the working tree, untracked files included.
+     */
+    private static void diff(String base, Map<String, List<String>> files) throws IOException {
+        List<String> current = null;
+        for (String line : git("diff", "-U0", "--no-color", base)) {
+            if (line.startsWith("diff --git ")) {
+                current = files.computeIfAbsent(line.substring(line.lastIndexOf(" b/") + 3), k -> new ArrayList<>());
+            } else if (current != null && !line.startsWith("+++") && !line.startsWith("---")
+                    && (line.startsWith("+") || line.startsWith("-"))) {
+                current.add(line.substring(1));
+            }
+        }
+        for (String untracked : git("ls-files", "--others", "--exclude-standard"))
+            files.put(untracked, null);
+    }
+
+    private static List<String> git(String... args) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(args));
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null)
+                lines.add(line);
+        }
+        try {
+            if (process.waitFor() != 0)
+                throw new IOException("'" + String.join(" ", command) + "' exited with " + process.exitValue() + ".");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running git.", e);
+        }
+        return lines;
+    }
+}
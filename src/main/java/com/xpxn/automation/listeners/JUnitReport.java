@@ -0,0 +1,234 @@
+package com.xpxn.automation.listeners;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds JUnit XML ({@code TEST-<class>.xml}) from one or more {@link ResultStream} files, also from partial streams of
+ * a crashed run. Streams of forked workers are merged, a class that ran in several workers gets a single report.
+ * The first pass only keeps per-class counters and line positions, the second writes one class at a time.
+ * <p>
+ * {@code java -cp ... com.xpxn.automation.listeners.JUnitReport 'target/results-*.jsonl' target/junit-stream}
+ */
+public final class JUnitReport {
+    private static final Logger logger = LoggerFactory.getLogger(JUnitReport.class);
+    private static final Json JSON = new Json();
+
+    private JUnitReport() {
+    }
+
+    /**
+     * @param args Stream file or glob (defaults to {@code target/results.jsonl}), output folder
+     */
+    public static void main(String[] args) throws IOException {
+        List<Path> streams = streams(args.length > 0 ? args[0] : "target/results.jsonl");
+        Path output = Paths.get(args.length > 1 ? args[1] : "target/junit-stream");
+        int files = convert(streams, output);
+        logger.info("Wrote " + files + " JUnit report(s) from " + streams.size() + " stream(s) to " + output.toAbsolutePath());
+    }
+
+    /**
+     * @param pattern Path of a stream, the file name may hold glob wildcards (eg. {@code target/results-*.jsonl})
+     * @return Matching streams sorted by name
+     * @throws IOException Unable to list the folder
+     */
+    public static List<Path> streams(String pattern) throws IOException {
+        Path path = Paths.get(pattern);
+        String name = path.getFileName().toString();
+        if (!name.contains("*") && !name.contains("?") && !name.contains("[") && !name.contains("{"))
+            return Collections.singletonList(path);
+        Path folder = path.getParent() == null ? Paths.get(".") : path.getParent();
+        List<Path> streams = new ArrayList<>();
+        try (DirectoryStream<Path> matches = Files.newDirectoryStream(folder, name)) {
+            for (Path match : matches)
+                streams.add(match);
+        }
+        Collections.sort(streams);
+        return streams;
+    }
+
+    /**
+     * @param stream Result stream written by {@link ResultStream}
+     * @param output Folder receiving one report per test class
+     * @return Amount of reports written
+     * @throws IOException Unable to read the stream or write a report
+     */
+    public static int convert(Path stream, Path output) throws IOException {
+        return convert(Collections.singletonList(stream), output);
+    }
+
+    /**
+     * @param streams Result streams written by {@link ResultStream}, eg. one per forked worker
+     * @param output  Folder receiving one report per test class, merged over all streams
+     * @return Amount of reports written
+     * @throws IOException Unable to read a stream or write a report
+     */
+    public static int convert(List<Path> streams, Path output) throws IOException {
+        Map<String, Lines> classes = new LinkedHashMap<>();
+        for (int index = 0; index < streams.size(); index++) {
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(streams.get(index)))) {
+                ByteArrayOutputStream line = new ByteArrayOutputStream();
+                long offset = 0;
+                long start = 0;
+                int b;
+                do {
+                    b = in.read();
+                    if (b >= 0) offset++;
+                    if (b >= 0 && b != '\n') {
+                        line.write(b);
+                        continue;
+                    }
+                    Map<String, Object> record = parse(new String(line.toByteArray(), StandardCharsets.UTF_8));
+                    if (record != null)
+                        classes.computeIfAbsent((String) record.get("class"), k -> new Lines())
+                                .add(record, index, start, line.size());
+                    line.reset();
+                    start = offset;
+                } while (b >= 0);
+            }
+        }
+
+        Files.createDirectories(output);
+        List<RandomAccessFile> files = new ArrayList<>();
+        try {
+            for (Path stream : streams)
+                files.add(new RandomAccessFile(stream.toFile(), "r"));
+            for (Map.Entry<String, Lines> entry : classes.entrySet())
+                write(output, entry.getKey(), entry.getValue(), files);
+        } finally {
+            for (RandomAccessFile file : files)
+                file.close();
+        }
+        return classes.size();
+    }
+
+    private static void write(Path output, String className, Lines lines, List<RandomAccessFile> files) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(output.resolve("TEST-" + className + ".xml"), StandardCharsets.UTF_8)) {
+            long[] counts = lines.counts;
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testsuite name=\"" + xml(className)
+                    + "\" tests=\"" + counts[0] + "\" failures=\"" + counts[1] + "\" errors=\"" + counts[2]
+                    + "\" skipped=\"" + counts[3] + "\" time=\"" + seconds(counts[4]) + "\">\n");
+            for (int i = 0; i < lines.size; i++) {
+                RandomAccessFile file = files.get(lines.streams[i]);
+                byte[] line = new byte[lines.lengths[i]];
+                file.seek(lines.offsets[i]);
+                file.readFully(line);
+                writeCase(writer, parse(new String(line, StandardCharsets.UTF_8)));
+            }
+            writer.write("</testsuite>\n");
+        }
+    }
+
+    private static void writeCase(Writer writer, Map<String, Object> record) throws IOException {
+        String status = (String) record.get("status");
+        writer.write("  <testcase classname=\"" + xml((String) record.get("class")) + "\" name=\""
+                + xml((String) record.get("method")) + "\" time=\""
+                + seconds(((Number) record.get("durationMs")).longValue()) + "\"");
+        if ("PASS".equals(status)) {
+            writer.write("/>\n");
+            return;
+        }
+        writer.write(">\n");
+        if ("SKIP".equals(status)) {
+            writer.write("    <skipped/>\n");
+        } else {
+            String element = "FAIL".equals(status) ? "failure" : "error";
+            writer.write("    <" + element + " type=\"" + xml(String.valueOf(record.get("error")))
+                    + "\" message=\"" + xml(String.valueOf(record.get("message"))) + "\">"
+                    + xml(String.valueOf(record.get("stack"))) + "</" + element + ">\n");
+        }
+        writer.write("  </testcase>\n");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> parse(String line) {
+        if (line.trim().isEmpty()) return null;
+        try {
+            Map<String, Object> record = JSON.toType(line, Map.class);
+            return "result".equals(record.get("event")) ? record : null;
+        } catch (JsonException e) {
+            // The last line of a crashed run may be cut off
+            logger.warn("Skipping unreadable result line: " + line);
+            return null;
+        }
+    }
+
+    private static String seconds(long millis) {
+        return String.format(Locale.ROOT, "%.3f", millis / 1000.0);
+    }
+
+    private static String xml(String value) {
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    out.append("&lt;");
+                    break;
+                case '>':
+                    out.append("&gt;");
+                    break;
+                case '&':
+                    out.append("&amp;");
+                    break;
+                case '"':
+                    out.append("&quot;");
+                    break;
+                default:
+                    if (c >= 0x20 || c == '\n' || c == '\t' || c == '\r') out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Counters and stream positions of the results of one class.
+     */
+    private static final class Lines {
+        // tests, failures, errors, skipped, time in ms
+        private final long[] counts = new long[5];
+        private int[] streams = new int[8];
+        private long[] offsets = new long[8];
+        private int[] lengths = new int[8];
+        private int size;
+
+        private void add(Map<String, Object> record, int stream, long offset, int length) {
+            counts[0]++;
+            String status = (String) record.get("status");
+            if ("FAIL".equals(status)) counts[1]++;
+            else if ("CONFIG_FAIL".equals(status)) counts[2]++;
+            else if ("SKIP".equals(status)) counts[3]++;
+            counts[4] += ((Number) record.get("durationMs")).longValue();
+            if (size == offsets.length) {
+                streams = Arrays.copyOf(streams, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+            }
+            streams[size] = stream;
+            offsets[size] = offset;
+            lengths[size] = length;
+            size++;
+        }
+    }
+}
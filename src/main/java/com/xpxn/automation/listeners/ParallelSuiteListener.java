@@ -0,0 +1,61 @@
+package com.xpxn.automation.listeners;
+
+import com.xpxn.automation.config.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.IAlterSuiteListener;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Applies the configured parallel mode and sizes the thread pool to the machine.
+ * Register through the {@code <listeners>} section of the suite file.
+ * <p>
+ * {@code env.parallel.mode} accepts the TestNG modes (none, methods, classes, tests, instances).
+ * {@code env.parallel.threads} accepts a number or {@code auto}, which uses the lower of the
+ * available cores and the amount of parallel units in the suite.
+ */
+public class ParallelSuiteListener implements IAlterSuiteListener {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelSuiteListener.class);
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        for (XmlSuite suite : suites) {
+            String mode = Configuration.envParallelMode().get(suite.getParallel().toString());
+            suite.setParallel(XmlSuite.ParallelMode.getValidParallel(mode));
+
+            String requested = Configuration.envParallelThreads().get("auto");
+            int threads = "auto".equals(requested)
+                    ? Math.min(Runtime.getRuntime().availableProcessors(), units(suite))
+                    : Integer.parseInt(requested);
+            suite.setThreadCount(Math.max(1, threads));
+
+            // Publish the resolved value so the driver pool can size itself to match.
+            Properties resolved = new Properties();
+            resolved.setProperty("env.parallel.threads", String.valueOf(suite.getThreadCount()));
+            Configuration.extend(resolved);
+            logger.info("Suite '" + suite.getName() + "' runs parallel=" + suite.getParallel()
+                    + " with " + suite.getThreadCount() + " thread(s).");
+        }
+    }
+
+    private static int units(XmlSuite suite) {
+        switch (suite.getParallel()) {
+            case TESTS:
+                return suite.getTests().size();
+            case CLASSES:
+            case INSTANCES:
+                int classes = 0;
+                for (XmlTest test : suite.getTests())
+                    classes += test.getXmlClasses().size();
+                return classes;
+            case METHODS:
+                return Integer.MAX_VALUE;
+            default:
+                return 1;
+        }
+    }
+}
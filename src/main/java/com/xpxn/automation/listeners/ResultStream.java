@@ -0,0 +1,197 @@
+package com.xpxn.automation.listeners;
+
+import com.xpxn.automation.config.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.IConfigurationListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Streams every test result as one JSON line to {@code env.report.stream} (default {@code target/results.jsonl})
+ * the moment it finishes, so a crashed run keeps everything reported so far and nothing is held in memory.
+ * Register through the {@code <listeners>} section of the suite file.
+ * <p>
+ * The file is emptied once per JVM, suites opening it again in the same JVM (eg. a reused surefire fork) append.
+ * Lines are appended to the file right away and forced to disk at most every {@code env.report.fsyncMs}
+ * (default 1000) and at suite end. {@link JUnitReport} turns the stream into JUnit XML.
+ */
+public class ResultStream implements ITestListener, ISuiteListener, IConfigurationListener {
+    private static final Logger logger = LoggerFactory.getLogger(ResultStream.class);
+    private static final int MAX_TRACE = 4000;
+
+    private static FileChannel channel;
+    private static long fsyncMillis;
+    private static long lastSync;
+    private static int opened;
+    // Streams of this JVM, later suites and test classes of a reused fork append to them
+    private static final Set<Path> started = new HashSet<>();
+
+    @Override
+    public void onStart(ISuite suite) {
+        open();
+        write("{\"event\":\"suite\",\"suite\":\"" + escape(suite.getName()) + "\",\"time\":" + System.currentTimeMillis() + "}");
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        write("{\"event\":\"end\",\"suite\":\"" + escape(suite.getName()) + "\",\"time\":" + System.currentTimeMillis() + "}");
+        close();
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult result) {
+        write(record(result, "PASS"));
+    }
+
+    @Override
+    public void onTestFailure(ITestResult result) {
+        write(record(result, "FAIL"));
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult result) {
+        write(record(result, "SKIP"));
+    }
+
+    @Override
+    public void onTestFailedButWithinSuccessPercentage(ITestResult result) {
+        write(record(result, "PASS"));
+    }
+
+    @Override
+    public void onConfigurationFailure(ITestResult result) {
+        write(record(result, "CONFIG_FAIL"));
+    }
+
+    @Override
+    public void onConfigurationSuccess(ITestResult result) {
+    }
+
+    @Override
+    public void onConfigurationSkip(ITestResult result) {
+    }
+
+    @Override
+    public void onTestStart(ITestResult result) {
+    }
+
+    @Override
+    public void onStart(ITestContext context) {
+    }
+
+    @Override
+    public void onFinish(ITestContext context) {
+    }
+
+    private static String record(ITestResult result, String status) {
+        StringBuilder line = new StringBuilder(256)
+                .append("{\"event\":\"result\"")
+                .append(",\"test\":\"").append(escape(result.getTestContext().getName()))
+                .append("\",\"class\":\"").append(escape(result.getTestClass().getName()))
+                .append("\",\"method\":\"").append(escape(result.getMethod().getMethodName()))
+                .append("\",\"status\":\"").append(status)
+                .append("\",\"start\":").append(result.getStartMillis())
+                .append(",\"durationMs\":").append(Math.max(0, result.getEndMillis() - result.getStartMillis()))
+                .append(",\"thread\":\"").append(escape(Thread.currentThread().getName())).append('"');
+        Throwable error = result.getThrowable();
+        if (error != null) {
+            StringWriter trace = new StringWriter();
+            error.printStackTrace(new PrintWriter(trace));
+            String stack = trace.toString();
+            if (stack.length() > MAX_TRACE) stack = stack.substring(0, MAX_TRACE) + "...";
+            line.append(",\"error\":\"").append(escape(error.getClass().getName()))
+                    .append("\",\"message\":\"").append(escape(String.valueOf(error.getMessage())))
+                    .append("\",\"stack\":\"").append(escape(stack)).append('"');
+        }
+        return line.append('}').toString();
+    }
+
+    private static synchronized void open() {
+        // Suites share the stream, it stays open until the last one finishes
+        if (opened++ > 0) return;
+        Path location = Paths.get(Configuration.envReportStream().get("target/results.jsonl"));
+        fsyncMillis = Long.parseLong(Configuration.envReportFsyncMs().get("1000"));
+        try {
+            if (location.toAbsolutePath().getParent() != null)
+                Files.createDirectories(location.toAbsolutePath().getParent());
+            channel = FileChannel.open(location, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    started.add(location.toAbsolutePath()) ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND);
+            lastSync = System.currentTimeMillis();
+            logger.info("Streaming results to " + location.toAbsolutePath());
+        } catch (IOException e) {
+            logger.warn("Unable to open result stream '" + location + "', results are not streamed.", e);
+        }
+    }
+
+    private static synchronized void write(String line) {
+        if (channel == null) return;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            long now = System.currentTimeMillis();
+            if (now - lastSync >= fsyncMillis) {
+                channel.force(false);
+                lastSync = now;
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to stream test result.", e);
+        }
+    }
+
+    private static synchronized void close() {
+        if (--opened > 0 || channel == null) return;
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Unable to close result stream.", e);
+        }
+        channel = null;
+    }
+
+    static String escape(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
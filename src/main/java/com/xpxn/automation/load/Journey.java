@@ -0,0 +1,11 @@
+package com.xpxn.automation.load;
+
+/**
+ * One pass of a virtual user through the site, built from page object flows. Every interaction worth measuring
+ * goes through {@link VirtualUser#step(String, java.util.function.Supplier)}; a failure ends the pass and the
+ * user continues with a fresh session.
+ */
+@FunctionalInterface
+public interface Journey {
+    void run(VirtualUser user) throws Exception;
+}
@@ -0,0 +1,297 @@
+package com.xpxn.automation.load;
+
+import com.xpxn.automation.config.Configuration;
+import com.xpxn.automation.config.DriverFactory;
+import com.xpxn.automation.config.DriverReaper;
+import com.xpxn.automation.network.FixtureServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Synthetic load: {@code users} virtual users run a {@link Journey} over and over, each on its own browser session
+ * from the {@link DriverFactory} (local headless or remote, as configured). Users start evenly spread over the
+ * ramp-up and stop when the duration, ramp-up included, is over. A user whose journey fails gets a fresh session
+ * and carries on, so the concurrency stays at the target for the whole run. Every step duration is kept, so the
+ * reported percentiles are exact (nearest rank) rather than histogram bucket edges.
+ * <p>
+ * {@link #main(String[])} runs a journey against the local fixture server and writes {@code target/load-report.md}:
+ * {@code java -cp ... com.xpxn.automation.load.LoadScenario [journey class]}, the journey having a public
+ * {@code (String baseUrl)} constructor. Sizing comes from the {@code env.scenario.*} properties.
+ */
+public final class LoadScenario {
+    private static final Logger logger = LoggerFactory.getLogger(LoadScenario.class);
+    /** Step name of session creation in the report */
+    public static final String SESSION = "session";
+    static final RuntimeException STOP = new Stopped();
+
+    private final String env;
+    private final int users;
+    private final long rampUpMillis;
+    private final long thinkMillis;
+    private final long durationMillis;
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+    private final LongAdder journeys = new LongAdder();
+    private final LongAdder failedJourneys = new LongAdder();
+    private final LongAdder sessionNanos = new LongAdder();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private volatile long startNanos;
+    private volatile long deadlineNanos;
+    private volatile long endNanos;
+
+    /**
+     * @param env            Environment passed to the {@link DriverFactory} (local, remote)
+     * @param users          Concurrent virtual users
+     * @param rampUpMillis   Time over which the users are started
+     * @param thinkMillis    Mean pause after every step
+     * @param durationMillis Length of the run, ramp-up included
+     */
+    public LoadScenario(String env, int users, long rampUpMillis, long thinkMillis, long durationMillis) {
+        if (users < 1)
+            throw new IllegalArgumentException("A load scenario needs at least one user, got " + users + ".");
+        if (rampUpMillis < 0 || thinkMillis < 0 || durationMillis <= rampUpMillis)
+            throw new IllegalArgumentException("Invalid load timing: ramp-up " + rampUpMillis + "ms, think "
+                    + thinkMillis + "ms, duration " + durationMillis + "ms (must exceed the ramp-up).");
+        this.env = env;
+        this.users = users;
+        this.rampUpMillis = rampUpMillis;
+        this.thinkMillis = thinkMillis;
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Scenario sized by {@code env.scenario.users}, {@code rampUp} and {@code duration} (seconds) and
+     * {@code think} (milliseconds), on the configured environment.
+     *
+     * @return LoadScenario
+     */
+    public static LoadScenario configured() {
+        return new LoadScenario(Configuration.appEnv().expect(),
+                Integer.parseInt(Configuration.envScenarioUsers().get("4")),
+                TimeUnit.SECONDS.toMillis(Long.parseLong(Configuration.envScenarioRampUp().get("10"))),
+                Long.parseLong(Configuration.envScenarioThink().get("500")),
+                TimeUnit.SECONDS.toMillis(Long.parseLong(Configuration.envScenarioDuration().get("60"))));
+    }
+
+    /**
+     * Runs the journey with every user until the duration is over. Steps in flight at the end are completed,
+     * then all sessions are ended.
+     *
+     * @param journey Journey of every user
+     * @return Report as markdown table
+     * @throws InterruptedException Interrupted while waiting for the users
+     */
+    public String run(Journey journey) throws InterruptedException {
+        startNanos = System.nanoTime();
+        deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            int id = i;
+            long startAt = startNanos + TimeUnit.MILLISECONDS.toNanos(rampUpMillis * i / users);
+            Thread thread = new Thread(() -> user(id, journey, startAt), "virtual-user-" + i);
+            // A hung browser must not keep the JVM alive after the run
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        long grace = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis) + TimeUnit.SECONDS.toNanos(
+                Long.parseLong(Configuration.envDriverQuitTimeout().get("30")));
+        for (Thread thread : threads)
+            TimeUnit.NANOSECONDS.timedJoin(thread, Math.max(1, grace - System.nanoTime()));
+        for (Thread thread : threads)
+            if (thread.isAlive()) logger.warn(thread.getName() + " is still running a step after the scenario ended.");
+        endNanos = Math.min(System.nanoTime(), deadlineNanos);
+        String report = report();
+        logger.info("Load scenario finished:\n" + report);
+        return report;
+    }
+
+    private void user(int id, Journey journey, long startAt) {
+        VirtualUser user = new VirtualUser(this, id);
+        try {
+            long wait = startAt - System.nanoTime();
+            if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+            while (!isOver()) {
+                if (user.driver == null && !open(user)) continue;
+                try {
+                    journey.run(user);
+                    journeys.increment();
+                } catch (Stopped e) {
+                    break;
+                } catch (Exception | AssertionError e) {
+                    // The session may be broken, replace it instead of letting the concurrency drop
+                    failedJourneys.increment();
+                    logger.debug("Journey of virtual user " + id + " failed, starting a new session.", e);
+                    close(user);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close(user);
+        }
+    }
+
+    private boolean open(VirtualUser user) throws InterruptedException {
+        long start = System.nanoTime();
+        // Starting a session is part of the user's activity, so it counts towards the concurrency
+        sessionNanos.add(-start);
+        peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+        try {
+            user.driver = DriverFactory.create(env, DriverFactory.setup(env));
+            record(SESSION, System.nanoTime() - start);
+            return true;
+        } catch (Exception e) {
+            sessionNanos.add(System.nanoTime());
+            active.decrementAndGet();
+            failed(SESSION);
+            logger.warn("Virtual user " + user.getId() + " could not start a session: " + e.getMessage());
+            // Back off instead of hammering a grid or driver that is out of capacity
+            TimeUnit.NANOSECONDS.sleep(Math.min(TimeUnit.MILLISECONDS.toNanos(Math.max(1000, thinkMillis)),
+                    deadlineNanos - System.nanoTime()));
+            return false;
+        }
+    }
+
+    private void close(VirtualUser user) {
+        if (user.driver == null) return;
+        sessionNanos.add(Math.min(System.nanoTime(), deadlineNanos));
+        active.decrementAndGet();
+        DriverReaper.reap(user.driver);
+        user.driver = null;
+    }
+
+    boolean isOver() {
+        return System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    long remainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+    }
+
+    long getThinkMillis() {
+        return thinkMillis;
+    }
+
+    void record(String name, long nanos) {
+        step(name).record(nanos);
+    }
+
+    void failed(String name) {
+        step(name).errors.increment();
+    }
+
+    private Step step(String name) {
+        synchronized (steps) {
+            return steps.computeIfAbsent(name, k -> new Step());
+        }
+    }
+
+    /**
+     * Throughput and latency percentiles per step, in order of first appearance.
+     *
+     * @return Markdown
+     */
+    public String report() {
+        long end = endNanos != 0 ? endNanos : Math.min(System.nanoTime(), deadlineNanos);
+        double seconds = Math.max(1, end - startNanos) / 1e9;
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%d user(s), ramp-up %ds, think %dms, %.1fs%n%n", users,
+                TimeUnit.MILLISECONDS.toSeconds(rampUpMillis), thinkMillis, seconds));
+        out.append(String.format(Locale.ROOT, "- journeys: %d completed (%.2f/s), %d failed%n", journeys.sum(),
+                journeys.sum() / seconds, failedJourneys.sum()));
+        // Session time of users still running is counted up to the end
+        long open = sessionNanos.sum() + (long) active.get() * end;
+        out.append(String.format(Locale.ROOT, "- concurrency: target %d, peak %d, mean %.2f%n%n", users, peak.get(),
+                open / 1e9 / seconds));
+        out.append("| step | count | errors | per second | p50 ms | p95 ms | p99 ms | max ms |\n");
+        out.append("|---|---:|---:|---:|---:|---:|---:|---:|\n");
+        synchronized (steps) {
+            for (Map.Entry<String, Step> entry : steps.entrySet()) {
+                long[] samples = entry.getValue().sorted();
+                out.append(String.format(Locale.ROOT, "| %s | %d | %d | %.2f | %.1f | %.1f | %.1f | %.1f |%n",
+                        entry.getKey(), samples.length, entry.getValue().errors.sum(), samples.length / seconds,
+                        percentile(samples, 0.50) / 1e6, percentile(samples, 0.95) / 1e6,
+                        percentile(samples, 0.99) / 1e6, percentile(samples, 1) / 1e6));
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * @param sorted   Samples in ascending order
+     * @param quantile 0 to 1
+     * @return The smallest sample with at least the given share of samples at or below it, 0 without samples
+     */
+    static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.min(sorted.length, Math.max(1, rank)) - 1];
+    }
+
+    public static void main(String[] args) throws Exception {
+        String name = args.length > 0 ? args[0] : "load.TopicBrowsing";
+        try (FixtureServer server = new FixtureServer("fixtures")) {
+            // Stand-ins for the pages the fixture links to
+            server.route("/topic/console-pc", exchange -> TOPIC).route("/news/first", exchange -> STORY);
+            Journey journey = Class.forName(name).asSubclass(Journey.class).getConstructor(String.class)
+                    .newInstance(server.url("/"));
+            String report = configured().run(journey);
+            Path output = Paths.get("target", "load-report.md");
+            Files.createDirectories(output.getParent());
+            Files.write(output, report.getBytes(StandardCharsets.UTF_8));
+            logger.info("Load report written to " + output.toAbsolutePath());
+        } finally {
+            DriverReaper.shutdown(Long.parseLong(Configuration.envDriverQuitTimeout().get("30")));
+        }
+    }
+
+    private static final String TOPIC = "<!DOCTYPE html><html><head><title>Console/PC</title></head><body>" +
+            "<div id=\"feed\"><div class=\"content_box_middle\">" +
+            "<div class=\"feed_item\"><div class=\"story_title\"><a href=\"/news/first\">First story</a></div></div>" +
+            "</div></div></body></html>";
+
+    private static final String STORY = "<!DOCTYPE html><html><head><title>First story</title></head><body>" +
+            "<h1 class=\"story_title\">First story</h1></body></html>";
+
+    private static final class Step {
+        final LongAdder errors = new LongAdder();
+        // Durations in ns, a few thousand per minute even with many users
+        private long[] samples = new long[256];
+        private int count;
+
+        synchronized void record(long nanos) {
+            if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+            samples[count++] = nanos;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(samples, count);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    /**
+     * Ends a journey at the end of the scenario, not counted as failure.
+     */
+    private static final class Stopped extends RuntimeException {
+        Stopped() {
+            super("load scenario is over", null, false, false);
+        }
+    }
+}
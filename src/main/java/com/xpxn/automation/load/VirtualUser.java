@@ -0,0 +1,76 @@
+package com.xpxn.automation.load;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Session of one simulated user of a {@link LoadScenario}, handed to the {@link Journey} on every pass.
+ * Steps are timed into the scenario report and followed by the think time.
+ */
+public final class VirtualUser {
+    private final LoadScenario scenario;
+    private final int id;
+    WebDriver driver;
+
+    VirtualUser(LoadScenario scenario, int id) {
+        this.scenario = scenario;
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public WebDriver driver() {
+        return driver;
+    }
+
+    /**
+     * Runs and times one interaction, then pauses for the think time.
+     *
+     * @param name   Step name in the report
+     * @param action Interaction, eg. a page object click
+     * @return Result of the action
+     */
+    public <T> T step(String name, Supplier<T> action) {
+        if (scenario.isOver()) throw LoadScenario.STOP;
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException | Error e) {
+            scenario.failed(name);
+            throw e;
+        }
+        scenario.record(name, System.nanoTime() - start);
+        think();
+        return result;
+    }
+
+    public void step(String name, Runnable action) {
+        step(name, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Pauses for the configured think time, spread between half and one and a half times the mean so users do not
+     * move in lockstep. Never sleeps past the end of the scenario.
+     */
+    public void think() {
+        long mean = scenario.getThinkMillis();
+        if (mean <= 0) return;
+        long pause = Math.min(ThreadLocalRandom.current().nextLong(mean / 2, mean + mean / 2 + 1), scenario.remainingMillis());
+        if (pause <= 0) return;
+        try {
+            TimeUnit.MILLISECONDS.sleep(pause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw LoadScenario.STOP;
+        }
+    }
+}
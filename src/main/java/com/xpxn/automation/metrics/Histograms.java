@@ -0,0 +1,60 @@
+package com.xpxn.automation.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named groups of latency histograms, eg. one group for waits and one for driver commands.
+ */
+public final class Histograms {
+    private static final Map<String, Map<String, LatencyHistogram>> groups = new ConcurrentHashMap<>();
+
+    private Histograms() {
+    }
+
+    /**
+     * Histogram for the given name, created on first use.
+     *
+     * @param group Group the histogram belongs to
+     * @param name  Histogram name within the group
+     * @return LatencyHistogram
+     */
+    public static LatencyHistogram get(String group, String name) {
+        return groups.computeIfAbsent(group, g -> new ConcurrentHashMap<>())
+                .computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    /**
+     * Histograms of a group, ordered by total recorded time (largest first).
+     *
+     * @param group Group name
+     * @return Entries of histogram name and histogram
+     */
+    public static List<Map.Entry<String, LatencyHistogram>> ranked(String group) {
+        Map<String, LatencyHistogram> histograms = groups.getOrDefault(group, Collections.emptyMap());
+        List<Map.Entry<String, LatencyHistogram>> entries = new ArrayList<>(histograms.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().totalNanos(), a.getValue().totalNanos()));
+        return entries;
+    }
+
+    /**
+     * Human readable table of a group, one histogram per line.
+     *
+     * @param group Group name
+     * @return String
+     */
+    public static String report(String group) {
+        StringBuilder out = new StringBuilder("========== " + group + " ==========");
+        for (Map.Entry<String, LatencyHistogram> entry : ranked(group)) {
+            LatencyHistogram h = entry.getValue();
+            out.append(System.lineSeparator())
+                    .append(String.format("%8dms total %6d calls p50=%dms p95=%dms max=%dms  %s",
+                            h.totalNanos() / 1_000_000, h.count(), h.percentileNanos(0.5) / 1_000_000,
+                            h.percentileNanos(0.95) / 1_000_000, h.maxNanos() / 1_000_000, entry.getKey()));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package com.xpxn.automation.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two nanosecond buckets.
+ * Recording is a couple of atomic adds, so it is cheap enough to leave on for every call.
+ * Percentiles are approximate: they report the upper bound of the bucket the rank falls into.
+ */
+public final class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param nanos Observed latency in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        // Bucket i holds values in [2^i, 2^(i+1)), zero lands in the first bucket
+        buckets.incrementAndGet(Math.max(0, BUCKETS - 1 - Long.numberOfLeadingZeros(nanos)));
+        count.increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long totalNanos() {
+        return total.sum();
+    }
+
+    public long maxNanos() {
+        return max.get();
+    }
+
+    public long meanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : total.sum() / n;
+    }
+
+    /**
+     * Approximate value below which the given share of observations fall.
+     *
+     * @param quantile Value between 0 and 1, eg. 0.95
+     * @return Nanoseconds
+     */
+    public long percentileNanos(double quantile) {
+        long n = count.sum();
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(quantile * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank)
+                return Math.min(i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1, max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Compact JSON object with the summary values in microseconds.
+     *
+     * @return String
+     */
+    public String toJson() {
+        return "{\"count\":" + count() +
+                ",\"totalUs\":" + totalNanos() / 1000 +
+                ",\"meanUs\":" + meanNanos() / 1000 +
+                ",\"p50Us\":" + percentileNanos(0.50) / 1000 +
+                ",\"p95Us\":" + percentileNanos(0.95) / 1000 +
+                ",\"p99Us\":" + percentileNanos(0.99) / 1000 +
+                ",\"maxUs\":" + maxNanos() / 1000 + "}";
+    }
+}
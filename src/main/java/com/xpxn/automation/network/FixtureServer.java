@@ -0,0 +1,123 @@
+package com.xpxn.automation.network;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLConnection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Local stand-in HTTP server for offline runs.
+ * Serves classpath resources below a root folder (eg. {@code fixtures/}) and any handlers registered through
+ * {@link #route(String, Function)}. Directory requests resolve to {@code index.html}.
+ * <p>
+ * Run with {@code -Dsun.net.httpserver.nodelay=true} (set by the surefire and benchmark configuration): headers
+ * and body are separate writes, without TCP_NODELAY keep-alive clients stall ~40ms per request.
+ */
+public class FixtureServer implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(FixtureServer.class);
+
+    private final HttpServer server;
+    private final String root;
+    private final Map<String, Function<HttpExchange, String>> routes = new ConcurrentHashMap<>();
+
+    /**
+     * Starts the server on a free loopback port.
+     *
+     * @param root Classpath folder holding the fixture files
+     * @throws IOException Unable to bind the server
+     */
+    public FixtureServer(String root) throws IOException {
+        this.root = root.endsWith("/") ? root : root + "/";
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.setExecutor(Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "fixture-server");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        this.server.createContext("/", this::handle);
+        this.server.start();
+        logger.debug("Fixture server serving '" + this.root + "' on " + url("/"));
+    }
+
+    /**
+     * Absolute url of a path on this server.
+     *
+     * @param path Path starting with /
+     * @return String
+     */
+    public String url(String path) {
+        return "http://" + server.getAddress().getAddress().getHostAddress() + ":" + server.getAddress().getPort() + path;
+    }
+
+    /**
+     * Answers the exact path with the body produced by the handler (served as text/html).
+     *
+     * @param path    Request path
+     * @param handler Produces the response body
+     * @return itself
+     */
+    public FixtureServer route(String path, Function<HttpExchange, String> handler) {
+        routes.put(path, handler);
+        return this;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            Function<HttpExchange, String> route = routes.get(path);
+            byte[] body;
+            String type;
+            if (route != null) {
+                body = route.apply(exchange).getBytes("UTF-8");
+                type = "text/html; charset=utf-8";
+            } else {
+                String resource = root + (path.endsWith("/") ? path.substring(1) + "index.html" : path.substring(1));
+                body = path.contains("..") ? null : read(resource);
+                type = URLConnection.guessContentTypeFromName(resource);
+            }
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", type == null ? "application/octet-stream" : type);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] read(String resource) throws IOException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) classLoader = FixtureServer.class.getClassLoader();
+        try (InputStream in = classLoader.getResourceAsStream(resource)) {
+            if (in == null) return null;
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.xpxn.automation.network;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal embedded HTTP proxy used to speed up page loads.
+ * <ul>
+ * <li>Requests to blocked hosts are answered immediately (204 for http, refused tunnels for https).</li>
+ * <li>Plain http requests with a recording under {@code <replay>/<host>/<path>} are served from disk.</li>
+ * <li>Everything else is forwarded untouched, https through CONNECT tunnels.</li>
+ * </ul>
+ */
+public class LocalProxy implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(LocalProxy.class);
+
+    private final List<Pattern> blocked = new ArrayList<>();
+    private final Path replay;
+    private final ServerSocket server;
+    private final ExecutorService workers = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "local-proxy");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong blockedCount = new AtomicLong();
+    private final AtomicLong replayedCount = new AtomicLong();
+
+    /**
+     * Starts the proxy on a free loopback port.
+     *
+     * @param blockedHosts Host patterns to block, {@code *} matches any characters (eg. {@code *.doubleclick.net})
+     * @param replay       Directory with recorded responses, may be null
+     * @throws IOException Unable to open the listening socket
+     */
+    public LocalProxy(List<String> blockedHosts, Path replay) throws IOException {
+        this(blockedHosts, replay, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Starts the proxy on a free port of the given interface.
+     *
+     * @param blockedHosts Host patterns to block, {@code *} matches any characters (eg. {@code *.doubleclick.net})
+     * @param replay       Directory with recorded responses, may be null
+     * @param bind         Interface to listen on, must be reachable by the browser
+     * @throws IOException Unable to open the listening socket
+     */
+    public LocalProxy(List<String> blockedHosts, Path replay, InetAddress bind) throws IOException {
+        for (String host : blockedHosts)
+            blocked.add(glob(host));
+        this.replay = replay;
+        this.server = new ServerSocket(0, 50, bind);
+        workers.execute(this::accept);
+        logger.debug("Local proxy listening on " + address());
+    }
+
+    /**
+     * @return host:port to hand to the browser
+     */
+    public String address() {
+        return server.getInetAddress().getHostAddress() + ":" + server.getLocalPort();
+    }
+
+    public long getBlockedCount() {
+        return blockedCount.get();
+    }
+
+    public long getReplayedCount() {
+        return replayedCount.get();
+    }
+
+    /**
+     * Converts a host pattern with {@code *} wildcards into a case insensitive regex.
+     *
+     * @param host Pattern
+     * @return Pattern
+     */
+    public static Pattern glob(String host) {
+        StringBuilder regex = new StringBuilder();
+        for (String part : host.trim().split("\\*", -1)) {
+            if (regex.length() > 0) regex.append(".*");
+            regex.append(Pattern.quote(part));
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+    }
+
+    boolean isBlocked(String host) {
+        for (Pattern pattern : blocked)
+            if (pattern.matcher(host).matches()) return true;
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        workers.shutdownNow();
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                Socket client = server.accept();
+                workers.execute(() -> handle(client));
+            } catch (IOException e) {
+                if (!server.isClosed())
+                    logger.warn("Local proxy failed to accept a connection.", e);
+            }
+        }
+    }
+
+    private void handle(Socket client) {
+        try (Socket socket = client) {
+            InputStream in = socket.getInputStream();
+            String head = readHead(in);
+            if (head == null) return;
+            String[] requestLine = head.substring(0, head.indexOf("\r\n")).split(" ");
+            if (requestLine.length < 3) return;
+            if ("CONNECT".equalsIgnoreCase(requestLine[0]))
+                tunnel(socket, requestLine[1]);
+            else
+                forward(socket, head, requestLine[0], URI.create(requestLine[1]));
+        } catch (IOException | IllegalArgumentException e) {
+            logger.debug("Local proxy request failed.", e);
+        }
+    }
+
+    private void tunnel(Socket client, String authority) throws IOException {
+        int split = authority.lastIndexOf(':');
+        String host = authority.substring(0, split);
+        int port = Integer.parseInt(authority.substring(split + 1));
+        OutputStream out = client.getOutputStream();
+        if (isBlocked(host)) {
+            blockedCount.incrementAndGet();
+            out.write("HTTP/1.1 403 Blocked\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            return;
+        }
+        try (Socket upstream = new Socket()) {
+            upstream.connect(new InetSocketAddress(host, port), 10_000);
+            out.write("HTTP/1.1 200 Connection Established\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            pipeBothWays(client, upstream);
+        }
+    }
+
+    private void forward(Socket client, String head, String method, URI uri) throws IOException {
+        OutputStream out = client.getOutputStream();
+        String host = uri.getHost();
+        if (host == null) {
+            out.write("HTTP/1.1 400 Bad Request\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            return;
+        }
+        if (isBlocked(host)) {
+            blockedCount.incrementAndGet();
+            out.write("HTTP/1.1 204 No Content\r\nContent-Length: 0\r\nConnection: close\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            return;
+        }
+        Path recorded = recording(host, uri.getPath());
+        if ("GET".equalsIgnoreCase(method) && recorded != null) {
+            replayedCount.incrementAndGet();
+            byte[] body = Files.readAllBytes(recorded);
+            String type = URLConnection.guessContentTypeFromName(recorded.getFileName().toString());
+            out.write(("HTTP/1.1 200 OK\r\nContent-Type: " + (type == null ? "application/octet-stream" : type) +
+                    "\r\nContent-Length: " + body.length + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+            out.write(body);
+            return;
+        }
+
+        // Rewrite the absolute request target to origin form and close after one exchange
+        StringBuilder request = new StringBuilder();
+        String[] lines = head.split("\r\n");
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        if (uri.getRawQuery() != null) path += "?" + uri.getRawQuery();
+        request.append(method).append(' ').append(path).append(" HTTP/1.1\r\n");
+        for (int i = 1; i < lines.length; i++) {
+            String lower = lines[i].toLowerCase(Locale.ROOT);
+            if (lower.startsWith("proxy-connection:") || lower.startsWith("connection:")) continue;
+            request.append(lines[i]).append("\r\n");
+        }
+        request.append("Connection: close\r\n\r\n");
+        try (Socket upstream = new Socket()) {
+            upstream.connect(new InetSocketAddress(host, uri.getPort() < 0 ? 80 : uri.getPort()), 10_000);
+            upstream.getOutputStream().write(request.toString().getBytes(StandardCharsets.ISO_8859_1));
+            upstream.getOutputStream().flush();
+            pipeBothWays(client, upstream);
+        }
+    }
+
+    private Path recording(String host, String path) {
+        if (replay == null) return null;
+        String relative = path == null || path.isEmpty() || path.endsWith("/") ? (path == null ? "/" : path) + "index.html" : path;
+        Path file = replay.resolve(host).resolve(relative.substring(1)).normalize();
+        return file.startsWith(replay) && Files.isRegularFile(file) ? file : null;
+    }
+
+    private void pipeBothWays(Socket client, Socket upstream) throws IOException {
+        workers.execute(() -> {
+            try {
+                pipe(client.getInputStream(), upstream.getOutputStream());
+                upstream.shutdownOutput();
+            } catch (IOException ignored) {
+                // Either side went away, the other direction notices on its own
+            }
+        });
+        try {
+            pipe(upstream.getInputStream(), client.getOutputStream());
+        } catch (SocketException ignored) {
+            // Connection reset by the browser
+        }
+    }
+
+    private static void pipe(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[16 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            out.flush();
+        }
+    }
+
+    /**
+     * Reads the request line and headers, leaving any body in the stream.
+     */
+    private static String readHead(InputStream in) throws IOException {
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        int state = 0;
+        int b;
+        while ((b = in.read()) != -1) {
+            head.write(b);
+            // Track \r\n\r\n
+            state = (b == '\r') ? (state == 2 ? 3 : 1) : (b == '\n' && (state == 1 || state == 3)) ? state + 1 : 0;
+            if (state == 4) return head.toString("ISO-8859-1");
+            if (head.size() > 64 * 1024) return null;
+        }
+        return null;
+    }
+}
@@ -1,51 +1,196 @@
 package com.xpxn.automation.pages;
 
+import com.xpxn.automation.config.CommandTimer;
+import com.xpxn.automation.config.Configuration;
+import com.xpxn.automation.waits.SmartWait;
 import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.ui.WebDriverWait;
+import org.openqa.selenium.support.Color;
 
-import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 
 public abstract class BasePage {
+    private static final LongAdder savedRoundTrips = new LongAdder();
+
+    private static final String SCROLL =
+            JsLocator.FIND + "var el = find(arguments[0], arguments[1]);" +
+            "if (!el) return false; el.scrollIntoView(true); return true;";
+    private static final String COLORS =
+            JsLocator.FIND + "var out = [];" +
+            "for (var i = 0; i < arguments.length; i += 2) {" +
+            "  var el = find(arguments[i], arguments[i + 1]);" +
+            "  out.push(el ? window.getComputedStyle(el).getPropertyValue('color') : null);" +
+            "}" +
+            "return out;";
+
     protected WebDriver driver;
-    protected WebDriverWait wait;
+    protected SmartWait wait;
+    private final boolean batching;
+    private final ElementCache cache;
 
     public BasePage(WebDriver driver) {
-        this.driver = driver;
-        this.wait = new WebDriverWait(driver,15);
+        // Optional element cache, the driver is wrapped so navigation clears it
+        this.cache = Boolean.parseBoolean(Configuration.envPageCache().get("false")) ? new ElementCache() : null;
+        // Commands issued through this page are tagged with its class when command timing is on
+        driver = CommandTimer.scope(driver, getClass());
+        this.driver = cache == null ? driver : cache.track(driver);
+        this.wait = SmartWait.of(driver);
+        this.batching = driver instanceof JavascriptExecutor
+                && Boolean.parseBoolean(Configuration.envPageBatch().get("true"));
+    }
+
+    /**
+     * Wire round trips avoided by batched interactions since the JVM started.
+     *
+     * @return long
+     */
+    public static long savedRoundTrips() {
+        return savedRoundTrips.sum();
     }
 
     public void click(String element){click(getBy(element));}
 
-    public void click(By element){getElement(element).click();}
+    public void click(By element){withElement(element, e -> {e.click(); return null;});}
 
-    public By getBy(String name) {
-        try {
-            Field field = this.getClass().getDeclaredField(name);
-            field.setAccessible(true);
-            Object obj = field.get(this);
-            if (!(obj instanceof By)) {
-                throw new IllegalArgumentException("Field " + name + " is not of expected type (By).");
-            }
-            return (By) obj;
-        }catch (IllegalAccessException | NoSuchFieldException e) {
-            throw new IllegalArgumentException("Unable to find or access field " + name + ".");
-        }
-    }
+    public By getBy(String name) {return LocatorRegistry.of(getClass()).resolve(this, name);}
 
     public void scrollTo(By element) {
-        ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView(true)", getElement(element));
+        // find + scroll in one script instead of findElement followed by executeScript
+        if (batch(SCROLL, element)) {
+            savedRoundTrips.increment();
+            return;
+        }
+        withElement(element, e -> ((JavascriptExecutor) driver).executeScript("arguments[0].scrollIntoView(true)", e));
     }
 
     public void scrollTo(String element) {scrollTo(getBy(element));}
 
-    public String getColor(String inputField){return getElement(inputField).getCssValue("color");}
+    /**
+     * Scrolls the element into view with the batched {@link #scrollTo(By)}, then clicks it natively so the
+     * driver still checks that a user could click it (visible, enabled, not covered).
+     *
+     * @param element Locator of the element
+     */
+    public void scrollAndClick(By element) {
+        scrollTo(element);
+        click(element);
+    }
+
+    public void scrollAndClick(String element) {scrollAndClick(getBy(element));}
+
+    public String getColor(String inputField){return getColor(getBy(inputField));}
+
+    public String getColor(By inputField){return withElement(inputField, e -> e.getCssValue("color"));}
+
+    /**
+     * Reads the color of several elements with a single script.
+     * Values are normalized to the {@code rgba(...)} form returned by {@link WebElement#getCssValue(String)}.
+     *
+     * @param names Locator names
+     * @return Colors in the same order as the names
+     */
+    public List<String> getColors(String... names) {
+        List<By> locators = new ArrayList<>();
+        for (String name : names)
+            locators.add(getBy(name));
+        return getColors(locators);
+    }
+
+    public List<String> getColors(List<By> elements) {
+        List<Object> args = new ArrayList<>();
+        for (By element : elements) {
+            JsLocator locator = batching ? JsLocator.of(element) : null;
+            if (locator == null) {
+                args = null;
+                break;
+            }
+            args.add(locator.strategy);
+            args.add(locator.value);
+        }
+
+        List<String> colors = new ArrayList<>();
+        if (args != null && !elements.isEmpty()) {
+            try {
+                Object result = ((JavascriptExecutor) driver).executeScript(COLORS, args.toArray());
+                if (result instanceof List && !((List<?>) result).contains(null)) {
+                    for (Object color : (List<?>) result)
+                        colors.add(Color.fromString(String.valueOf(color)).asRgba());
+                    // findElement + getCssValue per element, against one script
+                    savedRoundTrips.add(2L * elements.size() - 1);
+                    return colors;
+                }
+            } catch (WebDriverException | IllegalArgumentException e) {
+                // Fall through to the native implementation
+            }
+        }
+        for (By element : elements)
+            colors.add(rgba(getColor(element)));
+        return colors;
+    }
 
-    public String getColor(By inputField){return getElement(inputField).getCssValue("color");}
+    // Same notation whether the colors were batched or not, values Color does not know are kept as they are
+    private static String rgba(String color) {
+        try {
+            return Color.fromString(color).asRgba();
+        } catch (IllegalArgumentException e) {
+            return color;
+        }
+    }
 
-    public WebElement getElement(By element){return driver.findElement(element);}
+    /**
+     * Looks the element up in the current document. Callers keep the element beyond the reach of the cache's
+     * stale handling, so this never hands out a cached copy; the fresh element does refresh the cache.
+     *
+     * @param element Locator of the element
+     * @return WebElement
+     */
+    public WebElement getElement(By element) {
+        WebElement found = driver.findElement(element);
+        if (cache != null) cache.put(element, found);
+        return found;
+    }
 
     public WebElement getElement(String name){return getElement(getBy(name));}
+
+    /**
+     * Drops every cached element of this page, eg. after changing the DOM through other means.
+     */
+    public void invalidate() {
+        if (cache != null) cache.clear();
+    }
+
+    /**
+     * Runs the action against the element, looking it up again once when a cached copy turned stale.
+     */
+    private <T> T withElement(By element, Function<WebElement, T> action) {
+        try {
+            return action.apply(cache == null ? driver.findElement(element) : cache.get(element, driver));
+        } catch (StaleElementReferenceException e) {
+            if (cache == null) throw e;
+            cache.invalidate(element);
+            return action.apply(getElement(element));
+        }
+    }
+
+    /**
+     * Runs an idempotent single-element script.
+     *
+     * @return false when the caller should fall back to native commands
+     */
+    private boolean batch(String script, By element) {
+        JsLocator locator = batching ? JsLocator.of(element) : null;
+        if (locator == null) return false;
+        try {
+            return Boolean.TRUE.equals(((JavascriptExecutor) driver).executeScript(script, locator.strategy, locator.value));
+        } catch (WebDriverException e) {
+            return false;
+        }
+    }
 }
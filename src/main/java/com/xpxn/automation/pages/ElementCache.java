@@ -0,0 +1,96 @@
+package com.xpxn.automation.pages;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Page scoped cache of located elements.
+ * The cache is cleared whenever the page's driver navigates or switches context, and single entries are
+ * dropped when the element turned stale, which also covers documents replaced by scripts or links.
+ * Cached elements are only used inside {@link BasePage}, which retries on staleness; they are never returned.
+ */
+final class ElementCache {
+    private final Map<By, WebElement> elements = new ConcurrentHashMap<>();
+
+    WebElement get(By by, WebDriver driver) {
+        WebElement element = elements.get(by);
+        if (element == null) {
+            element = driver.findElement(by);
+            elements.put(by, element);
+        }
+        return element;
+    }
+
+    void put(By by, WebElement element) {
+        elements.put(by, element);
+    }
+
+    void invalidate(By by) {
+        elements.remove(by);
+    }
+
+    void clear() {
+        elements.clear();
+    }
+
+    /**
+     * Wraps the driver so navigation and context switches clear this cache.
+     * The wrapper implements every interface of the original driver, so casts keep working.
+     *
+     * @param driver Driver used by the page
+     * @return Wrapped driver
+     */
+    WebDriver track(WebDriver driver) {
+        if (driver == null) return null;
+        return (WebDriver) wrap(driver, driver.getClass());
+    }
+
+    private Object wrap(Object target, Class<?> type) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        collect(type, interfaces);
+        InvocationHandler handler = (proxy, method, args) -> {
+            String name = method.getName();
+            if ("get".equals(name) || "switchTo".equals(name) || "close".equals(name) || "quit".equals(name))
+                clear();
+            Object result = invoke(method, target, args);
+            if ("navigate".equals(name) && result != null)
+                return wrapNavigation(result, method.getReturnType());
+            return result;
+        };
+        return Proxy.newProxyInstance(type.getClassLoader(), interfaces.toArray(new Class<?>[0]), handler);
+    }
+
+    private Object wrapNavigation(Object navigation, Class<?> type) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            clear();
+            return invoke(method, navigation, args);
+        });
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void collect(Class<?> type, Set<Class<?>> into) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Class<?> implemented : current.getInterfaces()) {
+                if (into.add(implemented))
+                    collect(implemented, into);
+            }
+        }
+    }
+}
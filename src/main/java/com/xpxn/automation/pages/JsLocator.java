@@ -0,0 +1,62 @@
+package com.xpxn.automation.pages;
+
+import org.openqa.selenium.By;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Translates a {@code By} into arguments for the {@link #FIND} script so lookups can be batched
+ * with other work in a single {@code executeScript} call.
+ */
+final class JsLocator {
+    /**
+     * Script prelude defining {@code find(strategy, value)}. Returns null when nothing matches.
+     */
+    static final String FIND =
+            "function find(s, v) {" +
+            "  switch (s) {" +
+            "    case 'css': return document.querySelector(v);" +
+            "    case 'id': return document.getElementById(v);" +
+            "    case 'name': return document.getElementsByName(v)[0] || null;" +
+            "    case 'class': return document.getElementsByClassName(v)[0] || null;" +
+            "    case 'tag': return document.getElementsByTagName(v)[0] || null;" +
+            "    case 'xpath': return document.evaluate(v, document, null, 9, null).singleNodeValue;" +
+            "  }" +
+            "  return null;" +
+            "}";
+
+    private static final Map<Class<? extends By>, String> STRATEGIES = new HashMap<>();
+
+    static {
+        STRATEGIES.put(By.ByCssSelector.class, "css");
+        STRATEGIES.put(By.ById.class, "id");
+        STRATEGIES.put(By.ByName.class, "name");
+        STRATEGIES.put(By.ByClassName.class, "class");
+        STRATEGIES.put(By.ByTagName.class, "tag");
+        STRATEGIES.put(By.ByXPath.class, "xpath");
+    }
+
+    final String strategy;
+    final String value;
+
+    private JsLocator(String strategy, String value) {
+        this.strategy = strategy;
+        this.value = value;
+    }
+
+    /**
+     * Only Selenium's own locator types are translated, their {@code toString()} is {@code By.<strategy>: <value>}.
+     * Subclasses and custom {@code By} implementations may find elements differently and stay on the native path.
+     *
+     * @param by Locator to translate
+     * @return JsLocator, or null when the strategy has no script equivalent (eg. link text, custom types)
+     */
+    static JsLocator of(By by) {
+        String strategy = STRATEGIES.get(by.getClass());
+        if (strategy == null) return null;
+        String description = by.toString();
+        int split = description.indexOf(": ");
+        return split < 0 ? null : new JsLocator(strategy, description.substring(split + 2));
+    }
+}
@@ -0,0 +1,279 @@
+package com.xpxn.automation.pages;
+
+import com.xpxn.automation.config.Configuration;
+import com.xpxn.automation.config.DriverFactory;
+import com.xpxn.automation.network.FixtureServer;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Times every {@code By} field of page objects in the live DOM and proposes shorter selectors that match exactly
+ * the same element (id and attribute anchors, descendant chains with the redundant steps removed).
+ * Locators sharing a long descendant prefix are reported as candidates for scoping under one container.
+ * <p>
+ * {@link #main(String[])} runs against the local fixture page and writes {@code target/locator-report.md}:
+ * {@code java -cp ... com.xpxn.automation.pages.LocatorProfiler [page classes...]}
+ */
+public final class LocatorProfiler {
+    private static final Logger logger = LoggerFactory.getLogger(LocatorProfiler.class);
+    private static final int PREFIX_PARTS = 3;
+
+    /**
+     * Arguments: strategy, value, runs. Returns the match count, the mean lookup time in microseconds and the
+     * equivalent css candidates with their own timings.
+     */
+    private static final String PROFILE = JsLocator.FIND +
+            "var s = arguments[0], v = arguments[1], runs = arguments[2];" +
+            "function all(s, v) {" +
+            "  switch (s) {" +
+            "    case 'css': return document.querySelectorAll(v);" +
+            "    case 'id': var e = document.getElementById(v); return e ? [e] : [];" +
+            "    case 'name': return document.getElementsByName(v);" +
+            "    case 'class': return document.getElementsByClassName(v);" +
+            "    case 'tag': return document.getElementsByTagName(v);" +
+            "    case 'xpath':" +
+            "      var r = document.evaluate(v, document, null, 7, null), out = [];" +
+            "      for (var i = 0; i < r.snapshotLength; i++) out.push(r.snapshotItem(i));" +
+            "      return out;" +
+            "  }" +
+            "  return [];" +
+            "}" +
+            "var now = window.performance && performance.now ? function() { return performance.now(); } : function() { return Date.now(); };" +
+            "function time(fn) { var t0 = now(); for (var i = 0; i < runs; i++) fn(); return (now() - t0) * 1000 / runs; }" +
+            "var matches = all(s, v), target = matches.length ? matches[0] : null;" +
+            "var result = {matches: matches.length, us: time(function() { find(s, v); }), candidates: []};" +
+            "if (!target) return result;" +
+            "function esc(x) { return window.CSS && CSS.escape ? CSS.escape(x) : x.replace(/([^\\w-])/g, '\\\\$1'); }" +
+            "function quote(x) { return '\"' + x.replace(/\\\\/g, '\\\\\\\\').replace(/\"/g, '\\\\\"') + '\"'; }" +
+            // Both lists are in document order, a proposal has to match the very same nodes
+            "function same(css) {" +
+            "  try {" +
+            "    var m = document.querySelectorAll(css);" +
+            "    if (m.length !== matches.length) return false;" +
+            "    for (var i = 0; i < m.length; i++) if (m[i] !== matches[i]) return false;" +
+            "    return true;" +
+            "  } catch (e) { return false; }" +
+            "}" +
+            "var seen = {};" +
+            "function add(css) {" +
+            "  if (css === v || seen[css] || !same(css)) return false;" +
+            "  seen[css] = true;" +
+            "  result.candidates.push({css: css, us: time(function() { document.querySelector(css); })});" +
+            "  return true;" +
+            "}" +
+            "var tag = target.tagName.toLowerCase();" +
+            "if (target.id) add('#' + esc(target.id));" +
+            "for (var i = 0; i < target.attributes.length; i++) {" +
+            "  var a = target.attributes[i];" +
+            "  if (a.name === 'name' || a.name === 'href' || a.name === 'title' || a.name === 'aria-label' || a.name.indexOf('data-') === 0)" +
+            "    add(tag + '[' + a.name + '=' + quote(a.value) + ']');" +
+            "}" +
+            // Descendant chains: drop every step that is not needed to single out the same element
+            "var parts = s === 'css' && !/[>+~,]/.test(v) ? v.trim().split(/\\s+/) : null;" +
+            "if (parts) {" +
+            "  for (var i = 0; i < parts.length - 1 && parts.length > 1; ) {" +
+            "    var shorter = parts.slice(0, i).concat(parts.slice(i + 1));" +
+            "    if (same(shorter.join(' '))) parts = shorter; else i++;" +
+            "  }" +
+            "  add(parts.join(' '));" +
+            "}" +
+            // Nearest ancestor with an id as anchor
+            "for (var p = target.parentElement; p; p = p.parentElement) {" +
+            "  if (!p.id) continue;" +
+            "  if (!add('#' + esc(p.id) + ' ' + tag) && parts) add('#' + esc(p.id) + ' ' + parts.join(' '));" +
+            "  break;" +
+            "}" +
+            "return result;";
+
+    private LocatorProfiler() {
+    }
+
+    /**
+     * Profiles every locator of the given pages on the document currently loaded in the driver.
+     *
+     * @param driver Driver implementing {@link JavascriptExecutor}, already on the page under test
+     * @param runs   Lookups per selector used to average the timing
+     * @param pages  Page object classes with a {@code (WebDriver)} constructor
+     * @return Results in declaration order of the pages
+     */
+    @SafeVarargs
+    public static List<Result> profile(WebDriver driver, int runs, Class<? extends BasePage>... pages) {
+        List<Result> results = new ArrayList<>();
+        for (Class<? extends BasePage> page : pages) {
+            BasePage instance;
+            try {
+                instance = page.getConstructor(WebDriver.class).newInstance(driver);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Page " + page.getName() + " needs a public (WebDriver) constructor.", e);
+            }
+            LocatorRegistry registry = LocatorRegistry.of(page);
+            for (String name : new TreeSet<>(registry.names()))
+                results.add(measure(driver, runs, page.getSimpleName() + "." + name, registry.resolve(instance, name)));
+        }
+        return results;
+    }
+
+    /**
+     * Markdown report with the slowest and the least stable locators first, plus shared prefixes worth scoping.
+     *
+     * @param results Output of {@link #profile(WebDriver, int, Class[])}
+     * @return String
+     */
+    public static String report(List<Result> results) {
+        StringBuilder out = new StringBuilder("# Locator report\n\n## Slowest\n\n")
+                .append("| locator | matches | lookup | proposal | lookup |\n|---|---|---|---|---|\n");
+        List<Result> slowest = new ArrayList<>(results);
+        slowest.sort(Comparator.comparingDouble((Result r) -> r.micros).reversed());
+        for (Result r : slowest)
+            out.append(row(r));
+
+        out.append("\n## Least stable\n\n| locator | score | selector | proposal |\n|---|---|---|---|\n");
+        List<Result> fragile = new ArrayList<>(results);
+        fragile.sort(Comparator.comparingInt((Result r) -> r.instability).reversed());
+        for (Result r : fragile) {
+            Candidate best = r.best();
+            out.append("| ").append(r.name).append(" | ").append(r.instability).append(" | `").append(r.selector)
+                    .append("` | ").append(best == null ? "-" : "`" + best.css + "` (" + instability(best.css, 1) + ")").append(" |\n");
+        }
+
+        Map<String, List<String>> prefixes = sharedPrefixes(results);
+        if (!prefixes.isEmpty()) {
+            out.append("\n## Shared prefixes\n\nLocate the container once and search below it.\n\n");
+            for (Map.Entry<String, List<String>> entry : prefixes.entrySet())
+                out.append("- `").append(entry.getKey()).append("`: ").append(String.join(", ", entry.getValue())).append('\n');
+        }
+        return out.toString();
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Class<? extends BasePage>> pages = new ArrayList<>();
+        for (String name : args.length > 0 ? Arrays.asList(args) : Arrays.asList("pages.GamasutraBasePage", "pages.ConsolePcPage", "pages.HomePage"))
+            pages.add(Class.forName(name).asSubclass(BasePage.class));
+
+        String env = Configuration.appEnv().expect();
+        try (FixtureServer server = new FixtureServer("fixtures")) {
+            WebDriver driver = DriverFactory.create(env, DriverFactory.setup(env));
+            try {
+                driver.navigate().to(server.url("/"));
+                @SuppressWarnings("unchecked")
+                List<Result> results = profile(driver, 200, pages.toArray(new Class[0]));
+                Path output = Paths.get("target", "locator-report.md");
+                Files.createDirectories(output.getParent());
+                Files.write(output, report(results).getBytes(StandardCharsets.UTF_8));
+                logger.info("Locator report written to " + output.toAbsolutePath());
+            } finally {
+                DriverFactory.quit(driver);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Result measure(WebDriver driver, int runs, String name, By by) {
+        JsLocator locator = JsLocator.of(by);
+        if (locator == null) return new Result(name, by.toString(), -1, 0, Collections.<Candidate>emptyList());
+        Map<String, Object> raw = (Map<String, Object>) ((JavascriptExecutor) driver)
+                .executeScript(PROFILE, locator.strategy, locator.value, runs);
+        List<Candidate> candidates = new ArrayList<>();
+        for (Map<String, Object> candidate : (List<Map<String, Object>>) raw.get("candidates"))
+            candidates.add(new Candidate(String.valueOf(candidate.get("css")), ((Number) candidate.get("us")).doubleValue()));
+        return new Result(name, by.toString(), ((Number) raw.get("matches")).intValue(),
+                ((Number) raw.get("us")).doubleValue(), candidates);
+    }
+
+    private static String row(Result r) {
+        Candidate best = r.best();
+        return "| " + r.name + " | " + r.matches + " | " + micros(r.micros) + " | "
+                + (best == null ? "-" : "`" + best.css + "`") + " | " + (best == null ? "-" : micros(best.micros)) + " |\n";
+    }
+
+    private static String micros(double value) {
+        return String.format(Locale.ROOT, "%.1fus", value);
+    }
+
+    /**
+     * Higher is more fragile: every descendant step, positional index and unmatched or ambiguous lookup adds up.
+     */
+    static int instability(String selector, int matches) {
+        String value = selector.replaceFirst("^By\\.\\w+: ", "");
+        int score = value.trim().split("\\s+").length;
+        score += 3 * (value.split(":nth-|\\[\\d+]", -1).length - 1);
+        if (selector.startsWith("By.xpath")) score += value.split("/", -1).length - 1;
+        if (matches == 0) score += 100;
+        else if (matches > 1) score += 10;
+        return score;
+    }
+
+    static Map<String, List<String>> sharedPrefixes(List<Result> results) {
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (Result r : results) {
+            if (!r.selector.startsWith("By.cssSelector: ")) continue;
+            String[] parts = r.selector.substring("By.cssSelector: ".length()).trim().split("\\s+");
+            if (parts.length <= PREFIX_PARTS) continue;
+            String prefix = String.join(" ", Arrays.copyOfRange(parts, 0, parts.length - 2));
+            groups.computeIfAbsent(prefix, k -> new ArrayList<>()).add(r.name);
+        }
+        groups.values().removeIf(names -> names.size() < 2);
+        return groups;
+    }
+
+    public static final class Result {
+        public final String name;
+        public final String selector;
+        public final int matches;
+        public final double micros;
+        public final int instability;
+        public final List<Candidate> candidates;
+
+        Result(String name, String selector, int matches, double micros, List<Candidate> candidates) {
+            this.name = name;
+            this.selector = selector;
+            this.matches = matches;
+            this.micros = micros;
+            this.instability = instability(selector, matches);
+            this.candidates = candidates;
+        }
+
+        /**
+         * @return The most stable proposal, the fastest one on a tie, or null without proposals
+         */
+        public Candidate best() {
+            Candidate best = null;
+            for (Candidate candidate : candidates) {
+                if (best == null) {
+                    best = candidate;
+                    continue;
+                }
+                int compare = Integer.compare(instability(candidate.css, 1), instability(best.css, 1));
+                if (compare < 0 || compare == 0 && candidate.micros < best.micros) best = candidate;
+            }
+            return best;
+        }
+    }
+
+    public static final class Candidate {
+        public final String css;
+        public final double micros;
+
+        Candidate(String css, double micros) {
+            this.css = css;
+            this.micros = micros;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.xpxn.automation.pages;
+
+import org.openqa.selenium.By;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Per page class index of its {@code By} fields.
+ * Reflection happens once per class, lookups afterwards are a map hit and a method handle call.
+ */
+final class LocatorRegistry {
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<LocatorRegistry> registries = new ClassValue<LocatorRegistry>() {
+        @Override
+        protected LocatorRegistry computeValue(Class<?> type) {
+            return new LocatorRegistry(type);
+        }
+    };
+
+    private final Class<?> page;
+    private final Map<String, MethodHandle> locators;
+    private final Set<String> others;
+
+    private LocatorRegistry(Class<?> page) {
+        this.page = page;
+        Map<String, MethodHandle> found = new HashMap<>();
+        Set<String> skipped = new TreeSet<>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        // Walk up to BasePage, fields declared closer to the concrete page win.
+        for (Class<?> type = page; type != null && type != BasePage.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                String name = field.getName();
+                if (field.isSynthetic() || found.containsKey(name) || skipped.contains(name)) continue;
+                if (!By.class.isAssignableFrom(field.getType()) || Modifier.isStatic(field.getModifiers())) {
+                    skipped.add(name);
+                    continue;
+                }
+                field.setAccessible(true);
+                try {
+                    found.put(name, lookup.unreflectGetter(field).asType(GETTER));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Unable to access locator " + type.getName() + "." + name + ".", e);
+                }
+            }
+        }
+        this.locators = Collections.unmodifiableMap(found);
+        this.others = Collections.unmodifiableSet(skipped);
+    }
+
+    static LocatorRegistry of(Class<?> page) {
+        return registries.get(page);
+    }
+
+    /**
+     * Names of every locator declared on the page.
+     *
+     * @return Set of field names
+     */
+    Set<String> names() {
+        return locators.keySet();
+    }
+
+    /**
+     * Reads the named locator from the given page instance.
+     *
+     * @param instance Page object to read from
+     * @param name     Field name
+     * @return By
+     * @throws IllegalArgumentException Name is unknown or does not refer to a {@code By}
+     */
+    By resolve(Object instance, String name) {
+        MethodHandle getter = locators.get(name);
+        if (getter == null) {
+            if (others.contains(name))
+                throw new IllegalArgumentException("Field " + name + " is not of expected type (By).");
+            throw new IllegalArgumentException("Unable to find or access field " + name + " on "
+                    + page.getSimpleName() + ". Known locators: " + new TreeSet<>(locators.keySet()));
+        }
+        try {
+            Object value = (Object) getter.invokeExact(instance);
+            if (value == null)
+                throw new IllegalArgumentException("Field " + name + " is not initialized.");
+            return (By) value;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to read locator " + name + ".", e);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.xpxn.automation.session;
+
+import com.xpxn.automation.config.Configuration;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Failure artifacts (screenshot, page source, browser console) written off the test thread.
+ * <p>
+ * The test thread only pulls the raw bytes from the browser. Compressing and writing happen on a small background
+ * pool with a bounded queue: when it is full the test thread waits up to {@code env.capture.waitMs} (default 2000)
+ * and the artifact is dropped after that. Artifacts larger than {@code env.capture.maxKb} (default 4096) are
+ * truncated (text) or skipped (screenshot). Files go below {@code env.capture.dir} (default target/failures).
+ */
+public final class FailureCapture {
+    private static final Logger logger = LoggerFactory.getLogger(FailureCapture.class);
+    private static final AtomicInteger threads = new AtomicInteger();
+    private static final LongAdder dropped = new LongAdder();
+    private static final LongAdder written = new LongAdder();
+    private static ThreadPoolExecutor writers;
+    private static Semaphore room;
+
+    private FailureCapture() {
+    }
+
+    /**
+     * Grabs the browser state and queues it for writing. Never throws.
+     *
+     * @param driver Driver of the failed test
+     * @param name   Artifact name, eg. the test class and method
+     */
+    public static void capture(WebDriver driver, String name) {
+        if (driver == null) return;
+        long start = System.nanoTime();
+        byte[] screenshot = null;
+        String source = null;
+        StringBuilder console = null;
+        try {
+            if (driver instanceof TakesScreenshot)
+                screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+        } catch (RuntimeException e) {
+            logger.debug("Unable to take failure screenshot.", e);
+        }
+        try {
+            source = driver.getPageSource();
+        } catch (RuntimeException e) {
+            logger.debug("Unable to read page source.", e);
+        }
+        try {
+            console = new StringBuilder();
+            for (LogEntry entry : driver.manage().logs().get(LogType.BROWSER))
+                console.append(entry).append('\n');
+        } catch (RuntimeException e) {
+            // Not every driver exposes the browser log
+            console = null;
+        }
+        submit(name, new Artifact(name, screenshot, source, console == null ? null : console.toString()));
+        logger.debug("Captured failure state of " + name + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+    }
+
+    /**
+     * Waits for queued artifacts to be written, eg. at suite end.
+     *
+     * @param timeoutSeconds Maximum wait
+     */
+    public static void drain(long timeoutSeconds) {
+        ThreadPoolExecutor pool;
+        synchronized (FailureCapture.class) {
+            pool = writers;
+            writers = null;
+        }
+        if (pool == null) return;
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(timeoutSeconds, TimeUnit.SECONDS))
+                logger.warn(pool.getQueue().size() + " failure artifact(s) were not written in time.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static String stats() {
+        return "failure capture: written=" + written.sum() + ", dropped=" + dropped.sum();
+    }
+
+    /**
+     * Runs the task on the writer pool, waiting up to {@code env.capture.waitMs} for room.
+     *
+     * @param name Artifact name for the log
+     * @param task Writes the artifact
+     */
+    static void submit(String name, Runnable task) {
+        ThreadPoolExecutor pool;
+        Semaphore slots;
+        synchronized (FailureCapture.class) {
+            pool = pool();
+            slots = room;
+        }
+        long waitMillis = Long.parseLong(Configuration.envCaptureWaitMs().get("2000"));
+        try {
+            // Back-pressure: wait for room instead of writing on the test thread
+            if (!slots.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+                dropped.increment();
+                logger.warn("Failure capture queue is full, dropping artifacts of " + name);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.increment();
+            return;
+        }
+        try {
+            pool.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Drained concurrently, the pool takes no more work
+            slots.release();
+            dropped.increment();
+            logger.warn("Failure capture is shut down, dropping artifacts of " + name);
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor pool() {
+        if (writers == null) {
+            int size = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 2));
+            // The queue is unbounded, room bounds the work in flight to the queue size plus the running writers
+            room = new Semaphore(Integer.parseInt(Configuration.envCaptureQueue().get("16")) + size);
+            writers = new ThreadPoolExecutor(size, size, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "failure-capture-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+            writers.allowCoreThreadTimeOut(true);
+        }
+        return writers;
+    }
+
+    private static final class Artifact implements Runnable {
+        private final String name;
+        private final byte[] screenshot;
+        private final String source;
+        private final String console;
+
+        private Artifact(String name, byte[] screenshot, String source, String console) {
+            this.name = name;
+            this.screenshot = screenshot;
+            this.source = source;
+            this.console = console;
+        }
+
+        @Override
+        public void run() {
+            long maxBytes = Long.parseLong(Configuration.envCaptureMaxKb().get("4096")) * 1024;
+            Path directory = Paths.get(Configuration.envCaptureDir().get("target/failures"),
+                    name.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + System.currentTimeMillis());
+            try {
+                Files.createDirectories(directory);
+                if (screenshot != null) {
+                    // PNG is already compressed
+                    if (screenshot.length <= maxBytes) Files.write(directory.resolve("screenshot.png"), screenshot);
+                    else logger.warn("Skipping " + screenshot.length / 1024 + "KB screenshot of " + name + ", above the size cap.");
+                }
+                if (source != null) gzip(directory.resolve("page.html.gz"), source, maxBytes);
+                if (console != null && !console.isEmpty()) gzip(directory.resolve("console.log.gz"), console, maxBytes);
+                written.increment();
+                logger.info("Failure artifacts of " + name + " written to " + directory);
+            } catch (IOException e) {
+                logger.warn("Unable to write failure artifacts of " + name + ".", e);
+            }
+        }
+
+        private static void gzip(Path file, String text, long maxBytes) throws IOException {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+                out.write(bytes, 0, (int) Math.min(bytes.length, maxBytes));
+            }
+        }
+    }
+}
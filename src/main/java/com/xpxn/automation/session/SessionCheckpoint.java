@@ -0,0 +1,204 @@
+package com.xpxn.automation.session;
+
+import com.xpxn.automation.metrics.Histograms;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Snapshot of the browser state a test starts from: url, cookies, local/session storage and scroll position.
+ * Checkpoints are kept in memory per driver, so a class can build its starting state once and restore it
+ * before every test instead of repeating the setup steps.
+ */
+public final class SessionCheckpoint {
+    public static final String GROUP = "session";
+
+    private static final Map<WebDriver, Map<String, SessionCheckpoint>> checkpoints = new WeakHashMap<>();
+
+    private static final String CAPTURE =
+            "function dump(s) { var o = {}; try { for (var i = 0; i < s.length; i++) { var k = s.key(i); o[k] = s.getItem(k); } } catch (e) {} return o; }" +
+            "return {local: dump(window.localStorage), session: dump(window.sessionStorage)," +
+            " x: window.pageXOffset || 0, y: window.pageYOffset || 0};";
+    // Writes only the differences, returns whether anything changed
+    private static final String RESTORE_STORAGE =
+            "function load(s, o) { var changed = false; try {" +
+            "  for (var i = s.length - 1; i >= 0; i--) { var k = s.key(i); if (!o.hasOwnProperty(k)) { s.removeItem(k); changed = true; } }" +
+            "  for (var k in o) if (o.hasOwnProperty(k) && s.getItem(k) !== o[k]) { s.setItem(k, o[k]); changed = true; }" +
+            "} catch (e) {} return changed; }" +
+            "var local = load(window.localStorage, arguments[0]), session = load(window.sessionStorage, arguments[1]);" +
+            "return local || session;";
+
+    private final String url;
+    private final Set<Cookie> cookies;
+    private final Map<String, String> local;
+    private final Map<String, String> session;
+    private final long scrollX;
+    private final long scrollY;
+
+    private SessionCheckpoint(String url, Set<Cookie> cookies, Map<String, String> local,
+                              Map<String, String> session, long scrollX, long scrollY) {
+        this.url = url;
+        this.cookies = cookies;
+        this.local = local;
+        this.session = session;
+        this.scrollX = scrollX;
+        this.scrollY = scrollY;
+    }
+
+    /**
+     * Captures the current state of the browser.
+     *
+     * @param driver Driver to capture
+     * @return SessionCheckpoint
+     */
+    public static SessionCheckpoint capture(WebDriver driver) {
+        long start = System.nanoTime();
+        Map<String, String> local = Collections.emptyMap();
+        Map<String, String> session = Collections.emptyMap();
+        long x = 0, y = 0;
+        if (driver instanceof JavascriptExecutor) {
+            Object result = ((JavascriptExecutor) driver).executeScript(CAPTURE);
+            if (result instanceof Map) {
+                Map<?, ?> state = (Map<?, ?>) result;
+                local = strings(state.get("local"));
+                session = strings(state.get("session"));
+                x = number(state.get("x"));
+                y = number(state.get("y"));
+            }
+        }
+        SessionCheckpoint checkpoint = new SessionCheckpoint(driver.getCurrentUrl(),
+                Collections.unmodifiableSet(new HashSet<>(driver.manage().getCookies())), local, session, x, y);
+        Histograms.get(GROUP, "capture").record(System.nanoTime() - start);
+        return checkpoint;
+    }
+
+    /**
+     * Brings the browser back to this checkpoint with as few page loads as possible: none when the browser is
+     * already on the checkpoint url with the same cookies and storage, one when only the state or the path on
+     * the same origin differ. Only a different origin with state to restore needs two, as cookies and storage
+     * can only be written for the loaded origin. Restores are recorded in the {@value #GROUP} histogram group
+     * by the amount of page loads they cost.
+     *
+     * @param driver Driver to restore
+     */
+    public void restore(WebDriver driver) {
+        long start = System.nanoTime();
+        String current = driver.getCurrentUrl();
+        int loads = 0;
+        if (!Objects.equals(origin(current), origin(url))) {
+            driver.navigate().to(url);
+            loads++;
+        }
+        // The page has to load again to see changed state
+        if (sync(driver) || loads == 0 && !url.equals(current)) {
+            driver.navigate().to(url);
+            loads++;
+        }
+        if ((scrollX != 0 || scrollY != 0) && driver instanceof JavascriptExecutor)
+            ((JavascriptExecutor) driver).executeScript("window.scrollTo(arguments[0], arguments[1]);", scrollX, scrollY);
+        Histograms.get(GROUP, "restore (" + loads + (loads == 1 ? " page load)" : " page loads)"))
+                .record(System.nanoTime() - start);
+    }
+
+    /**
+     * Writes the cookies and storage of this checkpoint for the loaded origin.
+     *
+     * @return true when anything differed
+     */
+    private boolean sync(WebDriver driver) {
+        boolean changed = false;
+        if (!cookies.equals(new HashSet<>(driver.manage().getCookies()))) {
+            changed = true;
+            driver.manage().deleteAllCookies();
+            for (Cookie cookie : cookies) {
+                try {
+                    driver.manage().addCookie(cookie);
+                } catch (WebDriverException e) {
+                    // Cookies of other domains can't be set from this origin
+                }
+            }
+        }
+        if (driver instanceof JavascriptExecutor)
+            changed |= Boolean.TRUE.equals(((JavascriptExecutor) driver).executeScript(RESTORE_STORAGE, local, session));
+        return changed;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Captures the current state of the driver and stores it under the given name.
+     *
+     * @param driver Driver to capture
+     * @param name   Checkpoint name
+     * @return SessionCheckpoint
+     */
+    public static SessionCheckpoint save(WebDriver driver, String name) {
+        SessionCheckpoint checkpoint = capture(driver);
+        synchronized (checkpoints) {
+            checkpoints.computeIfAbsent(driver, d -> new HashMap<>()).put(name, checkpoint);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Restores a checkpoint previously stored for this driver.
+     *
+     * @param driver Driver to restore
+     * @param name   Checkpoint name
+     * @return false when no checkpoint with that name exists for the driver
+     */
+    public static boolean restore(WebDriver driver, String name) {
+        SessionCheckpoint checkpoint;
+        synchronized (checkpoints) {
+            Map<String, SessionCheckpoint> saved = checkpoints.get(driver);
+            checkpoint = saved == null ? null : saved.get(name);
+        }
+        if (checkpoint == null) return false;
+        checkpoint.restore(driver);
+        return true;
+    }
+
+    /**
+     * Forgets every checkpoint of the driver, eg. when it goes back to a pool.
+     *
+     * @param driver Driver whose checkpoints to drop
+     */
+    public static void discard(WebDriver driver) {
+        synchronized (checkpoints) {
+            checkpoints.remove(driver);
+        }
+    }
+
+    private static String origin(String url) {
+        try {
+            URI uri = URI.create(url);
+            return uri.getScheme() + "://" + uri.getAuthority();
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
+
+    private static Map<String, String> strings(Object value) {
+        if (!(value instanceof Map)) return Collections.emptyMap();
+        Map<String, String> out = new HashMap<>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+            out.put(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+        return Collections.unmodifiableMap(out);
+    }
+
+    private static long number(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+}
@@ -0,0 +1,239 @@
+package com.xpxn.automation.visual;
+
+import com.xpxn.automation.config.Configuration;
+import com.xpxn.automation.metrics.Histograms;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * Baseline images below {@code env.visual.baselines} (default src/test/resources/baselines), one png per name.
+ * <p>
+ * {@code hashes.properties} next to them keeps the dimensions, content hash and perceptual hash of every baseline,
+ * with the size, modification time and CRC-32 of its png. While the png is unchanged a screenshot identical to
+ * it is accepted, and one further away than {@code env.visual.hashDistance} (default 10 of 64 bits) is rejected,
+ * without decoding the png; a png replaced by other means is decoded and hashed again. Everything in between is
+ * diffed with {@code env.visual.tolerance} per channel (default 0) and passes while at most
+ * {@code env.visual.maxDiff} of the pixels (default 0) differ.
+ * Missing baselines are recorded from the current image, or fail with {@code env.visual.require=true} (eg. on CI).
+ * {@code env.visual.update=true} re-records all of them.
+ */
+public final class Baselines {
+    private static final Logger logger = LoggerFactory.getLogger(Baselines.class);
+    private static final String HASHES = "hashes.properties";
+    private static Baselines shared;
+
+    private final Path directory;
+    private final Properties hashes = new Properties();
+    private final int tolerance;
+    private final double maxDiff;
+    private final int maxDistance;
+    private final boolean update;
+    private final boolean require;
+    private volatile boolean dirty = false;
+
+    /**
+     * @param directory   Baseline folder
+     * @param tolerance   Largest channel difference counted as equal, 0-255
+     * @param maxDiff     Largest share of different pixels still matching, 0-1
+     * @param maxDistance Largest perceptual hash distance that is still diffed, 0-64
+     * @param update      Re-record every baseline instead of comparing
+     * @param require     Fail on missing baselines instead of recording them
+     */
+    public Baselines(Path directory, int tolerance, double maxDiff, int maxDistance, boolean update, boolean require) {
+        this.directory = directory;
+        this.tolerance = tolerance;
+        this.maxDiff = maxDiff;
+        this.maxDistance = maxDistance;
+        this.update = update;
+        this.require = require;
+        Path index = directory.resolve(HASHES);
+        if (Files.isReadable(index)) {
+            try (InputStream in = Files.newInputStream(index)) {
+                hashes.load(in);
+            } catch (IOException e) {
+                logger.warn("Unable to read baseline hashes '" + index + "', baselines are decoded.", e);
+            }
+        }
+    }
+
+    /**
+     * Baselines configured through the {@code env.visual.*} properties.
+     *
+     * @return Baselines
+     */
+    public static synchronized Baselines shared() {
+        if (shared == null) {
+            shared = new Baselines(
+                    Paths.get(Configuration.envVisualBaselines().get("src/test/resources/baselines")),
+                    Integer.parseInt(Configuration.envVisualTolerance().get("0")),
+                    Double.parseDouble(Configuration.envVisualMaxDiff().get("0")),
+                    Integer.parseInt(Configuration.envVisualHashDistance().get("10")),
+                    Boolean.parseBoolean(Configuration.envVisualUpdate().get("false")),
+                    Boolean.parseBoolean(Configuration.envVisualRequire().get("false")));
+        }
+        return shared;
+    }
+
+    /**
+     * Writes the hashes of baselines recorded or decoded during this run, if the shared baselines were used.
+     */
+    public static synchronized void saveShared() {
+        if (shared != null) shared.save();
+    }
+
+    /**
+     * Compares the image with the baseline of the given name.
+     *
+     * @param name   Baseline name, may contain folders
+     * @param actual Current image
+     * @return Check
+     * @throws IOException Unable to read or record the baseline
+     */
+    public Check check(String name, PixelImage actual) throws IOException {
+        long start = System.nanoTime();
+        Path file = directory.resolve(name + ".png");
+        try {
+            if (!update && !Files.exists(file) && require)
+                return new Check(name, Outcome.MISSING, null, null, -1);
+            if (update || !Files.exists(file)) {
+                record(name, file, actual);
+                return new Check(name, Outcome.RECORDED, null, null, -1);
+            }
+
+            String[] stored = stored(name, file);
+            PixelImage expected = null;
+            if (stored == null) {
+                expected = PixelImage.read(file);
+                stored = sign(name, file, expected);
+            }
+            boolean sameSize = stored[0].equals(actual.getWidth() + "x" + actual.getHeight());
+            if (sameSize && Long.parseUnsignedLong(stored[1], 16) == actual.contentHash())
+                return new Check(name, Outcome.IDENTICAL, expected, null, 0);
+            int distance = Long.bitCount(Long.parseUnsignedLong(stored[2], 16) ^ actual.perceptualHash());
+            // Decoded on failure too, the report highlights the differences
+            if (expected == null) expected = PixelImage.read(file);
+            if (!sameSize || distance > maxDistance)
+                return new Check(name, Outcome.DIFFERENT, expected, null, distance);
+
+            VisualDiff diff = VisualDiff.compare(expected, actual, tolerance);
+            return new Check(name, diff.ratio() <= maxDiff ? Outcome.MATCHING : Outcome.DIFFERENT, expected, diff, distance);
+        } finally {
+            Histograms.get(VisualAssert.GROUP, "baseline").record(System.nanoTime() - start);
+        }
+    }
+
+    public int getTolerance() {
+        return tolerance;
+    }
+
+    private void record(String name, Path file, PixelImage actual) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), "baseline", ".tmp");
+        ImageIO.write(actual.toImage(), "png", tmp.toFile());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        sign(name, file, actual);
+        logger.info("Recorded visual baseline " + file);
+    }
+
+    private synchronized void save() {
+        if (!dirty) return;
+        dirty = false;
+        try {
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, "hashes", ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                hashes.store(out, "Baseline dimensions, content hash, perceptual hash, png size, mtime and crc");
+            }
+            Files.move(tmp, directory.resolve(HASHES), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Unable to write baseline hashes to '" + directory + "'.", e);
+        }
+    }
+
+    /**
+     * @return Dimensions, content hash and perceptual hash stored for the png, or null when the png was changed
+     * since or the entry was written by an older version
+     */
+    private String[] stored(String name, Path file) throws IOException {
+        String value = hashes.getProperty(name);
+        String[] parts = value == null ? null : value.split(":");
+        if (parts == null || parts.length != 6) return null;
+        long size = Files.size(file);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        if (!parts[3].equals(String.valueOf(size))) return null;
+        if (!parts[4].equals(String.valueOf(modified))) {
+            // Fresh checkouts touch every file, the checksum tells whether the content changed
+            if (!parts[5].equals(Long.toHexString(crc(file)))) return null;
+            parts[4] = String.valueOf(modified);
+            hashes.setProperty(name, String.join(":", parts));
+            dirty = true;
+        }
+        return parts;
+    }
+
+    private String[] sign(String name, Path file, PixelImage image) throws IOException {
+        String[] parts = {image.getWidth() + "x" + image.getHeight(), Long.toHexString(image.contentHash()),
+                Long.toHexString(image.perceptualHash()), String.valueOf(Files.size(file)),
+                String.valueOf(Files.getLastModifiedTime(file).toMillis()), Long.toHexString(crc(file))};
+        hashes.setProperty(name, String.join(":", parts));
+        dirty = true;
+        return parts;
+    }
+
+    private static long crc(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(file));
+        return crc.getValue();
+    }
+
+    public enum Outcome {
+        /** Same pixels, decided from the hashes alone */
+        IDENTICAL,
+        /** Differences within the tolerance */
+        MATCHING,
+        DIFFERENT,
+        /** No baseline existed, the image became the baseline */
+        RECORDED,
+        /** No baseline existed and {@code env.visual.require} forbids recording one */
+        MISSING;
+
+        public boolean passed() {
+            return this != DIFFERENT && this != MISSING;
+        }
+    }
+
+    public static final class Check {
+        public final String name;
+        public final Outcome outcome;
+        /** Decoded baseline, null when the hashes were enough */
+        public final PixelImage expected;
+        /** Pixel diff, null when it was skipped */
+        public final VisualDiff diff;
+        /** Perceptual hash distance, -1 when unknown */
+        public final int distance;
+
+        private Check(String name, Outcome outcome, PixelImage expected, VisualDiff diff, int distance) {
+            this.name = name;
+            this.outcome = outcome;
+            this.expected = expected;
+            this.diff = diff;
+            this.distance = distance;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + outcome + (diff != null ? ", " + diff : "") + (distance > 0 ? ", perceptual distance " + distance : "");
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.xpxn.automation.visual;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Read-only view on packed RGB pixels in a plain {@code int[]}, the form every comparison in this package works on.
+ * Int based images are wrapped without copying and {@link #region(int, int, int, int)} only creates a new view,
+ * so cropping an element out of a screenshot costs nothing. Alpha is ignored.
+ */
+public final class PixelImage {
+    private static final int HASH_WIDTH = 9;
+    private static final int HASH_HEIGHT = 8;
+
+    final int[] pixels;
+    final int offset;
+    final int stride;
+    private final int width;
+    private final int height;
+    private volatile boolean hashed = false;
+    private long contentHash;
+    private long perceptualHash;
+
+    private PixelImage(int[] pixels, int offset, int stride, int width, int height) {
+        this.pixels = pixels;
+        this.offset = offset;
+        this.stride = stride;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * @param pixels Packed RGB pixels, row by row
+     * @param width  Width, the row length
+     * @param height Height
+     * @return PixelImage sharing the array
+     */
+    public static PixelImage of(int[] pixels, int width, int height) {
+        if (pixels.length < width * height)
+            throw new IllegalArgumentException("Expected " + width * height + " pixels, got " + pixels.length + ".");
+        return new PixelImage(pixels, 0, width, width, height);
+    }
+
+    /**
+     * Wraps the pixels of {@code TYPE_INT_RGB} / {@code TYPE_INT_ARGB} images, other types are converted once.
+     *
+     * @param image Image
+     * @return PixelImage
+     */
+    public static PixelImage of(BufferedImage image) {
+        int type = image.getType();
+        WritableRaster raster = image.getRaster();
+        if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+                && raster.getDataBuffer() instanceof DataBufferInt && raster.getSampleModel() instanceof SinglePixelPackedSampleModel) {
+            SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) raster.getSampleModel();
+            // Sub images share the buffer of their parent, shifted by the sample model translation
+            int offset = raster.getDataBuffer().getOffset()
+                    + model.getOffset(-raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY());
+            return new PixelImage(((DataBufferInt) raster.getDataBuffer()).getData(), offset, model.getScanlineStride(),
+                    image.getWidth(), image.getHeight());
+        }
+        return of(image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth()),
+                image.getWidth(), image.getHeight());
+    }
+
+    public static PixelImage read(byte[] png) throws IOException {
+        return read(new ByteArrayInputStream(png), "screenshot");
+    }
+
+    public static PixelImage read(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return read(in, file.toString());
+        }
+    }
+
+    private static PixelImage read(InputStream in, String name) throws IOException {
+        BufferedImage image = ImageIO.read(in);
+        if (image == null)
+            throw new IOException("Unable to decode image '" + name + "'.");
+        return of(image);
+    }
+
+    /**
+     * @return View on the given rectangle, sharing the pixels
+     */
+    public PixelImage region(int x, int y, int width, int height) {
+        if (x < 0 || y < 0 || width < 1 || height < 1 || x + width > this.width || y + height > this.height)
+            throw new IllegalArgumentException("Region " + width + "x" + height + "+" + x + "+" + y
+                    + " is outside of the " + this.width + "x" + this.height + " image.");
+        return new PixelImage(pixels, offset + y * stride + x, stride, width, height);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int rgb(int x, int y) {
+        return pixels[offset + y * stride + x] & 0xFFFFFF;
+    }
+
+    /**
+     * Exact fingerprint of the pixels and dimensions.
+     *
+     * @return 64 bit FNV-1a hash
+     */
+    public long contentHash() {
+        hash();
+        return contentHash;
+    }
+
+    /**
+     * Difference hash (dHash): the image is reduced to 9x8 luminance cells and each bit tells whether a cell is
+     * brighter than its right neighbour. Similar images have a small Hamming distance.
+     *
+     * @return 64 bit perceptual hash
+     */
+    public long perceptualHash() {
+        hash();
+        return perceptualHash;
+    }
+
+    /**
+     * @param other Image to compare with
+     * @return Amount of differing bits of the perceptual hashes, 0 to 64
+     */
+    public int distance(PixelImage other) {
+        return Long.bitCount(perceptualHash() ^ other.perceptualHash());
+    }
+
+    /**
+     * Copies the pixels into a new image, eg. to write it as png.
+     *
+     * @return BufferedImage
+     */
+    public BufferedImage toImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, width, height, pixels, offset, stride);
+        return image;
+    }
+
+    /**
+     * Computes both hashes in a single pass over the pixels.
+     */
+    private void hash() {
+        if (hashed) return;
+        synchronized (this) {
+            if (hashed) return;
+            // Two interleaved FNV-1a lanes, a single lane is bound by the latency of the multiplication
+            long even = 0xcbf29ce484222325L;
+            long odd = (even ^ width) * 0x100000001b3L;
+            even = (even ^ height) * 0x100000001b3L;
+            long[] cells = new long[HASH_WIDTH * HASH_HEIGHT];
+            // First column of every cell, plus the image width
+            int[] edges = new int[HASH_WIDTH + 1];
+            int[] columns = new int[HASH_WIDTH];
+            for (int cell = 0; cell <= HASH_WIDTH; cell++)
+                edges[cell] = (cell * width + HASH_WIDTH - 1) / HASH_WIDTH;
+            for (int cell = 0; cell < HASH_WIDTH; cell++)
+                columns[cell] = edges[cell + 1] - edges[cell];
+            for (int y = 0; y < height; y++) {
+                int row = y * HASH_HEIGHT / height * HASH_WIDTH;
+                int at = offset + y * stride;
+                for (int cell = 0; cell < HASH_WIDTH; cell++) {
+                    // Channel sums, weighted once per cell instead of per pixel
+                    long r = 0, g = 0, b = 0;
+                    int x = edges[cell];
+                    int to = edges[cell + 1];
+                    for (; x + 1 < to; x += 2) {
+                        int p = pixels[at + x] & 0xFFFFFF;
+                        int q = pixels[at + x + 1] & 0xFFFFFF;
+                        even = (even ^ p) * 0x100000001b3L;
+                        odd = (odd ^ q) * 0x100000001b3L;
+                        r += (p >> 16) + (q >> 16);
+                        g += (p >> 8 & 0xFF) + (q >> 8 & 0xFF);
+                        b += (p & 0xFF) + (q & 0xFF);
+                    }
+                    if (x < to) {
+                        int p = pixels[at + x] & 0xFFFFFF;
+                        even = (even ^ p) * 0x100000001b3L;
+                        r += p >> 16;
+                        g += p >> 8 & 0xFF;
+                        b += p & 0xFF;
+                    }
+                    // Integer luma, 0.299 R + 0.587 G + 0.114 B
+                    cells[row + cell] += r * 77 + g * 150 + b * 29;
+                }
+            }
+            long fnv = (even ^ odd) * 0x100000001b3L + odd;
+            // Cells cover a different amount of pixels on small images, compare averages
+            long[] counts = new long[cells.length];
+            for (int y = 0; y < height; y++)
+                for (int cell = 0; cell < HASH_WIDTH; cell++)
+                    counts[y * HASH_HEIGHT / height * HASH_WIDTH + cell] += columns[cell];
+            long bits = 0;
+            for (int y = 0; y < HASH_HEIGHT; y++) {
+                for (int x = 0; x < HASH_WIDTH - 1; x++) {
+                    int left = y * HASH_WIDTH + x;
+                    bits <<= 1;
+                    // left / countLeft > right / countRight without division
+                    if (cells[left] * Math.max(1, counts[left + 1]) > cells[left + 1] * Math.max(1, counts[left])) bits |= 1;
+                }
+            }
+            contentHash = fnv;
+            perceptualHash = bits;
+            hashed = true;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.xpxn.automation.visual;
+
+import com.xpxn.automation.config.Configuration;
+import com.xpxn.automation.metrics.Histograms;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.Color;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Assertions on the rendered state of a page: colours compared by value instead of notation, and screenshots of
+ * page regions compared with {@link Baselines}. Failed comparisons leave the current image and a diff below
+ * {@code env.visual.dir} (default target/visual). Screenshots need a real browser, see
+ * {@link com.xpxn.automation.config.RequiresRendering}.
+ */
+public final class VisualAssert {
+    public static final String GROUP = "visual";
+    private static final Map<Baselines.Outcome, LongAdder> outcomes = new EnumMap<>(Baselines.Outcome.class);
+
+    /**
+     * Scrolls the element into view and returns its viewport rectangle and the device pixel ratio.
+     */
+    private static final String RECT = "var e = arguments[0]; e.scrollIntoView({block: 'center', inline: 'center'});" +
+            "var r = e.getBoundingClientRect();" +
+            "return [r.left, r.top, r.width, r.height, window.devicePixelRatio || 1];";
+
+    static {
+        for (Baselines.Outcome outcome : Baselines.Outcome.values())
+            outcomes.put(outcome, new LongAdder());
+    }
+
+    private VisualAssert() {
+    }
+
+    /**
+     * @param actual   Colour in any css notation, eg. the {@code rgba(...)} of {@link WebElement#getCssValue(String)}
+     * @param expected Colour in any css notation, eg. {@code #FF0000} or {@code red}
+     * @return true when both denote the same colour
+     */
+    public static boolean sameColor(String actual, String expected) {
+        return Color.fromString(actual).equals(Color.fromString(expected));
+    }
+
+    public static void assertColor(String actual, String expected) {
+        if (!sameColor(actual, expected))
+            throw new AssertionError("expected colour [" + Color.fromString(expected).asHex() + "] but found ["
+                    + Color.fromString(actual).asRgba() + "]");
+    }
+
+    /**
+     * @param driver Driver of a real browser
+     * @return Screenshot of the viewport
+     */
+    public static PixelImage capture(WebDriver driver) {
+        if (!(driver instanceof TakesScreenshot))
+            throw new IllegalStateException("Driver " + driver.getClass().getSimpleName() + " cannot take screenshots, "
+                    + "mark the test with @RequiresRendering.");
+        long start = System.nanoTime();
+        try {
+            return PixelImage.read(((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            Histograms.get(GROUP, "screenshot").record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Screenshot of one element, cropped out of the viewport screenshot without copying pixels.
+     *
+     * @param driver Driver of a real browser
+     * @param region Element to capture
+     * @return PixelImage
+     */
+    public static PixelImage capture(WebDriver driver, By region) {
+        WebElement element = driver.findElement(region);
+        List<?> rect = (List<?>) ((JavascriptExecutor) driver).executeScript(RECT, element);
+        PixelImage screen = capture(driver);
+        double ratio = number(rect.get(4));
+        int x = Math.max(0, (int) Math.round(number(rect.get(0)) * ratio));
+        int y = Math.max(0, (int) Math.round(number(rect.get(1)) * ratio));
+        int width = Math.min(screen.getWidth() - x, (int) Math.round(number(rect.get(2)) * ratio));
+        int height = Math.min(screen.getHeight() - y, (int) Math.round(number(rect.get(3)) * ratio));
+        if (width < 1 || height < 1)
+            throw new IllegalStateException("Element " + region + " is not visible in the viewport.");
+        return screen.region(x, y, width, height);
+    }
+
+    /**
+     * Compares the element with its baseline.
+     *
+     * @param driver Driver of a real browser
+     * @param name   Baseline name, eg. {@code home/login-error}
+     * @param region Element to capture
+     */
+    public static void assertMatches(WebDriver driver, String name, By region) {
+        assertMatches(name, capture(driver, region));
+    }
+
+    /**
+     * @param name   Baseline name
+     * @param actual Current image
+     */
+    public static void assertMatches(String name, PixelImage actual) {
+        Baselines baselines = Baselines.shared();
+        Baselines.Check check;
+        try {
+            check = baselines.check(name, actual);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to compare '" + name + "' with its baseline.", e);
+        }
+        outcomes.get(check.outcome).increment();
+        if (check.outcome.passed()) return;
+
+        Path directory = Paths.get(Configuration.envVisualDir().get("target/visual"));
+        String file = name.replaceAll("[^A-Za-z0-9._/-]", "_");
+        try {
+            Path current = directory.resolve(file + "-actual.png");
+            Files.createDirectories(current.toAbsolutePath().getParent());
+            ImageIO.write(actual.toImage(), "png", current.toFile());
+            if (check.expected != null)
+                ImageIO.write(VisualDiff.highlight(check.expected, actual, baselines.getTolerance()), "png",
+                        directory.resolve(file + "-diff.png").toFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the visual diff of '" + name + "'.", e);
+        }
+        if (check.outcome == Baselines.Outcome.MISSING)
+            throw new AssertionError("No baseline for '" + name + "' and env.visual.require is set, the current image is "
+                    + directory.resolve(file + "-actual.png"));
+        throw new AssertionError("Visual mismatch " + check + ", see " + directory.resolve(file + "-*.png"));
+    }
+
+    public static String stats() {
+        return "visual checks: " + outcomes;
+    }
+
+    private static double number(Object value) {
+        return ((Number) value).doubleValue();
+    }
+}
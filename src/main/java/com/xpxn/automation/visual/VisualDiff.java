@@ -0,0 +1,153 @@
+package com.xpxn.automation.visual;
+
+import java.awt.image.BufferedImage;
+import java.util.stream.IntStream;
+
+/**
+ * Pixel comparison of two {@link PixelImage}s, split into square tiles that are compared in parallel on large
+ * images. Works on the raw {@code int[]} of both images: no per pixel objects, two small arrays per comparison.
+ */
+public final class VisualDiff {
+    static final int TILE = 64;
+    // Below this size the fork/join overhead is larger than the work
+    private static final int PARALLEL_PIXELS = 1 << 18;
+
+    public final int differentPixels;
+    public final long totalPixels;
+    public final int changedTiles;
+    // Bounding box of the differences, empty (width 0) when there are none
+    public final int x;
+    public final int y;
+    public final int width;
+    public final int height;
+
+    private VisualDiff(int differentPixels, long totalPixels, int changedTiles, int x, int y, int width, int height) {
+        this.differentPixels = differentPixels;
+        this.totalPixels = totalPixels;
+        this.changedTiles = changedTiles;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * @param expected  Baseline
+     * @param actual    Current image
+     * @param tolerance Largest difference of a single colour channel (0-255) still counted as equal
+     * @return VisualDiff, every pixel different when the sizes differ
+     */
+    public static VisualDiff compare(PixelImage expected, PixelImage actual, int tolerance) {
+        int w = expected.getWidth();
+        int h = expected.getHeight();
+        if (w != actual.getWidth() || h != actual.getHeight()) {
+            long total = (long) Math.max(w, actual.getWidth()) * Math.max(h, actual.getHeight());
+            return new VisualDiff((int) Math.min(Integer.MAX_VALUE, total), total, -1, 0, 0,
+                    Math.max(w, actual.getWidth()), Math.max(h, actual.getHeight()));
+        }
+        int columns = (w + TILE - 1) / TILE;
+        int tiles = columns * ((h + TILE - 1) / TILE);
+        int[] counts = new int[tiles];
+        // minX, minY, maxX, maxY per tile
+        int[] bounds = new int[tiles * 4];
+        IntStream range = IntStream.range(0, tiles);
+        if ((long) w * h >= PARALLEL_PIXELS) range = range.parallel();
+        range.forEach(tile -> counts[tile] = tile(expected, actual, tile % columns * TILE, tile / columns * TILE,
+                tolerance, bounds, tile * 4));
+
+        int different = 0;
+        int changed = 0;
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+        for (int tile = 0; tile < tiles; tile++) {
+            if (counts[tile] == 0) continue;
+            different += counts[tile];
+            changed++;
+            minX = Math.min(minX, bounds[tile * 4]);
+            minY = Math.min(minY, bounds[tile * 4 + 1]);
+            maxX = Math.max(maxX, bounds[tile * 4 + 2]);
+            maxY = Math.max(maxY, bounds[tile * 4 + 3]);
+        }
+        return different == 0
+                ? new VisualDiff(0, (long) w * h, 0, 0, 0, 0, 0)
+                : new VisualDiff(different, (long) w * h, changed, minX, minY, maxX - minX + 1, maxY - minY + 1);
+    }
+
+    private static int tile(PixelImage expected, PixelImage actual, int left, int top, int tolerance, int[] bounds, int at) {
+        int right = Math.min(left + TILE, expected.getWidth());
+        int bottom = Math.min(top + TILE, expected.getHeight());
+        int[] e = expected.pixels;
+        int[] a = actual.pixels;
+        int count = 0;
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = -1, maxY = -1;
+        for (int y = top; y < bottom; y++) {
+            int ei = expected.offset + y * expected.stride;
+            int ai = actual.offset + y * actual.stride;
+            for (int x = left; x < right; x++) {
+                int p = e[ei + x];
+                int q = a[ai + x];
+                if (((p ^ q) & 0xFFFFFF) == 0) continue;
+                if (tolerance > 0 && channelDelta(p, q) <= tolerance) continue;
+                count++;
+                if (x < minX) minX = x;
+                if (x > maxX) maxX = x;
+                if (y < minY) minY = y;
+                maxY = y;
+            }
+        }
+        bounds[at] = minX;
+        bounds[at + 1] = minY;
+        bounds[at + 2] = maxX;
+        bounds[at + 3] = maxY;
+        return count;
+    }
+
+    private static int channelDelta(int p, int q) {
+        int r = Math.abs((p >> 16 & 0xFF) - (q >> 16 & 0xFF));
+        int g = Math.abs((p >> 8 & 0xFF) - (q >> 8 & 0xFF));
+        int b = Math.abs((p & 0xFF) - (q & 0xFF));
+        return Math.max(r, Math.max(g, b));
+    }
+
+    /**
+     * @return Share of different pixels, 0 to 1
+     */
+    public double ratio() {
+        return totalPixels == 0 ? 0 : (double) differentPixels / totalPixels;
+    }
+
+    /**
+     * Faded copy of the current image with the differing pixels in red, for failure reports.
+     *
+     * @param expected  Baseline
+     * @param actual    Current image of the same size
+     * @param tolerance Same tolerance as used for {@link #compare(PixelImage, PixelImage, int)}
+     * @return BufferedImage
+     */
+    public static BufferedImage highlight(PixelImage expected, PixelImage actual, int tolerance) {
+        int w = Math.min(expected.getWidth(), actual.getWidth());
+        int h = Math.min(expected.getHeight(), actual.getHeight());
+        BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        int[] row = new int[w];
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                int p = expected.rgb(x, y);
+                int q = actual.rgb(x, y);
+                if (p != q && (tolerance == 0 || channelDelta(p, q) > tolerance)) {
+                    row[x] = 0xFF0000;
+                } else {
+                    int grey = ((q >> 16) * 77 + (q >> 8 & 0xFF) * 150 + (q & 0xFF) * 29) >> 8;
+                    int faded = 192 + (grey >> 2);
+                    row[x] = faded << 16 | faded << 8 | faded;
+                }
+            }
+            out.setRGB(0, y, w, 1, row, 0, w);
+        }
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        return differentPixels + " of " + totalPixels + " pixel(s) differ"
+                + (differentPixels == 0 ? "" : " in " + width + "x" + height + "+" + x + "+" + y);
+    }
+}
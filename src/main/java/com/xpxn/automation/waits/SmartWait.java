@@ -0,0 +1,163 @@
+package com.xpxn.automation.waits;
+
+import com.xpxn.automation.config.Configuration;
+import com.xpxn.automation.metrics.Histograms;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.Wait;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Drop-in replacement for {@code WebDriverWait} that returns as soon as its condition holds.
+ * <p>
+ * Between checks it either sleeps with an interval that backs off from {@code env.wait.pollMin} up to
+ * {@code env.wait.pollMax} milliseconds, or, when the driver can run scripts, parks inside the browser
+ * until the DOM mutates, the document state changes or the interval passes, whichever comes first.
+ * Every wait is recorded in the {@value #GROUP} histogram group under the kind of condition, eg.
+ * {@code ExpectedConditions.urlContains}, or the label passed to {@link #until(String, Function)}. Locators and
+ * expected values stay out of the name so the amount of histograms does not grow with them.
+ */
+public class SmartWait implements Wait<WebDriver> {
+    public static final String GROUP = "waits";
+
+    // Resolves on the first DOM mutation or readyState change, or once the interval elapsed
+    private static final String PARK_SCRIPT =
+            "var done = arguments[arguments.length - 1], ms = arguments[0], finished = false;" +
+            "function finish() { if (finished) return; finished = true;" +
+            "  try { observer.disconnect(); } catch (e) {}" +
+            "  document.removeEventListener('readystatechange', finish); done(true); }" +
+            "var observer = new MutationObserver(finish);" +
+            "observer.observe(document, {childList: true, subtree: true, attributes: true, characterData: true});" +
+            "document.addEventListener('readystatechange', finish);" +
+            "setTimeout(finish, ms);";
+
+    // Anonymous conditions are named after the factory method creating them, lambdas after their declaring class
+    private static final ClassValue<String> KINDS = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            Method factory = type.getEnclosingMethod();
+            if (factory != null) return factory.getDeclaringClass().getSimpleName() + "." + factory.getName();
+            String name = type.getName();
+            int lambda = name.indexOf("$$Lambda");
+            if (lambda >= 0) return name.substring(name.lastIndexOf('.', lambda) + 1, lambda) + " lambda";
+            return type.getSimpleName().isEmpty() ? name.substring(name.lastIndexOf('.') + 1) : type.getSimpleName();
+        }
+    };
+
+    private final WebDriver driver;
+    private final long timeoutNanos;
+    private final long pollMin;
+    private final long pollMax;
+    private final boolean events;
+
+    /**
+     * @param driver           Driver to evaluate conditions against
+     * @param timeOutInSeconds Maximum time to wait
+     */
+    public SmartWait(WebDriver driver, long timeOutInSeconds) {
+        this(driver, timeOutInSeconds,
+                Long.parseLong(Configuration.envWaitPollMin().get("5")),
+                Long.parseLong(Configuration.envWaitPollMax().get("250")),
+                Boolean.parseBoolean(Configuration.envWaitEvents().get("true")));
+    }
+
+    /**
+     * @param driver           Driver to evaluate conditions against
+     * @param timeOutInSeconds Maximum time to wait
+     * @param pollMin          First polling interval in milliseconds
+     * @param pollMax          Polling interval ceiling in milliseconds
+     * @param events           Park inside the browser between checks when possible
+     */
+    public SmartWait(WebDriver driver, long timeOutInSeconds, long pollMin, long pollMax, boolean events) {
+        this.driver = driver;
+        this.timeoutNanos = TimeUnit.SECONDS.toNanos(timeOutInSeconds);
+        this.pollMin = Math.max(1, pollMin);
+        this.pollMax = Math.max(this.pollMin, pollMax);
+        this.events = events && driver instanceof JavascriptExecutor;
+    }
+
+    /**
+     * Creates a wait using the {@code env.wait.timeout} property (defaults to 15 seconds).
+     *
+     * @param driver Driver to evaluate conditions against
+     * @return SmartWait
+     */
+    public static SmartWait of(WebDriver driver) {
+        return new SmartWait(driver, Long.parseLong(Configuration.envWaitTimeout().get("15")));
+    }
+
+    @Override
+    public <T> T until(Function<? super WebDriver, T> isTrue) {
+        return until(KINDS.get(isTrue.getClass()), isTrue);
+    }
+
+    /**
+     * @param label  Histogram name of this wait, eg. {@code login form}
+     * @param isTrue Condition
+     * @return First non-null, non-false value of the condition
+     */
+    public <T> T until(String label, Function<? super WebDriver, T> isTrue) {
+        long start = System.nanoTime();
+        long interval = pollMin;
+        boolean timedOut = false;
+        RuntimeException last = null;
+        try {
+            while (true) {
+                try {
+                    T value = isTrue.apply(driver);
+                    if (value != null && (Boolean.class != value.getClass() || Boolean.TRUE.equals(value)))
+                        return value;
+                    last = null;
+                } catch (NotFoundException | StaleElementReferenceException e) {
+                    last = e;
+                }
+
+                long remaining = timeoutNanos - (System.nanoTime() - start);
+                if (remaining <= 0) {
+                    timedOut = true;
+                    throw new TimeoutException("Expected condition failed: waiting for " + isTrue
+                            + " (tried for " + TimeUnit.NANOSECONDS.toSeconds(timeoutNanos)
+                            + " second(s) with adaptive polling)", last);
+                }
+                long pause = Math.min(interval, TimeUnit.NANOSECONDS.toMillis(remaining) + 1);
+                if (!events || !park(pause)) {
+                    sleep(pause);
+                }
+                interval = Math.min(interval * 2, pollMax);
+            }
+        } finally {
+            Histograms.get(GROUP, (timedOut ? "TIMEOUT " : "") + label).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Waits inside the browser until the DOM changes or the given time passed.
+     *
+     * @return false when the script could not run and the caller should sleep instead
+     */
+    private boolean park(long millis) {
+        try {
+            ((JavascriptExecutor) driver).executeAsyncScript(PARK_SCRIPT, millis);
+            return true;
+        } catch (WebDriverException | UnsupportedOperationException e) {
+            // Navigation unloads the document mid-script, other failures mean scripts can't run right now.
+            return false;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverException(e);
+        }
+    }
+}
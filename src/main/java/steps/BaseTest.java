@@ -1,33 +1,189 @@
 package steps;
 
+import com.xpxn.automation.config.CommandTimer;
 import com.xpxn.automation.config.Configuration;
-import com.xpxn.automation.config.DriverFactory;
-import org.openqa.selenium.MutableCapabilities;
+import com.xpxn.automation.config.DriverBinaryCache;
+import com.xpxn.automation.config.DriverPool;
+import com.xpxn.automation.config.DriverReaper;
+import com.xpxn.automation.config.GridBroker;
+import com.xpxn.automation.config.RequiresRendering;
+import com.xpxn.automation.config.SessionMetrics;
+import com.xpxn.automation.metrics.Histograms;
+import com.xpxn.automation.pages.BasePage;
+import com.xpxn.automation.session.FailureCapture;
+import com.xpxn.automation.session.SessionCheckpoint;
+import com.xpxn.automation.visual.Baselines;
+import com.xpxn.automation.visual.VisualAssert;
+import com.xpxn.automation.waits.SmartWait;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.support.ui.WebDriverWait;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.ITestResult;
 import org.testng.annotations.AfterClass;
-import org.testng.annotations.BeforeClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.BeforeSuite;
 import org.testng.asserts.SoftAssert;
+import org.testng.xml.XmlSuite;
 
+import java.lang.reflect.Method;
 import java.net.MalformedURLException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Base for all test classes. Each worker thread running methods of a test class gets its own
+ * driver, wait and soft assertions, so the class is safe under every TestNG parallel mode.
+ * Sessions are kept for the whole class, except with {@code parallel=methods} where one worker runs methods of
+ * several classes at once: they go back to the pool after every method so the pool, sized to the threads, suffices.
+ */
 public abstract class BaseTest {
-    protected WebDriver driver;
-    protected WebDriverWait wait;
-    protected SoftAssert softAssert;
+    private static final Logger logger = LoggerFactory.getLogger(BaseTest.class);
 
+    // A thread holds one session per pool: in-process tests and RequiresRendering tests use different pools
+    private final Map<Thread, Map<DriverPool, Session>> sessions = new ConcurrentHashMap<>();
+    private final Map<Thread, Session> current = new ConcurrentHashMap<>();
 
-    @BeforeClass
-    protected void _InitDriver() throws MalformedURLException {
-        MutableCapabilities caps = DriverFactory.setup(Configuration.appEnv().expect());
-        driver = DriverFactory.build(Configuration.appEnv().expect(), caps);
-        wait = new WebDriverWait(driver, 15);
-        softAssert = new SoftAssert();
+    @BeforeSuite
+    protected void _WarmPool() {
+        DriverPool.get().warm(Integer.parseInt(Configuration.envPoolWarm().get("1")));
     }
 
-    @AfterClass
+    @BeforeMethod
+    protected void _InitDriver(Method method) throws MalformedURLException {
+        DriverPool pool = DriverPool.get(method.isAnnotationPresent(RequiresRendering.class)
+                || getClass().isAnnotationPresent(RequiresRendering.class));
+        Map<DriverPool, Session> owned = sessions.computeIfAbsent(Thread.currentThread(), t -> new ConcurrentHashMap<>());
+        Session session = owned.get(pool);
+        if (session == null) {
+            session = new Session(pool, pool.borrow());
+            owned.put(pool, session);
+        }
+        current.put(Thread.currentThread(), session);
+    }
+
+    @BeforeMethod
+    protected void _TagCommands(Method method) {
+        CommandTimer.test(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    protected void _FinishMethod(ITestResult result) {
+        if (result.getStatus() == ITestResult.FAILURE)
+            FailureCapture.capture(currentDriver(), result.getTestClass().getRealClass().getSimpleName()
+                    + "." + result.getMethod().getMethodName());
+        // Captured first, the session is gone afterwards
+        if (result.getTestContext().getSuite().getXmlSuite().getParallel() == XmlSuite.ParallelMode.METHODS) {
+            Map<DriverPool, Session> owned = sessions.remove(Thread.currentThread());
+            current.remove(Thread.currentThread());
+            if (owned != null) release(new ArrayList<>(owned.values()));
+        }
+    }
+
+    @AfterClass(alwaysRun = true)
     protected void _DestroyDriver() {
-        DriverFactory.DestroyDriver();
-        softAssert.assertAll();
+        List<Session> finished = new ArrayList<>();
+        for (Map<DriverPool, Session> owned : sessions.values())
+            finished.addAll(owned.values());
+        sessions.clear();
+        current.clear();
+        release(finished);
+    }
+
+    private static void release(List<Session> finished) {
+        for (Session session : finished) {
+            SessionCheckpoint.discard(session.driver);
+            session.pool.release(session.driver);
+        }
+        for (Session session : finished)
+            session.softAssert.assertAll();
+    }
+
+    @AfterSuite(alwaysRun = true)
+    protected void _ShutdownPool() {
+        DriverPool.shutdownAll();
+        // Idle grid sessions outlive the pools, they are only quit once the whole suite is done
+        GridBroker.shutdownShared();
+        DriverReaper.shutdown(60);
+        logger.info(DriverReaper.stats());
+        FailureCapture.drain(30);
+        logger.info(FailureCapture.stats());
+        logger.info(DriverBinaryCache.stats());
+        logger.info(SessionMetrics.report());
+        logger.info(Histograms.report(SmartWait.GROUP));
+        logger.info(Histograms.report(SessionCheckpoint.GROUP));
+        logger.info(Histograms.report(GridBroker.GROUP));
+        Baselines.saveShared();
+        logger.info(VisualAssert.stats());
+        logger.info(Histograms.report(VisualAssert.GROUP));
+        Path commands = CommandTimer.export();
+        if (commands != null) logger.info("Command timings written to " + commands.toAbsolutePath());
+        logger.info("Batched page interactions saved " + BasePage.savedRoundTrips() + " round trip(s).");
+    }
+
+    protected WebDriver getDriver() {
+        return session().driver;
+    }
+
+    protected SmartWait getWait() {
+        return session().wait;
+    }
+
+    protected SoftAssert getSoftAssert() {
+        return session().softAssert;
+    }
+
+    /**
+     * Stores the current browser state of this thread's driver under the given name.
+     *
+     * @param name Checkpoint name
+     */
+    protected void checkpoint(String name) {
+        SessionCheckpoint.save(getDriver(), name);
+    }
+
+    /**
+     * Restores a checkpoint taken earlier in this class with the same driver.
+     *
+     * @param name Checkpoint name
+     * @return false when the checkpoint does not exist yet
+     */
+    protected boolean restore(String name) {
+        return SessionCheckpoint.restore(getDriver(), name);
+    }
+
+    /**
+     * Driver of this thread's session without borrowing one.
+     *
+     * @return WebDriver, or null when the thread has no session
+     */
+    protected WebDriver currentDriver() {
+        Session session = current.get(Thread.currentThread());
+        return session == null ? null : session.driver;
+    }
+
+    private Session session() {
+        Session session = current.get(Thread.currentThread());
+        if (session == null)
+            throw new IllegalStateException("No driver bound to thread '" + Thread.currentThread().getName() + "'.");
+        return session;
+    }
+
+    private static final class Session {
+        private final DriverPool pool;
+        private final WebDriver driver;
+        private final SmartWait wait;
+        private final SoftAssert softAssert;
+
+        private Session(DriverPool pool, WebDriver driver) {
+            this.pool = pool;
+            this.driver = driver;
+            this.wait = SmartWait.of(driver);
+            this.softAssert = new SoftAssert();
+        }
     }
 }
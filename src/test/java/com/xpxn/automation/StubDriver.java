@@ -0,0 +1,55 @@
+package com.xpxn.automation;
+
+import org.openqa.selenium.WebDriver;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+
+/**
+ * WebDriver that never launches a browser, for unit tests and benchmarks. Every command returns null unless the
+ * {@link Answer} says otherwise.
+ */
+public final class StubDriver {
+    private StubDriver() {
+    }
+
+    public static WebDriver create() {
+        return create((method, args) -> null);
+    }
+
+    /**
+     * @param answer     Result of every driver command
+     * @param interfaces Further interfaces of the stub, eg. {@code JavascriptExecutor}
+     * @return WebDriver
+     */
+    public static WebDriver create(Answer answer, Class<?>... interfaces) {
+        Class<?>[] types = Arrays.copyOf(interfaces, interfaces.length + 1);
+        types[interfaces.length] = WebDriver.class;
+        return (WebDriver) Proxy.newProxyInstance(StubDriver.class.getClassLoader(), types, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "StubDriver";
+                default:
+                    return answer.answer(method.getName(), args == null ? new Object[0] : args);
+            }
+        });
+    }
+
+    /**
+     * @param type Command group of the driver, eg. {@code WebDriver.Options} or {@code WebDriver.Navigation}
+     * @return Command group whose commands do nothing and return null
+     */
+    public static <T> T noop(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(StubDriver.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> null));
+    }
+
+    @FunctionalInterface
+    public interface Answer {
+        Object answer(String method, Object[] args) throws Throwable;
+    }
+}
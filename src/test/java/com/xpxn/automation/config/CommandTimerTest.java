@@ -0,0 +1,91 @@
+package com.xpxn.automation.config;
+
+import com.xpxn.automation.StubDriver;
+import com.xpxn.automation.metrics.Histograms;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tags and export of the command histograms, with a stub driver.
+ */
+public class CommandTimerTest {
+
+    @AfterMethod(alwaysRun = true)
+    public void reset() {
+        CommandTimer.test(null);
+        Configuration.envMetricsDir().set("");
+    }
+
+    @Test
+    public void commandsAreTaggedWithThePageAndTheRunningTest() {
+        WebDriver driver = CommandTimer.scope(CommandTimer.wrap(driver()), TimerPage.class);
+        CommandTimer.test("CommandTimerTest.first");
+        driver.getTitle();
+        driver.getTitle();
+        CommandTimer.test("CommandTimerTest.second");
+        driver.getTitle();
+        driver.findElement(By.id("name")).getText();
+        driver.navigate().refresh();
+
+        assertEquals(count("getTitle|TimerPage|CommandTimerTest.first"), 2);
+        assertEquals(count("getTitle|TimerPage|CommandTimerTest.second"), 1);
+        assertEquals(count("element.getText|TimerPage|CommandTimerTest.second"), 1);
+        assertEquals(count("navigate.refresh|TimerPage|CommandTimerTest.second"), 1);
+    }
+
+    @Test
+    public void csvQuotesPageAndTestNames() throws IOException {
+        Path folder = Files.createTempDirectory("metrics");
+        try {
+            Configuration.envMetricsDir().set(folder.toString());
+            WebDriver driver = CommandTimer.wrap(driver());
+            CommandTimer.test("CommandTimerTest.quoted[\"a,b\", 2]");
+            driver.getCurrentUrl();
+            List<String> lines = Files.readAllLines(CommandTimer.export().resolve(CommandTimer.GROUP + ".csv"), StandardCharsets.UTF_8);
+            assertTrue(lines.stream().anyMatch(line -> line.startsWith("getCurrentUrl,-,\"CommandTimerTest.quoted[\"\"a,b\"\", 2]\",1,")),
+                    lines.toString());
+        } finally {
+            try (Stream<Path> paths = Files.walk(folder)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private static long count(String name) {
+        return Histograms.get(CommandTimer.GROUP, name).count();
+    }
+
+    private static WebDriver driver() {
+        WebElement element = (WebElement) Proxy.newProxyInstance(CommandTimerTest.class.getClassLoader(),
+                new Class<?>[]{WebElement.class}, (proxy, method, args) -> null);
+        return StubDriver.create((method, args) -> {
+            switch (method) {
+                case "findElement":
+                    return element;
+                case "navigate":
+                    return StubDriver.noop(WebDriver.Navigation.class);
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static final class TimerPage {
+    }
+}
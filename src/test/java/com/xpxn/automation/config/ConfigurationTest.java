@@ -0,0 +1,80 @@
+package com.xpxn.automation.config;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Layer precedence of the merged configuration and publication of new snapshots.
+ */
+public class ConfigurationTest {
+    private static final String KEY = "test.configuration.value";
+
+    @AfterMethod(alwaysRun = true)
+    public void reset() {
+        System.clearProperty(KEY);
+        // Drops the parse caches of the cleared key
+        Configuration.extend(new Properties());
+    }
+
+    @Test
+    public void flattenOverridesOnlyWithNonEmptyValues() {
+        Properties baseline = properties("a", "baseline", "b", "baseline", "c", "");
+        Properties custom = properties("a", "custom", "b", "", "c", "");
+        Properties system = properties("c", "system", "d", "");
+        Properties merged = Configuration.flatten(baseline, custom, system);
+        assertEquals(merged.getProperty("a"), "custom", "later layers win");
+        assertEquals(merged.getProperty("b"), "baseline", "an empty value does not hide an earlier one");
+        assertEquals(merged.getProperty("c"), "system", "an empty value is replaced by a later one");
+        assertEquals(merged.getProperty("d"), "", "an empty value is kept when nothing else is set");
+    }
+
+    @Test
+    public void systemPropertiesOverrideTheFilesPerKey() {
+        assertEquals(Configuration.envLoadStrategy().get(), "eager");
+        System.setProperty("env.load.strategy", "none");
+        try {
+            assertEquals(Configuration.envLoadStrategy().get(), "none", "looked up on every read, not copied at startup");
+            System.setProperty("env.load.strategy", "");
+            assertEquals(Configuration.envLoadStrategy().get(), "", "system properties win regardless of their value");
+        } finally {
+            System.clearProperty("env.load.strategy");
+        }
+        assertEquals(Configuration.envLoadStrategy().get(), "eager");
+    }
+
+    @Test
+    public void extendPublishesANewSnapshot() {
+        Snapshot before = Configuration.current();
+        Configuration.extend(properties(KEY, "12"));
+        Snapshot after = Configuration.current();
+        assertNotSame(after, before);
+        assertEquals(after.asInt(KEY), Integer.valueOf(12));
+        assertEquals(new Property(KEY).get(), "12");
+
+        Configuration.extend(properties(KEY, ""));
+        assertEquals(new Property(KEY).get(), "12", "extending with an empty value keeps the current one");
+        Configuration.extend(properties(KEY, "13"));
+        assertEquals(Configuration.current().asInt(KEY), Integer.valueOf(13), "parse caches are not carried over");
+    }
+
+    @Test
+    public void setForcesEmptyValues() {
+        Configuration.extend(properties(KEY, "value"));
+        new Property(KEY).set("");
+        assertEquals(new Property(KEY).get(), "");
+        assertNull(Configuration.current().asInt(KEY));
+    }
+
+    private static Properties properties(String... pairs) {
+        Properties properties = new Properties();
+        for (int i = 0; i < pairs.length; i += 2)
+            properties.setProperty(pairs[i], pairs[i + 1]);
+        return properties;
+    }
+}
@@ -0,0 +1,120 @@
+package com.xpxn.automation.config;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Memory and manifest lookups of the cache, with a stub instead of WebDriverManager downloads.
+ */
+public class DriverBinaryCacheTest {
+    private static final String KEY = "chrome@latest";
+
+    private final AtomicInteger downloads = new AtomicInteger();
+    private Path folder;
+    private Path manifest;
+    private Path binary;
+
+    @BeforeMethod
+    public void configure() throws IOException {
+        folder = Files.createTempDirectory("drivers");
+        manifest = folder.resolve("drivers.properties");
+        binary = Files.createFile(folder.resolve("chromedriver"));
+        binary.toFile().setExecutable(true);
+        downloads.set(0);
+        Configuration.envDriverCache().set(manifest.toString());
+        DriverBinaryCache.use((browser, version) -> {
+            downloads.incrementAndGet();
+            return binary.toString();
+        });
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void reset() throws IOException {
+        Configuration.envDriverCache().set("");
+        DriverBinaryCache.use(null);
+        System.clearProperty("webdriver.chrome.driver");
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void secondLookupIsServedFromMemory() {
+        long memoryHits = DriverBinaryCache.getMemoryHits();
+        long misses = DriverBinaryCache.getMisses();
+        assertEquals(DriverBinaryCache.resolve("chrome"), binary.toString());
+        assertEquals(DriverBinaryCache.resolve("chrome"), binary.toString());
+        assertEquals(downloads.get(), 1);
+        assertEquals(DriverBinaryCache.getMisses() - misses, 1);
+        assertEquals(DriverBinaryCache.getMemoryHits() - memoryHits, 1);
+        assertEquals(System.getProperty("webdriver.chrome.driver"), binary.toString());
+    }
+
+    @Test
+    public void freshManifestEntryIsServedFromDisk() throws IOException {
+        entry(System.currentTimeMillis() + "|" + binary);
+        long diskHits = DriverBinaryCache.getDiskHits();
+        assertEquals(DriverBinaryCache.resolve("chrome"), binary.toString());
+        assertEquals(downloads.get(), 0);
+        assertEquals(DriverBinaryCache.getDiskHits() - diskHits, 1);
+    }
+
+    @Test
+    public void expiredManifestEntryIsResolvedAgain() throws IOException {
+        long stale = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(25);
+        entry(stale + "|" + binary);
+        DriverBinaryCache.resolve("chrome");
+        assertEquals(downloads.get(), 1);
+        String entry = read();
+        assertTrue(Long.parseLong(entry.substring(0, entry.indexOf('|'))) > stale, "entry is refreshed");
+    }
+
+    @Test
+    public void corruptManifestEntriesAreMissesAndRewritten() throws IOException {
+        for (String corrupt : new String[]{"no separator", "yesterday|" + binary, "|" + binary}) {
+            entry(corrupt);
+            // Forgets the path resolved in the previous round
+            DriverBinaryCache.use((browser, version) -> {
+                downloads.incrementAndGet();
+                return binary.toString();
+            });
+            assertEquals(DriverBinaryCache.resolve("chrome"), binary.toString(), corrupt);
+            String entry = read();
+            assertTrue(entry.matches("\\d+\\|.*"), entry);
+            assertEquals(entry.substring(entry.indexOf('|') + 1), binary.toString(), corrupt);
+        }
+        assertEquals(downloads.get(), 3);
+    }
+
+    private void entry(String value) throws IOException {
+        Properties entries = new Properties();
+        entries.setProperty(KEY, value);
+        try (OutputStream out = Files.newOutputStream(manifest)) {
+            entries.store(out, null);
+        }
+    }
+
+    private String read() throws IOException {
+        Properties entries = new Properties();
+        try (InputStream in = Files.newInputStream(manifest)) {
+            entries.load(in);
+        }
+        return entries.getProperty(KEY);
+    }
+}
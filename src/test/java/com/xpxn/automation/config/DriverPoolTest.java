@@ -0,0 +1,176 @@
+package com.xpxn.automation.config;
+
+import com.xpxn.automation.StubDriver;
+import org.openqa.selenium.WebDriver;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class DriverPoolTest {
+    private static final String ENV = "pool-test";
+    private static volatile CountDownLatch resetting = new CountDownLatch(0);
+    private static volatile CountDownLatch proceed = new CountDownLatch(0);
+    private static volatile CountDownLatch quit = new CountDownLatch(0);
+
+    @BeforeClass
+    public void register() {
+        DriverFactory.register(ENV, caps -> StubDriver.create((method, args) -> {
+            switch (method) {
+                case "getWindowHandle":
+                    return "main";
+                case "getWindowHandles":
+                    resetting.countDown();
+                    stall();
+                    return Collections.singleton("main");
+                case "switchTo":
+                case "manage":
+                case "navigate":
+                    return blank(method);
+                case "quit":
+                    quit.countDown();
+                    return null;
+                default:
+                    return null;
+            }
+        }));
+    }
+
+    @Test
+    public void releaseOfForeignSessionDoesNotAddPermits() throws MalformedURLException {
+        DriverPool pool = new DriverPool(ENV, 1, 10, 1);
+        pool.release(StubDriver.create());
+        pool.borrow();
+        expectThrows(IllegalStateException.class, pool::borrow);
+        pool.shutdown();
+    }
+
+    @Test
+    public void doubleReleaseKeepsPoolSize() throws MalformedURLException {
+        DriverPool pool = new DriverPool(ENV, 1, 10, 1);
+        WebDriver dr = pool.borrow();
+        pool.release(dr);
+        pool.release(dr);
+        assertEquals(pool.borrow(), dr, "reset session is reused");
+        expectThrows(IllegalStateException.class, pool::borrow);
+        pool.shutdown();
+    }
+
+    @Test
+    public void wornOutSessionIsQuit() throws Exception {
+        quit = new CountDownLatch(1);
+        DriverPool pool = new DriverPool(ENV, 1, 1, 1);
+        pool.release(pool.borrow());
+        assertTrue(quit.await(5, TimeUnit.SECONDS), "session past its reuse limit is quit");
+        pool.shutdown();
+    }
+
+    @Test
+    public void sessionResetDuringShutdownIsQuit() throws Exception {
+        resetting = new CountDownLatch(1);
+        proceed = new CountDownLatch(1);
+        quit = new CountDownLatch(1);
+        DriverPool pool = new DriverPool(ENV, 1, 10, 1);
+        pool.release(pool.borrow());
+        assertTrue(resetting.await(5, TimeUnit.SECONDS));
+        pool.shutdown();
+        proceed.countDown();
+        assertTrue(quit.await(5, TimeUnit.SECONDS), "session reset while shutting down is quit");
+    }
+
+    @Test(timeOut = 20_000)
+    public void hungResetReturnsThePermit() throws Exception {
+        resetting = new CountDownLatch(1);
+        proceed = new CountDownLatch(1);
+        quit = new CountDownLatch(1);
+        Configuration.envDriverQuitTimeout().set("1");
+        DriverPool pool = new DriverPool(ENV, 1, 10, 5);
+        try {
+            WebDriver wedged = pool.borrow();
+            pool.release(wedged);
+            assertTrue(resetting.await(5, TimeUnit.SECONDS));
+            // The reset hangs until proceed, the pool must give up on the session after the quit timeout
+            WebDriver next = pool.borrow();
+            assertNotSame(next, wedged);
+            assertTrue(quit.await(5, TimeUnit.SECONDS), "the wedged session is quit");
+        } finally {
+            proceed.countDown();
+            Configuration.envDriverQuitTimeout().set("");
+            pool.shutdown();
+        }
+    }
+
+    @Test(timeOut = 20_000)
+    public void resetKeepsTheWindowOfTheBorrow() throws Exception {
+        List<String> closed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch switched = new CountDownLatch(2);
+        List<String> targets = Collections.synchronizedList(new ArrayList<>());
+        DriverFactory.register("pool-windows", caps -> {
+            WebDriver[] self = new WebDriver[1];
+            WebDriver.TargetLocator locator = (WebDriver.TargetLocator) Proxy.newProxyInstance(
+                    WebDriver.TargetLocator.class.getClassLoader(), new Class<?>[]{WebDriver.TargetLocator.class},
+                    (proxy, m, args) -> {
+                        targets.add((String) args[0]);
+                        switched.countDown();
+                        return self[0];
+                    });
+            self[0] = StubDriver.create((method, args) -> {
+                switch (method) {
+                    case "getWindowHandle":
+                        return "main";
+                    case "getWindowHandles":
+                        // The popup comes first, handle order is up to the driver
+                        return new LinkedHashSet<>(Arrays.asList("popup", "main"));
+                    case "switchTo":
+                        return locator;
+                    case "close":
+                        closed.add(targets.get(targets.size() - 1));
+                        return null;
+                    case "manage":
+                    case "navigate":
+                        return blank(method);
+                    default:
+                        return null;
+                }
+            });
+            return self[0];
+        });
+        DriverPool pool = new DriverPool("pool-windows", 1, 10, 5);
+        pool.release(pool.borrow());
+        assertTrue(switched.await(5, TimeUnit.SECONDS));
+        assertEquals(closed, Collections.singletonList("popup"));
+        assertEquals(targets.get(targets.size() - 1), "main", "the borrowed window stays current");
+        pool.shutdown();
+    }
+
+    // Like a browser that stopped answering, the driver call ignores interrupts
+    private static void stall() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (proceed.getCount() > 0 && System.nanoTime() < deadline) {
+            try {
+                proceed.await(10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ignored) {
+                // Keeps hanging
+            }
+        }
+    }
+
+    // Command groups (navigate, manage, switchTo) whose commands do nothing
+    private static Object blank(String method) throws NoSuchMethodException {
+        Class<?> type = WebDriver.class.getMethod(method).getReturnType();
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, m, args) -> null);
+    }
+}
@@ -0,0 +1,68 @@
+package com.xpxn.automation.config;
+
+import com.xpxn.automation.StubDriver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Timeout handling of background teardowns, with stub sessions that hang.
+ */
+public class DriverReaperTest {
+    private volatile CountDownLatch release;
+
+    @BeforeMethod
+    public void configure() {
+        release = new CountDownLatch(1);
+        Configuration.envDriverQuitTimeout().set("1");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void reset() {
+        release.countDown();
+        Configuration.envDriverQuitTimeout().set("");
+    }
+
+    @Test(timeOut = 20_000)
+    public void hangingQuitCountsAsLeak() throws InterruptedException {
+        long leaked = DriverReaper.getLeaked();
+        DriverReaper.reap(StubDriver.create((method, args) -> {
+            if ("quit".equals(method)) release.await(10, TimeUnit.SECONDS);
+            return null;
+        }));
+        while (DriverReaper.getLeaked() == leaked)
+            Thread.sleep(20);
+        assertEquals(DriverReaper.getLeaked(), leaked + 1);
+    }
+
+    @Test(timeOut = 20_000)
+    public void hangingStepGivesUpOnTheSession() throws InterruptedException {
+        CountDownLatch leaked = new CountDownLatch(1);
+        long start = System.nanoTime();
+        DriverReaper.submit("reset", () -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, leaked::countDown);
+        assertTrue(leaked.await(5, TimeUnit.SECONDS), "the session is given up on after the quit timeout");
+        assertTrue(System.nanoTime() - start >= TimeUnit.SECONDS.toNanos(1), "not before the timeout");
+    }
+
+    @Test(timeOut = 20_000)
+    public void finishedStepKeepsTheSession() throws InterruptedException {
+        CountDownLatch leaked = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        DriverReaper.submit("reset", done::countDown, leaked::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(leaked.await(500, TimeUnit.MILLISECONDS), "a step that finished in time keeps its session");
+    }
+}
@@ -0,0 +1,203 @@
+package com.xpxn.automation.config;
+
+import com.xpxn.automation.StubDriver;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+/**
+ * Queueing and slot accounting of the broker, with stub sessions instead of grid endpoints.
+ */
+public class GridBrokerTest {
+    private static final Capabilities CHROME = caps("chrome");
+    private static final Capabilities FIREFOX = caps("firefox");
+
+    private final List<URL> created = Collections.synchronizedList(new ArrayList<>());
+    private volatile CountDownLatch quitting = new CountDownLatch(0);
+    private volatile CountDownLatch quitGate = new CountDownLatch(0);
+
+    @BeforeMethod
+    public void reset() {
+        created.clear();
+        quitting = new CountDownLatch(0);
+        quitGate = new CountDownLatch(0);
+    }
+
+    @Test
+    public void newSessionsGoToTheLeastLoadedEndpoint() throws MalformedURLException {
+        GridBroker broker = broker(Arrays.asList("http://grid-a:4444/wd/hub|2", "http://grid-b:4444/wd/hub|2"), 1);
+        broker.acquire(CHROME);
+        broker.acquire(CHROME);
+        broker.acquire(CHROME);
+        assertEquals(created.stream().filter(url -> url.getHost().equals("grid-a")).count(), 2);
+        assertEquals(created.stream().filter(url -> url.getHost().equals("grid-b")).count(), 1);
+    }
+
+    @Test
+    public void releasedSessionsAreReusedForEqualCapabilities() throws MalformedURLException {
+        GridBroker broker = broker(Collections.singletonList("http://grid:4444/wd/hub|2"), 1);
+        WebDriver first = broker.acquire(CHROME);
+        broker.release(first);
+        assertSame(broker.acquire(CHROME), first);
+        assertNotSame(broker.acquire(FIREFOX), first);
+        assertEquals(created.size(), 2);
+    }
+
+    @Test
+    public void fullGridTimesOut() throws MalformedURLException {
+        GridBroker broker = broker(Collections.singletonList("http://grid:4444/wd/hub|1"), 1);
+        broker.acquire(CHROME);
+        expectThrows(WebDriverException.class, () -> broker.acquire(CHROME));
+    }
+
+    @Test
+    public void failedCreationIsRetriedOnTheNextEndpoint() throws MalformedURLException {
+        GridBroker broker = new GridBroker(Arrays.asList("http://down:4444/wd/hub|1", "http://grid:4444/wd/hub|1"), 1, 1,
+                (url, caps) -> {
+                    if (url.getHost().equals("down")) throw new WebDriverException("connection refused");
+                    return session(url, caps);
+                });
+        broker.acquire(CHROME);
+        assertEquals(created.size(), 1);
+        assertEquals(created.get(0).getHost(), "grid");
+    }
+
+    /**
+     * Ticket 2 gives up while ticket 1 waits for the only slot. Once ticket 1 is served, ticket 3 must be next
+     * instead of waiting for the abandoned ticket until it times out.
+     */
+    @Test(timeOut = 20_000)
+    public void abandonedTicketDoesNotStallTheQueue() throws Exception {
+        GridBroker broker = broker(Collections.singletonList("http://grid:4444/wd/hub|1"), 5);
+        WebDriver held = broker.acquire(CHROME);
+        ExecutorService threads = Executors.newCachedThreadPool();
+        try {
+            List<Thread> waiting = Collections.synchronizedList(new ArrayList<>());
+            Future<WebDriver> second = threads.submit(() -> waitInLine(broker, waiting));
+            awaitParked(waiting, 1);
+            Future<WebDriver> third = threads.submit(() -> waitInLine(broker, waiting));
+            awaitParked(waiting, 2);
+            Future<WebDriver> fourth = threads.submit(() -> waitInLine(broker, waiting));
+            awaitParked(waiting, 3);
+
+            waiting.get(1).interrupt();
+            expectThrows(ExecutionException.class, third::get);
+            broker.discard(held);
+            broker.discard(second.get(5, TimeUnit.SECONDS));
+            long start = System.nanoTime();
+            fourth.get(5, TimeUnit.SECONDS);
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3), "ticket 3 waited for the timeout");
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test(timeOut = 20_000)
+    public void sessionReleasedWhileWaitingIsReused() throws Exception {
+        GridBroker broker = broker(Collections.singletonList("http://grid:4444/wd/hub|1"), 5);
+        WebDriver held = broker.acquire(CHROME);
+        ExecutorService threads = Executors.newCachedThreadPool();
+        try {
+            List<Thread> waiting = Collections.synchronizedList(new ArrayList<>());
+            Future<WebDriver> waiter = threads.submit(() -> waitInLine(broker, waiting));
+            awaitParked(waiting, 1);
+            broker.release(held);
+            assertSame(waiter.get(3, TimeUnit.SECONDS), held);
+            assertEquals(created.size(), 1, "the released session is reused, not quit and recreated");
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    public void releasingTwiceKeepsOneIdleEntry() throws MalformedURLException {
+        GridBroker broker = broker(Collections.singletonList("http://grid:4444/wd/hub|2"), 1);
+        WebDriver first = broker.acquire(CHROME);
+        broker.release(first);
+        broker.release(first);
+        assertSame(broker.acquire(CHROME), first);
+        assertNotSame(broker.acquire(CHROME), first);
+        assertEquals(created.size(), 2);
+    }
+
+    @Test(timeOut = 20_000)
+    public void sacrificedIdleSessionIsQuitOutsideTheLock() throws Exception {
+        GridBroker broker = broker(Collections.singletonList("http://grid:4444/wd/hub|1"), 5);
+        broker.release(broker.acquire(FIREFOX));
+        quitting = new CountDownLatch(1);
+        quitGate = new CountDownLatch(1);
+        ExecutorService threads = Executors.newCachedThreadPool();
+        try {
+            // Needs the slot of the idle firefox session, whose quit hangs
+            WebDriver chrome = threads.submit(() -> broker.acquire(CHROME)).get(3, TimeUnit.SECONDS);
+            assertTrue(quitting.await(5, TimeUnit.SECONDS), "idle session is quit");
+            assertTrue(threads.submit(() -> broker.owns(chrome)).get(3, TimeUnit.SECONDS),
+                    "the broker stays usable while the quit is pending");
+        } finally {
+            quitGate.countDown();
+            threads.shutdownNow();
+        }
+    }
+
+    private WebDriver waitInLine(GridBroker broker, List<Thread> waiting) {
+        waiting.add(Thread.currentThread());
+        return broker.acquire(CHROME);
+    }
+
+    private static void awaitParked(List<Thread> waiting, int count) throws InterruptedException {
+        while (waiting.size() < count || waiting.get(count - 1).getState() != Thread.State.TIMED_WAITING)
+            Thread.sleep(5);
+    }
+
+    private GridBroker broker(List<String> urls, long timeoutSeconds) throws MalformedURLException {
+        BiFunction<URL, Capabilities, WebDriver> sessions = this::session;
+        return new GridBroker(urls, 1, timeoutSeconds, sessions);
+    }
+
+    private WebDriver session(URL url, Capabilities caps) {
+        created.add(url);
+        return StubDriver.create((method, args) -> {
+            switch (method) {
+                case "manage":
+                    return StubDriver.noop(WebDriver.Options.class);
+                case "navigate":
+                    return StubDriver.noop(WebDriver.Navigation.class);
+                case "quit":
+                    quitting.countDown();
+                    quitGate.await(10, TimeUnit.SECONDS);
+                    return null;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static Capabilities caps(String browser) {
+        MutableCapabilities caps = new MutableCapabilities();
+        caps.setCapability("browserName", browser);
+        return caps;
+    }
+}
@@ -0,0 +1,82 @@
+package com.xpxn.automation.config;
+
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.Proxy;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.remote.CapabilityType;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+/**
+ * Runs against the load profile of test.properties: eager loading, no images, css on, ad hosts blocked.
+ */
+public class LoadProfileTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void chromiumBlocksThroughPreferencesAndHostRules() {
+        MutableCapabilities caps = LoadProfile.apply(new ChromeOptions(), "chrome");
+        assertEquals(caps.getCapability(CapabilityType.PAGE_LOAD_STRATEGY), "eager");
+        Map<String, Object> options = (Map<String, Object>) caps.asMap().get(ChromeOptions.CAPABILITY);
+        Map<String, Object> prefs = (Map<String, Object>) options.get("prefs");
+        assertEquals(prefs.get("profile.managed_default_content_settings.images"), 2);
+        assertNull(prefs.get("profile.managed_default_content_settings.stylesheets"));
+        List<String> args = (List<String>) options.get("args");
+        assertTrue(args.stream().anyMatch(arg -> arg.startsWith("--host-resolver-rules=MAP *.doubleclick.net ~NOTFOUND")), args.toString());
+        assertNull(caps.getCapability(CapabilityType.PROXY), "chromium needs no proxy");
+    }
+
+    @Test
+    public void otherBrowsersBlockThroughTheEmbeddedProxy() {
+        MutableCapabilities caps = LoadProfile.apply(new FirefoxOptions(), "firefox");
+        Proxy proxy = (Proxy) caps.getCapability(CapabilityType.PROXY);
+        assertNotNull(proxy);
+        assertTrue(proxy.getHttpProxy().startsWith("127.0.0.1:"), proxy.getHttpProxy());
+        assertEquals(proxy.getSslProxy(), proxy.getHttpProxy());
+    }
+
+    @Test
+    public void remoteSessionsNeverGetTheLoopbackProxy() {
+        MutableCapabilities caps = LoadProfile.apply(new DesiredCapabilities(), null);
+        assertEquals(caps.getCapability(CapabilityType.PAGE_LOAD_STRATEGY), "eager");
+        assertNull(caps.getCapability(CapabilityType.PROXY), "the grid cannot reach a loopback proxy");
+    }
+
+    @Test
+    public void remoteSessionsKeepTheExternalProxy() {
+        Configuration.envLoadProxy().set("proxy.corp:3128");
+        try {
+            Proxy proxy = (Proxy) LoadProfile.apply(new DesiredCapabilities(), null).getCapability(CapabilityType.PROXY);
+            assertNotNull(proxy);
+            assertEquals(proxy.getHttpProxy(), "proxy.corp:3128");
+        } finally {
+            Configuration.envLoadProxy().set("");
+        }
+    }
+
+    @Test
+    public void remoteEmbeddedProxyRefusesLoopbackInterfaces() {
+        Configuration.envLoadBind().set("127.0.0.1");
+        try {
+            expectThrows(IllegalArgumentException.class, () -> LoadProfile.apply(new DesiredCapabilities(), null));
+        } finally {
+            Configuration.envLoadBind().set("");
+        }
+    }
+
+    @Test
+    public void inProcessDriverNeedsNoProxy() {
+        MutableCapabilities caps = LoadProfile.apply(InProcessDriver.capabilities(), InProcessDriver.BROWSER);
+        assertNull(caps.getCapability(CapabilityType.PROXY));
+    }
+}
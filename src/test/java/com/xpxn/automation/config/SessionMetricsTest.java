@@ -0,0 +1,54 @@
+package com.xpxn.automation.config;
+
+import com.xpxn.automation.StubDriver;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Memory sampling of launched sessions, with stub drivers instead of browsers.
+ */
+public class SessionMetricsTest {
+
+    @Test(timeOut = 20_000)
+    public void memoryIsSampledOffTheLaunchingThread() throws InterruptedException {
+        if (!new File("/proc/self").exists()) throw new SkipException("Needs /proc");
+        AtomicReference<Thread> sampling = new AtomicReference<>();
+        CountDownLatch sampled = new CountDownLatch(1);
+        MutableCapabilities caps = new MutableCapabilities();
+        caps.setCapability("chrome", Collections.singletonMap("userDataDir", "/tmp/session-metrics-test-profile"));
+        WebDriver driver = StubDriver.create((method, args) -> {
+            if ("getCapabilities".equals(method)) {
+                sampling.set(Thread.currentThread());
+                sampled.countDown();
+                return caps;
+            }
+            return null;
+        }, HasCapabilities.class);
+
+        SessionMetrics.launched("chrome", driver, TimeUnit.MILLISECONDS.toNanos(5));
+        assertTrue(sampled.await(5, TimeUnit.SECONDS), "memory is sampled");
+        assertNotEquals(sampling.get(), Thread.currentThread(), "the process table is scanned in the background");
+    }
+
+    @Test
+    public void sessionsWithoutLocalBrowserHaveNoProcesses() {
+        MutableCapabilities caps = new MutableCapabilities();
+        caps.setCapability("browserName", "chrome");
+        WebDriver remote = StubDriver.create((method, args) -> "getCapabilities".equals(method) ? caps : null,
+                HasCapabilities.class);
+        assertTrue(SessionMetrics.sessionProcesses(remote).isEmpty());
+        assertTrue(SessionMetrics.report().contains("browser RSS"));
+    }
+}
@@ -0,0 +1,142 @@
+package com.xpxn.automation.listeners;
+
+import com.xpxn.automation.config.Configuration;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+public class DurationSchedulerTest {
+    private Path location;
+
+    @BeforeMethod
+    public void history() throws IOException {
+        location = Files.createTempFile("durations", ".properties");
+        Properties entries = new Properties();
+        entries.setProperty("a.Slow#one", "6000");
+        entries.setProperty("a.Slow#two", "4000");
+        entries.setProperty("a.Medium#one", "6000");
+        entries.setProperty("a.Small#one", "3000");
+        entries.setProperty("a.Tiny#one", "1000");
+        entries.setProperty("a.Quick#one", "0");
+        try (OutputStream out = Files.newOutputStream(location)) {
+            entries.store(out, null);
+        }
+        DurationScheduler.use(new DurationStore(location));
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void reset() throws IOException {
+        Configuration.envShardTotal().set("");
+        Configuration.envShardIndex().set("");
+        DurationScheduler.use(null);
+        Files.deleteIfExists(location);
+    }
+
+    @Test
+    public void classMillisSumsTheMethodsOfAClass() {
+        DurationStore store = new DurationStore(location);
+        Assert.assertEquals(store.classMillis("a.Slow"), 10000);
+        Assert.assertEquals(store.classMillis("a.Quick"), 0);
+        Assert.assertEquals(store.classMillis("a.Unknown"), -1);
+        Assert.assertEquals(store.classMillis("a.Slo"), -1, "Prefixes of other classes must not match");
+    }
+
+    @Test
+    public void saveBlendsNewMeasurementsWithTheHistory() {
+        DurationStore store = new DurationStore(location);
+        store.record("a.Slow", "one", 2000);
+        store.record("a.Fresh", "one", 500);
+        store.save();
+
+        DurationStore reloaded = new DurationStore(location);
+        Assert.assertEquals(reloaded.classMillis("a.Slow"), 4000 + (6000 + 2000) / 2);
+        Assert.assertEquals(reloaded.classMillis("a.Fresh"), 500);
+    }
+
+    @Test
+    public void ordersClassesAndTestsLongestFirst() {
+        XmlSuite suite = suite(new String[]{"a.Tiny", "a.Slow"}, new String[]{"a.Small", "a.Unknown", "a.Medium"});
+        new DurationScheduler().alter(Collections.singletonList(suite));
+
+        // Unknown classes are estimated at the average of the known ones: (1000 + 10000 + 3000 + 6000) / 4
+        Assert.assertEquals(names(suite.getTests().get(0)), "[a.Medium, a.Unknown, a.Small]");
+        Assert.assertEquals(names(suite.getTests().get(1)), "[a.Slow, a.Tiny]");
+    }
+
+    @Test
+    public void shardsCoverEveryClassOnceAndBalanceTheLoad() {
+        String[] classes = {"a.Slow", "a.Medium", "a.Small", "a.Tiny", "a.Quick", "a.Unknown"};
+        Set<String> seen = new HashSet<>();
+        List<List<String>> shards = new ArrayList<>();
+        for (int index = 0; index < 3; index++) {
+            Configuration.envShardTotal().set("3");
+            Configuration.envShardIndex().set(String.valueOf(index));
+            XmlSuite suite = suite(classes);
+            new DurationScheduler().alter(Collections.singletonList(suite));
+            List<String> shard = new ArrayList<>();
+            for (XmlTest test : suite.getTests())
+                for (XmlClass testClass : test.getXmlClasses())
+                    shard.add(testClass.getName());
+            for (String name : shard)
+                Assert.assertTrue(seen.add(name), name + " ran on more than one shard");
+            shards.add(shard);
+        }
+        Assert.assertEquals(seen.size(), classes.length);
+        // Unknown at the average of 4000 ms, Quick floored at 1 ms: loads 10000 / 6000 + 1000 + 1 / 4000 + 3000
+        Assert.assertEquals(shards.get(0).toString(), "[a.Slow]");
+        Assert.assertEquals(shards.get(1).toString(), "[a.Medium, a.Tiny, a.Quick]");
+        Assert.assertEquals(shards.get(2).toString(), "[a.Unknown, a.Small]");
+    }
+
+    @Test
+    public void emptyShardsDropTheirTests() {
+        Configuration.envShardTotal().set("2");
+        Configuration.envShardIndex().set("1");
+        XmlSuite suite = suite(new String[]{"a.Slow"}, new String[]{"a.Small", "a.Tiny"});
+        new DurationScheduler().alter(Collections.singletonList(suite));
+
+        Assert.assertEquals(suite.getTests().size(), 1);
+        Assert.assertEquals(names(suite.getTests().get(0)), "[a.Small, a.Tiny]");
+    }
+
+    @Test
+    public void rejectsAnIndexOutsideOfTheShards() {
+        Configuration.envShardTotal().set("2");
+        Configuration.envShardIndex().set("2");
+        Assert.expectThrows(IllegalArgumentException.class,
+                () -> new DurationScheduler().alter(Collections.singletonList(suite(new String[]{"a.Slow"}))));
+    }
+
+    private static XmlSuite suite(String[]... tests) {
+        XmlSuite suite = new XmlSuite();
+        for (int i = 0; i < tests.length; i++) {
+            XmlTest test = new XmlTest(suite);
+            test.setName("test" + i);
+            for (String name : tests[i])
+                test.getXmlClasses().add(new XmlClass(name, false));
+        }
+        return suite;
+    }
+
+    private static String names(XmlTest test) {
+        List<String> names = new ArrayList<>();
+        for (XmlClass testClass : test.getXmlClasses())
+            names.add(testClass.getName());
+        return names.toString();
+    }
+}
@@ -0,0 +1,123 @@
+package com.xpxn.automation.listeners;
+
+import com.xpxn.automation.listeners.impact.AdminLoginPage;
+import com.xpxn.automation.listeners.impact.LoginFlow;
+import com.xpxn.automation.listeners.impact.LoginPage;
+import com.xpxn.automation.listeners.impact.LoginStep;
+import com.xpxn.automation.listeners.impact.Step;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Indexes the compiled classes of the {@code impact} fixture package.
+ */
+public class ImpactIndexTest {
+    private static final String PAGE = LoginPage.class.getName();
+    private static final String ADMIN = AdminLoginPage.class.getName();
+    private static final String FLOW = LoginFlow.class.getName();
+    private ImpactIndex index;
+
+    /**
+     * @return Index over a copy of the fixture classes
+     */
+    static ImpactIndex fixtures(Path cache) throws IOException {
+        Path root = Files.createTempDirectory("impact");
+        for (Class<?> type : Arrays.asList(LoginPage.class, AdminLoginPage.class, Step.class, LoginStep.class, LoginFlow.class)) {
+            String file = type.getName().replace('.', '/') + ".class";
+            Path target = root.resolve(file);
+            Files.createDirectories(target.getParent());
+            try (InputStream in = type.getClassLoader().getResourceAsStream(file)) {
+                Files.copy(in, target);
+            }
+        }
+        return ImpactIndex.open(root, cache);
+    }
+
+    @BeforeClass
+    public void index() throws IOException {
+        index = fixtures(Files.createTempDirectory("cache").resolve("impact-index.properties"));
+    }
+
+    @Test
+    public void fieldReadsAreFollowedIntoThePage() {
+        Set<String> tokens = index.reach(FLOW, "fieldRead");
+        assertTrue(tokens.contains("F " + PAGE + ".user"), tokens.toString());
+        assertTrue(tokens.contains("F " + PAGE + ".password"), tokens.toString());
+        assertFalse(tokens.contains("F " + PAGE + ".submit"), tokens.toString());
+    }
+
+    @Test
+    public void locatorNamesAreStringConstants() {
+        Set<String> tokens = index.reach(FLOW, "byName");
+        assertTrue(tokens.contains("S submit"), tokens.toString());
+        assertTrue(tokens.contains("C " + PAGE), tokens.toString());
+    }
+
+    @Test
+    public void methodReferencesAreBootstrapArguments() {
+        Set<String> tokens = index.reach(FLOW, "methodReference");
+        assertTrue(tokens.contains("M " + PAGE + ".login"), tokens.toString());
+        assertTrue(tokens.contains("F " + PAGE + ".user"), tokens.toString());
+    }
+
+    @Test
+    public void constructorReferencesReachTheClass() {
+        Set<String> tokens = index.reach(FLOW, "constructorReference");
+        assertTrue(tokens.contains("C " + ADMIN), tokens.toString());
+        assertTrue(tokens.contains("M " + ADMIN + ".<init>"), tokens.toString());
+    }
+
+    @Test
+    public void lambdaBodiesBelongToTheirMethod() {
+        assertTrue(index.reach(FLOW, "lambda").contains("S submit"));
+    }
+
+    @Test
+    public void overriddenCallsAreMarkedAsDispatched() {
+        assertTrue(index.reach(FLOW, "overridden").contains("D " + PAGE + ".open"));
+        assertTrue(index.reach(FLOW, "throughInterface").contains("D " + Step.class.getName() + ".run"));
+        for (String method : Arrays.asList("fieldRead", "byName", "methodReference", "lambda", "unrelated"))
+            for (String token : index.reach(FLOW, method))
+                assertFalse(token.startsWith("D "), method + " " + token);
+    }
+
+    @Test
+    public void familyCoversSubclassesAndImplementations() {
+        assertEquals(index.family(PAGE), new HashSet<>(Arrays.asList(PAGE, ADMIN)));
+        assertEquals(index.family(Step.class.getName()), new HashSet<>(Arrays.asList(Step.class.getName(), LoginStep.class.getName())));
+    }
+
+    @Test
+    public void cachesOfAnOlderFormatAreRebuilt() throws IOException {
+        Path cache = Files.createTempDirectory("cache").resolve("impact-index.properties");
+        fixtures(cache);
+        Properties entries = new Properties();
+        try (InputStream in = Files.newInputStream(cache)) {
+            entries.load(in);
+        }
+        assertEquals(entries.getProperty("version"), "2");
+        // What the previous parser stored: no version, no method references
+        entries.remove("version");
+        entries.setProperty("method." + FLOW + "#methodReference", "C java.util.function.Consumer");
+        try (OutputStream out = Files.newOutputStream(cache)) {
+            entries.store(out, null);
+        }
+
+        Set<String> tokens = fixtures(cache).reach(FLOW, "methodReference");
+        assertTrue(tokens.contains("M " + PAGE + ".login"), tokens.toString());
+    }
+}
@@ -0,0 +1,86 @@
+package com.xpxn.automation.listeners;
+
+import com.xpxn.automation.listeners.impact.AdminLoginPage;
+import com.xpxn.automation.listeners.impact.LoginFlow;
+import com.xpxn.automation.listeners.impact.LoginPage;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class ImpactSelectorTest {
+    private static final String FLOW = LoginFlow.class.getName();
+    private ImpactIndex index;
+
+    @BeforeClass
+    public void index() throws IOException {
+        index = ImpactIndexTest.fixtures(Files.createTempDirectory("cache").resolve("impact-index.properties"));
+    }
+
+    @Test
+    public void locatorDeclarationsAreNamed() {
+        assertEquals(ImpactSelector.locators(Arrays.asList(
+                "    private By loginBtn = By.id(\"login\");",
+                "By status;",
+                "",
+                "    // Moved to the header",
+                " * the submit button",
+                "    /* old */")), new HashSet<>(Arrays.asList("loginBtn", "status")));
+        assertEquals(ImpactSelector.locators(Collections.<String>emptyList()), Collections.emptySet());
+    }
+
+    @Test
+    public void otherCodeIsNotALocatorChange() {
+        assertNull(ImpactSelector.locators(Arrays.asList("By user = By.id(\"user\");", "public void login() {")));
+        assertNull(ImpactSelector.locators(Arrays.asList("ByUser user;")));
+        assertNull(ImpactSelector.locators(null));
+    }
+
+    @Test
+    public void locatorChangesSelectTheTestsReadingThem() {
+        Map<String, Set<String>> changed = Collections.singletonMap(LoginPage.class.getName(), Collections.singleton("user"));
+        assertTrue(affected(changed, "fieldRead"));
+        assertTrue(affected(changed, "methodReference"));
+        assertFalse(affected(changed, "byName"));
+        assertFalse(affected(changed, "unrelated"));
+    }
+
+    @Test
+    public void locatorsLookedUpByNameSelectTheirTests() {
+        Map<String, Set<String>> changed = Collections.singletonMap(LoginPage.class.getName(), Collections.singleton("submit"));
+        assertTrue(affected(changed, "byName"));
+        assertTrue(affected(changed, "lambda"));
+        assertFalse(affected(changed, "fieldRead"));
+    }
+
+    @Test
+    public void codeChangesSelectEveryTestReachingTheClass() {
+        Map<String, Set<String>> changed = Collections.singletonMap(AdminLoginPage.class.getName(), null);
+        assertTrue(affected(changed, "constructorReference"));
+        assertFalse(affected(changed, "fieldRead"));
+    }
+
+    @Test
+    public void overriddenCallsAlwaysRun() {
+        Map<String, Set<String>> changed = Collections.singletonMap("pages.Unrelated", null);
+        assertTrue(affected(changed, "overridden"));
+        assertTrue(affected(changed, "throughInterface"));
+        assertFalse(affected(changed, "fieldRead"));
+        assertFalse(affected(Collections.<String, Set<String>>emptyMap(), "overridden"), "Nothing changed");
+    }
+
+    private boolean affected(Map<String, Set<String>> changed, String method) {
+        return ImpactSelector.isAffected(index, changed, FLOW, method);
+    }
+}
@@ -0,0 +1,152 @@
+package com.xpxn.automation.listeners;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class JUnitReportTest {
+    private Path folder;
+
+    @BeforeMethod
+    public void folder() throws IOException {
+        folder = Files.createTempDirectory("junit");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void cleanup() throws IOException {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void writesOneSuitePerClassWithItsCounters() throws Exception {
+        Path stream = stream(
+                "{\"event\":\"suite\",\"suite\":\"s\",\"time\":1}",
+                result("a.One", "passes", "PASS", 1500, ""),
+                result("a.Two", "fails", "FAIL", 250,
+                        ",\"error\":\"java.lang.AssertionError\",\"message\":\"<a & \\\"b\\\">\",\"stack\":\"at a.Two\\n\""),
+                result("a.One", "skips", "SKIP", 0, ""),
+                result("a.Two", "setUp", "CONFIG_FAIL", 5, ",\"error\":\"java.lang.IllegalStateException\",\"message\":\"null\",\"stack\":\"\""),
+                "{\"event\":\"end\",\"suite\":\"s\",\"time\":2}");
+        Assert.assertEquals(JUnitReport.convert(stream, folder.resolve("out")), 2);
+
+        Element one = suite("a.One");
+        Assert.assertEquals(one.getAttribute("tests"), "2");
+        Assert.assertEquals(one.getAttribute("skipped"), "1");
+        Assert.assertEquals(one.getAttribute("failures"), "0");
+        Assert.assertEquals(one.getAttribute("time"), "1.500");
+        NodeList cases = one.getElementsByTagName("testcase");
+        Assert.assertEquals(((Element) cases.item(0)).getAttribute("name"), "passes");
+        Assert.assertEquals(((Element) cases.item(0)).getChildNodes().getLength(), 0);
+        Assert.assertEquals(((Element) cases.item(1)).getElementsByTagName("skipped").getLength(), 1);
+
+        Element two = suite("a.Two");
+        Assert.assertEquals(two.getAttribute("tests"), "2");
+        Assert.assertEquals(two.getAttribute("failures"), "1");
+        Assert.assertEquals(two.getAttribute("errors"), "1");
+        Element failure = (Element) two.getElementsByTagName("failure").item(0);
+        Assert.assertEquals(failure.getAttribute("type"), "java.lang.AssertionError");
+        Assert.assertEquals(failure.getAttribute("message"), "<a & \"b\">");
+        Assert.assertEquals(failure.getTextContent(), "at a.Two\n");
+        Assert.assertEquals(((Element) two.getElementsByTagName("error").item(0)).getAttribute("type"),
+                "java.lang.IllegalStateException");
+    }
+
+    @Test
+    public void skipsTheCutOffLineOfACrashedRun() throws Exception {
+        Path stream = stream(
+                result("a.One", "passes", "PASS", 10, ""),
+                "{\"event\":\"result\",\"test\":\"framework\",\"class\":\"a.One\",\"meth");
+        Assert.assertEquals(JUnitReport.convert(stream, folder.resolve("out")), 1);
+        Assert.assertEquals(suite("a.One").getAttribute("tests"), "1");
+    }
+
+    @Test
+    public void interleavedClassesAreWrittenOneAfterTheOther() throws Exception {
+        Path stream = stream(
+                result("a.One", "first", "FAIL", 1, ",\"error\":\"java.lang.AssertionError\",\"message\":\"\u00e9t\u00e9 \u2713\",\"stack\":\"\""),
+                result("a.Two", "first", "PASS", 1, ""),
+                result("a.Three", "first", "PASS", 1, ""),
+                result("a.One", "second", "PASS", 1, ""),
+                result("a.Three", "second", "SKIP", 1, ""),
+                result("a.One", "third", "PASS", 1, ""));
+        Assert.assertEquals(JUnitReport.convert(stream, folder.resolve("out")), 3);
+
+        NodeList cases = suite("a.One").getElementsByTagName("testcase");
+        Assert.assertEquals(cases.getLength(), 3);
+        Assert.assertEquals(((Element) cases.item(1)).getAttribute("name"), "second");
+        Assert.assertEquals(((Element) cases.item(2)).getAttribute("name"), "third");
+        Assert.assertEquals(((Element) suite("a.One").getElementsByTagName("failure").item(0)).getAttribute("message"),
+                "\u00e9t\u00e9 \u2713");
+        Assert.assertEquals(suite("a.Three").getElementsByTagName("skipped").getLength(), 1);
+        Assert.assertEquals(suite("a.Two").getAttribute("tests"), "1");
+    }
+
+    @Test
+    public void mergesTheStreamsOfForkedWorkers() throws Exception {
+        Path first = worker("results-1.jsonl",
+                result("a.One", "passes", "PASS", 100, ""),
+                result("a.Two", "passes", "PASS", 100, ""));
+        Path second = worker("results-2.jsonl",
+                result("a.One", "fails", "FAIL", 200, ",\"error\":\"java.lang.AssertionError\",\"message\":\"no\",\"stack\":\"\""),
+                result("a.Three", "skips", "SKIP", 0, ""));
+        Assert.assertEquals(JUnitReport.convert(Arrays.asList(first, second), folder.resolve("out")), 3);
+
+        Element one = suite("a.One");
+        Assert.assertEquals(one.getAttribute("tests"), "2");
+        Assert.assertEquals(one.getAttribute("failures"), "1");
+        Assert.assertEquals(one.getAttribute("time"), "0.300");
+        NodeList cases = one.getElementsByTagName("testcase");
+        Assert.assertEquals(((Element) cases.item(0)).getAttribute("name"), "passes");
+        Assert.assertEquals(((Element) cases.item(1)).getAttribute("name"), "fails");
+        Assert.assertEquals(suite("a.Two").getAttribute("tests"), "1");
+        Assert.assertEquals(suite("a.Three").getAttribute("skipped"), "1");
+    }
+
+    @Test
+    public void findsTheWorkerStreamsThroughAGlob() throws IOException {
+        Path first = worker("results-1.jsonl", result("a.One", "passes", "PASS", 1, ""));
+        Path second = worker("results-2.jsonl", result("a.One", "passes", "PASS", 1, ""));
+        worker("other.jsonl", result("a.One", "passes", "PASS", 1, ""));
+        Assert.assertEquals(JUnitReport.streams(folder.resolve("results-*.jsonl").toString()), Arrays.asList(first, second));
+        Assert.assertEquals(JUnitReport.streams(first.toString()), Collections.singletonList(first));
+    }
+
+    private Path stream(String... lines) throws IOException {
+        return worker("results.jsonl", lines);
+    }
+
+    private Path worker(String name, String... lines) throws IOException {
+        return Files.write(folder.resolve(name), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+
+    private static String result(String className, String method, String status, long millis, String error) {
+        return "{\"event\":\"result\",\"test\":\"framework\",\"class\":\"" + className + "\",\"method\":\"" + method
+                + "\",\"status\":\"" + status + "\",\"start\":1,\"durationMs\":" + millis + ",\"thread\":\"main\"" + error + "}";
+    }
+
+    private Element suite(String className) throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(folder.resolve("out").resolve("TEST-" + className + ".xml").toFile());
+        Element root = document.getDocumentElement();
+        Assert.assertEquals(root.getTagName(), "testsuite");
+        Assert.assertEquals(root.getAttribute("name"), className);
+        return root;
+    }
+}
@@ -0,0 +1,86 @@
+package com.xpxn.automation.listeners;
+
+import com.xpxn.automation.config.Configuration;
+import org.testng.Assert;
+import org.testng.ITestNGListener;
+import org.testng.TestNG;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+public class ResultStreamTest {
+    private Path location;
+
+    @BeforeMethod
+    public void stream() throws IOException {
+        location = Files.createTempFile("results", ".jsonl");
+        Files.write(location, "stale line of an earlier run\n".getBytes(StandardCharsets.UTF_8));
+        Configuration.envReportStream().set(location.toString());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void reset() throws IOException {
+        Configuration.envReportStream().set("");
+        Files.deleteIfExists(location);
+    }
+
+    @Test
+    public void reopeningInTheSameJvmAppends() throws IOException {
+        run(Passing.class);
+        // A reused fork runs the next test class against the same stream
+        run(Failing.class);
+
+        List<String> lines = Files.readAllLines(location, StandardCharsets.UTF_8);
+        Assert.assertEquals(lines.size(), 6, String.join("\n", lines));
+        Assert.assertTrue(lines.get(0).startsWith("{\"event\":\"suite\",\"suite\":\"Passing\""), lines.get(0));
+        Assert.assertTrue(lines.get(1).contains("\"class\":\"" + Passing.class.getName() + "\",\"method\":\"passes\",\"status\":\"PASS\""),
+                lines.get(1));
+        Assert.assertTrue(lines.get(3).startsWith("{\"event\":\"suite\",\"suite\":\"Failing\""), lines.get(3));
+        Assert.assertTrue(lines.get(4).contains("\"method\":\"fails\",\"status\":\"FAIL\""), lines.get(4));
+        Assert.assertTrue(lines.get(4).contains("\"message\":\"expected \\\"x\\\"\\nbut found y\""), lines.get(4));
+        Assert.assertTrue(lines.get(5).startsWith("{\"event\":\"end\",\"suite\":\"Failing\""), lines.get(5));
+    }
+
+    @Test
+    public void escapesControlCharacters() {
+        Assert.assertEquals(ResultStream.escape("a\"b\\c\td\u0001"), "a\\\"b\\\\c\\td\\u0001");
+    }
+
+    private static void run(Class<?> testClass) {
+        XmlSuite suite = new XmlSuite();
+        suite.setName(testClass.getSimpleName());
+        XmlTest test = new XmlTest(suite);
+        test.setName("fixture");
+        test.getXmlClasses().add(new XmlClass(testClass));
+        TestNG testng = new TestNG(false);
+        testng.setUseDefaultListeners(false);
+        testng.setVerbose(0);
+        testng.setXmlSuites(Collections.singletonList(suite));
+        testng.addListener((ITestNGListener) new ResultStream());
+        testng.run();
+    }
+
+    // The fixture group is excluded from unit.xml, these run only through run()
+    public static class Passing {
+        @Test(groups = "fixture")
+        public void passes() {
+        }
+    }
+
+    public static class Failing {
+        @Test(groups = "fixture")
+        public void fails() {
+            throw new AssertionError("expected \"x\"\nbut found y");
+        }
+    }
+}
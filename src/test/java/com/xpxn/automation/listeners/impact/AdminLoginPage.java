@@ -0,0 +1,12 @@
+package com.xpxn.automation.listeners.impact;
+
+import org.openqa.selenium.By;
+
+public class AdminLoginPage extends LoginPage {
+    By token = By.id("otp");
+
+    @Override
+    public void open() {
+        use(token);
+    }
+}
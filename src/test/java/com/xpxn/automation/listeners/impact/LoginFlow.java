@@ -0,0 +1,44 @@
+package com.xpxn.automation.listeners.impact;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Test class shape indexed by {@code ImpactIndexTest}: every method reaches the page in another way.
+ */
+public class LoginFlow {
+    public void fieldRead() {
+        new LoginPage().login();
+    }
+
+    public void byName() {
+        new LoginPage().submit();
+    }
+
+    public void methodReference() {
+        Consumer<LoginPage> login = LoginPage::login;
+        login.accept(null);
+    }
+
+    public void constructorReference() {
+        Supplier<AdminLoginPage> page = AdminLoginPage::new;
+        page.get();
+    }
+
+    public void lambda() {
+        Runnable submit = () -> new LoginPage().submit();
+        submit.run();
+    }
+
+    public void overridden() {
+        new LoginPage().open();
+    }
+
+    public void throughInterface(Step step) {
+        step.run(null);
+    }
+
+    public void unrelated() {
+        String.valueOf(1).length();
+    }
+}
@@ -0,0 +1,31 @@
+package com.xpxn.automation.listeners.impact;
+
+import org.openqa.selenium.By;
+
+/**
+ * Page object shape indexed by {@code ImpactIndexTest}, never instantiated against a browser.
+ */
+public class LoginPage {
+    By user = By.id("username");
+    By password = By.id("pass");
+    By submit = By.cssSelector("form button");
+
+    public void login() {
+        use(user);
+        use(password);
+    }
+
+    public void submit() {
+        use(find("submit"));
+    }
+
+    public void open() {
+    }
+
+    By find(String name) {
+        return By.id(name);
+    }
+
+    void use(By by) {
+    }
+}
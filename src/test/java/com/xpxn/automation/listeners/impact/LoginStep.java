@@ -0,0 +1,8 @@
+package com.xpxn.automation.listeners.impact;
+
+public class LoginStep implements Step {
+    @Override
+    public void run(LoginPage page) {
+        page.login();
+    }
+}
@@ -0,0 +1,5 @@
+package com.xpxn.automation.listeners.impact;
+
+public interface Step {
+    void run(LoginPage page);
+}
@@ -0,0 +1,96 @@
+package com.xpxn.automation.load;
+
+import com.xpxn.automation.StubDriver;
+import com.xpxn.automation.config.DriverFactory;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class LoadScenarioTest {
+    private static final String ENV = "load-stub";
+
+    @Test
+    public void reportsExactPercentiles() {
+        LoadScenario scenario = new LoadScenario(ENV, 1, 0, 0, 1000);
+        List<Long> samples = new ArrayList<>();
+        for (long ms = 1; ms <= 200; ms++)
+            samples.add(TimeUnit.MILLISECONDS.toNanos(ms));
+        Collections.shuffle(samples);
+        for (long nanos : samples)
+            scenario.record("search", nanos);
+
+        String[] row = row(scenario.report(), "search");
+        assertEquals(row[1], "200");
+        // A power of two histogram would report bucket edges, eg. 134.2ms for the median
+        assertEquals(row[4], "100.0");
+        assertEquals(row[5], "190.0");
+        assertEquals(row[6], "198.0");
+        assertEquals(row[7], "200.0");
+    }
+
+    @Test
+    public void percentileUsesTheNearestRank() {
+        long[] sorted = {10, 20, 30, 40};
+        assertEquals(LoadScenario.percentile(sorted, 0.50), 20);
+        assertEquals(LoadScenario.percentile(sorted, 0.51), 30);
+        assertEquals(LoadScenario.percentile(sorted, 0), 10);
+        assertEquals(LoadScenario.percentile(sorted, 1), 40);
+        assertEquals(LoadScenario.percentile(new long[0], 0.5), 0);
+    }
+
+    @Test
+    public void rejectsInvalidSizing() {
+        expectThrows(IllegalArgumentException.class, () -> new LoadScenario(ENV, 0, 0, 0, 1000));
+        expectThrows(IllegalArgumentException.class, () -> new LoadScenario(ENV, 1, 1000, 0, 1000));
+    }
+
+    @Test
+    public void failedJourneysGetAFreshSession() throws InterruptedException {
+        AtomicInteger sessions = new AtomicInteger();
+        DriverFactory.register(ENV, caps -> {
+            sessions.incrementAndGet();
+            return StubDriver.create();
+        });
+        AtomicInteger passes = new AtomicInteger();
+        String report = new LoadScenario(ENV, 2, 50, 2, 500).run(user -> {
+            user.step("open", () -> user.driver().getTitle());
+            user.step("check", () -> {
+                if (passes.incrementAndGet() % 3 == 0) throw new IllegalStateException("every third check fails");
+            });
+        });
+
+        Matcher journeys = Pattern.compile("- journeys: (\\d+) completed \\([\\d.]+/s\\), (\\d+) failed").matcher(report);
+        assertTrue(journeys.find(), report);
+        long completed = Long.parseLong(journeys.group(1));
+        long failed = Long.parseLong(journeys.group(2));
+        assertTrue(completed > 0 && failed > 0, report);
+        assertTrue(report.contains("- concurrency: target 2, peak 2,"), report);
+
+        // Two users, each failure replaces the session unless the scenario is over by then
+        assertEquals(Long.parseLong(row(report, LoadScenario.SESSION)[1]), (long) sessions.get(), report);
+        assertTrue(sessions.get() >= failed && sessions.get() <= 2 + failed, report);
+        assertTrue(sessions.get() > 2, report);
+        assertEquals(row(report, "check")[2], String.valueOf(failed), report);
+        assertTrue(Long.parseLong(row(report, "open")[1]) >= completed, report);
+    }
+
+    /**
+     * @return Cells of the report row of the step: name, count, errors, per second, p50, p95, p99, max
+     */
+    private static String[] row(String report, String step) {
+        for (String line : report.split("\n"))
+            if (line.startsWith("| " + step + " |"))
+                return line.substring(2, line.length() - 2).split(" \\| ");
+        throw new AssertionError("No row for " + step + " in\n" + report);
+    }
+}
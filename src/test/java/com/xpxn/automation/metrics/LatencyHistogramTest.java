@@ -0,0 +1,59 @@
+package com.xpxn.automation.metrics;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(histogram.count(), 0);
+        assertEquals(histogram.meanNanos(), 0);
+        assertEquals(histogram.percentileNanos(0.99), 0);
+    }
+
+    @Test
+    public void summaryValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000);
+        histogram.record(3_000);
+        histogram.record(-5);
+        assertEquals(histogram.count(), 3);
+        assertEquals(histogram.totalNanos(), 4_000);
+        assertEquals(histogram.meanNanos(), 1_333);
+        assertEquals(histogram.maxNanos(), 3_000);
+    }
+
+    @Test
+    public void percentilesReportTheBucketUpperBound() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 90 values in [1024, 2048), 10 values in [65536, 131072)
+        for (int i = 0; i < 90; i++) histogram.record(1_500);
+        for (int i = 0; i < 10; i++) histogram.record(100_000);
+        assertEquals(histogram.percentileNanos(0.50), 2_047);
+        assertEquals(histogram.percentileNanos(0.90), 2_047);
+        // Never above the largest observation
+        assertEquals(histogram.percentileNanos(0.95), 100_000);
+        assertEquals(histogram.percentileNanos(1.0), 100_000);
+    }
+
+    @Test
+    public void percentileIsAnUpperBoundOfTheExactValue() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) histogram.record(value * 997);
+        long exact = 950 * 997;
+        long reported = histogram.percentileNanos(0.95);
+        assertTrue(reported >= exact && reported < 2 * exact, "p95 " + reported + " for exact " + exact);
+    }
+
+    @Test
+    public void json() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(2_000_000);
+        assertEquals(histogram.toJson(),
+                "{\"count\":1,\"totalUs\":2000,\"meanUs\":2000,\"p50Us\":2000,\"p95Us\":2000,\"p99Us\":2000,\"maxUs\":2000}");
+    }
+}
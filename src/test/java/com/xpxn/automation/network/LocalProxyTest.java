@@ -0,0 +1,119 @@
+package com.xpxn.automation.network;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class LocalProxyTest {
+    private FixtureServer server;
+    private LocalProxy proxy;
+    private Path replay;
+
+    @BeforeClass
+    public void start() throws IOException {
+        server = new FixtureServer("fixtures").route("/api/ping", exchange -> "pong");
+        replay = Files.createTempDirectory("replay");
+        Files.createDirectories(replay.resolve("recorded.test/news"));
+        Files.write(replay.resolve("recorded.test/news/first.html"), "recorded story".getBytes(StandardCharsets.UTF_8));
+        Files.write(replay.resolve("recorded.test/index.html"), "recorded home".getBytes(StandardCharsets.UTF_8));
+        proxy = new LocalProxy(Arrays.asList("*.doubleclick.net", "tracker.test"), replay);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stop() throws IOException {
+        proxy.close();
+        server.close();
+    }
+
+    @Test
+    public void forwardsToTheOrigin() throws IOException {
+        HttpURLConnection connection = get(server.url("/api/ping"));
+        assertEquals(connection.getResponseCode(), 200);
+        assertEquals(body(connection), "pong");
+        assertTrue(body(get(server.url("/"))).contains("topicmenu"));
+    }
+
+    @Test
+    public void answersBlockedHostsWithoutContactingThem() throws IOException {
+        long before = proxy.getBlockedCount();
+        assertEquals(get("http://ads.DoubleClick.net/pixel.gif").getResponseCode(), 204);
+        assertEquals(get("http://tracker.test/collect").getResponseCode(), 204);
+        assertEquals(proxy.getBlockedCount(), before + 2);
+    }
+
+    @Test
+    public void refusesTunnelsToBlockedHosts() throws IOException {
+        String address = proxy.address();
+        int split = address.lastIndexOf(':');
+        try (Socket socket = new Socket(address.substring(0, split), Integer.parseInt(address.substring(split + 1)))) {
+            OutputStream out = socket.getOutputStream();
+            out.write("CONNECT stats.doubleclick.net:443 HTTP/1.1\r\nHost: stats.doubleclick.net:443\r\n\r\n"
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            assertTrue(read(socket.getInputStream()).startsWith("HTTP/1.1 403"));
+        }
+    }
+
+    @Test
+    public void servesRecordedResponses() throws IOException {
+        long before = proxy.getReplayedCount();
+        HttpURLConnection story = get("http://recorded.test/news/first.html");
+        assertEquals(story.getResponseCode(), 200);
+        assertEquals(story.getContentType(), "text/html");
+        assertEquals(body(story), "recorded story");
+        assertEquals(body(get("http://recorded.test/")), "recorded home");
+        assertEquals(proxy.getReplayedCount(), before + 2);
+    }
+
+    @Test
+    public void hostPatterns() {
+        assertTrue(LocalProxy.glob("*.doubleclick.net").matcher("ad.g.doubleclick.net").matches());
+        assertTrue(LocalProxy.glob("fonts.googleapis.com").matcher("FONTS.googleapis.com").matches());
+        assertFalse(LocalProxy.glob("*.doubleclick.net").matcher("doubleclick.net.example.com").matches());
+        assertFalse(LocalProxy.glob("a.b.com").matcher("aXb.com").matches());
+    }
+
+    private HttpURLConnection get(String url) throws IOException {
+        String address = proxy.address();
+        int split = address.lastIndexOf(':');
+        Proxy through = new Proxy(Proxy.Type.HTTP,
+                new InetSocketAddress(address.substring(0, split), Integer.parseInt(address.substring(split + 1))));
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection(through);
+        connection.setConnectTimeout(5_000);
+        connection.setReadTimeout(5_000);
+        return connection;
+    }
+
+    private static String body(HttpURLConnection connection) throws IOException {
+        try (InputStream in = connection.getInputStream()) {
+            return read(in);
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1)
+            out.write(buffer, 0, read);
+        return out.toString("UTF-8");
+    }
+}
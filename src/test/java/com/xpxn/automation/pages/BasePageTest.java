@@ -0,0 +1,98 @@
+package com.xpxn.automation.pages;
+
+import com.xpxn.automation.StubDriver;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class BasePageTest {
+    private final List<String> commands = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean scriptsFail = false;
+
+    @Test
+    public void scrollAndClickBatchesTheScrollAndClicksNatively() {
+        new Page(driver()).scrollAndClick("submit");
+        assertEquals(commands.get(0), "executeScript id submit");
+        assertTrue(commands.contains("click"), commands.toString());
+    }
+
+    @Test
+    public void customLocatorsUseNativeCommands() {
+        Page page = new Page(driver());
+        page.scrollAndClick(new By() {
+            @Override
+            public List<WebElement> findElements(SearchContext context) {
+                return context.findElements(By.id("submit"));
+            }
+        });
+        assertEquals(commands.get(0), "findElement");
+        assertTrue(commands.contains("executeScript element"), commands.toString());
+        assertTrue(commands.contains("click"), commands.toString());
+    }
+
+    @Test
+    public void failingScriptFallsBackToNativeCommands() {
+        scriptsFail = true;
+        new Page(driver()).scrollAndClick("submit");
+        assertTrue(commands.contains("findElement"), commands.toString());
+        assertTrue(commands.contains("click"), commands.toString());
+    }
+
+    @Test
+    public void nativeColorsUseTheNotationOfTheBatchedOnes() {
+        scriptsFail = true;
+        assertEquals(new Page(driver()).getColors("submit"), Collections.singletonList("rgba(255, 0, 0, 1)"));
+        assertTrue(commands.contains("getCssValue color"), commands.toString());
+    }
+
+    private WebDriver driver() {
+        commands.clear();
+        WebElement element = (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{WebElement.class}, (proxy, method, args) -> {
+                    if ("click".equals(method.getName())) commands.add("click");
+                    if ("getCssValue".equals(method.getName())) {
+                        commands.add("getCssValue " + args[0]);
+                        return "#ff0000";
+                    }
+                    return null;
+                });
+        return StubDriver.create((method, args) -> {
+            switch (method) {
+                case "findElement":
+                    commands.add("findElement");
+                    return element;
+                case "executeScript":
+                    Object[] scriptArgs = (Object[]) args[1];
+                    if (scriptArgs.length > 0 && scriptArgs[0] instanceof WebElement) {
+                        commands.add("executeScript element");
+                        return null;
+                    }
+                    commands.add("executeScript " + scriptArgs[0] + " " + scriptArgs[1]);
+                    if (scriptsFail) throw new WebDriverException("script failed");
+                    return true;
+                default:
+                    return null;
+            }
+        }, JavascriptExecutor.class);
+    }
+
+    public static class Page extends BasePage {
+        private By submit = By.id("submit");
+
+        public Page(WebDriver driver) {
+            super(driver);
+        }
+    }
+}
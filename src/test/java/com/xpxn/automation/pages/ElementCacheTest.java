@@ -0,0 +1,99 @@
+package com.xpxn.automation.pages;
+
+import com.xpxn.automation.StubDriver;
+import com.xpxn.automation.config.Configuration;
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+
+public class ElementCacheTest {
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicInteger clicks = new AtomicInteger();
+    // Elements created before this generation are stale
+    private final AtomicInteger document = new AtomicInteger();
+
+    @BeforeMethod
+    public void reset() {
+        if (!Boolean.parseBoolean(Configuration.envPageCache().get("false")))
+            throw new SkipException("env.page.cache is off");
+        lookups.set(0);
+        clicks.set(0);
+        document.set(0);
+    }
+
+    @Test
+    public void repeatedActionsLookUpOnce() {
+        BasePageTest.Page page = new BasePageTest.Page(driver());
+        page.click("submit");
+        page.click("submit");
+        assertEquals(lookups.get(), 1);
+        assertEquals(clicks.get(), 2);
+    }
+
+    @Test
+    public void staleCachedElementIsLookedUpAgain() {
+        BasePageTest.Page page = new BasePageTest.Page(driver());
+        page.click("submit");
+        document.incrementAndGet();
+        page.click("submit");
+        assertEquals(lookups.get(), 2);
+        assertEquals(clicks.get(), 2);
+    }
+
+    @Test
+    public void getElementNeverReturnsACachedElement() {
+        BasePageTest.Page page = new BasePageTest.Page(driver());
+        page.click("submit");
+        document.incrementAndGet();
+        WebElement first = page.getElement("submit");
+        first.click();
+        assertNotSame(page.getElement("submit"), first);
+        assertEquals(lookups.get(), 3);
+    }
+
+    @Test
+    public void navigationClearsTheCache() {
+        BasePageTest.Page page = new BasePageTest.Page(driver());
+        page.click("submit");
+        page.driver.navigate().refresh();
+        page.click("submit");
+        assertEquals(lookups.get(), 2);
+    }
+
+    private WebDriver driver() {
+        return StubDriver.create((method, args) -> {
+            switch (method) {
+                case "findElement":
+                    lookups.incrementAndGet();
+                    return element(document.get());
+                case "navigate":
+                    return Proxy.newProxyInstance(getClass().getClassLoader(),
+                            new Class<?>[]{WebDriver.Navigation.class}, (proxy, m, a) -> null);
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private WebElement element(int generation) {
+        return (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{WebElement.class},
+                (proxy, method, args) -> {
+                    if ("equals".equals(method.getName())) return proxy == args[0];
+                    if ("hashCode".equals(method.getName())) return System.identityHashCode(proxy);
+                    if (generation != document.get())
+                        throw new StaleElementReferenceException("element is not attached to the page document");
+                    if ("click".equals(method.getName())) clicks.incrementAndGet();
+                    return null;
+                });
+    }
+}
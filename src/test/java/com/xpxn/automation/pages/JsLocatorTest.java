@@ -0,0 +1,46 @@
+package com.xpxn.automation.pages;
+
+import org.openqa.selenium.By;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class JsLocatorTest {
+
+    @Test
+    public void seleniumLocatorsAreTranslated() {
+        assertLocator(By.cssSelector(".topicmenu ul li:nth-child(2) a"), "css", ".topicmenu ul li:nth-child(2) a");
+        assertLocator(By.id("submit"), "id", "submit");
+        assertLocator(By.name("q"), "name", "q");
+        assertLocator(By.className("story_title"), "class", "story_title");
+        assertLocator(By.tagName("a"), "tag", "a");
+        assertLocator(By.xpath("//a[text()=': x']"), "xpath", "//a[text()=': x']");
+    }
+
+    @Test
+    public void otherLocatorsStayNative() {
+        assertNull(JsLocator.of(By.linkText("Console/PC")));
+        assertNull(JsLocator.of(By.partialLinkText("Console")));
+        // Same toString as a css selector, but the lookup is its own
+        assertNull(JsLocator.of(new By.ByCssSelector("#submit") {
+        }));
+        assertNull(JsLocator.of(new By() {
+            @Override
+            public java.util.List<org.openqa.selenium.WebElement> findElements(org.openqa.selenium.SearchContext context) {
+                return java.util.Collections.emptyList();
+            }
+
+            @Override
+            public String toString() {
+                return "By.cssSelector: #submit";
+            }
+        }));
+    }
+
+    private static void assertLocator(By by, String strategy, String value) {
+        JsLocator locator = JsLocator.of(by);
+        assertEquals(locator.strategy, strategy);
+        assertEquals(locator.value, value);
+    }
+}
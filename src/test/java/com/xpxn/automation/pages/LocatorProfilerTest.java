@@ -0,0 +1,119 @@
+package com.xpxn.automation.pages;
+
+import com.xpxn.automation.network.FixtureServer;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class LocatorProfilerTest {
+    private static final String PAGE = "<html><body><div id=\"main\" class=\"wrap\">"
+            + "<div class=\"a\"><span data-k=\"v\">1</span></div>"
+            + "<div class=\"a\"><span>2</span></div>"
+            + "<div class=\"b\"><span data-k=\"v\">3</span></div>"
+            + "<ul class=\"menu\"><li class=\"item\"><a href=\"/x\">x</a></li></ul>"
+            + "</div></body></html>";
+
+    @Test
+    public void instabilityCountsStepsIndexesAndMatches() {
+        assertEquals(LocatorProfiler.instability("By.id: submit", 1), 1);
+        assertEquals(LocatorProfiler.instability("By.cssSelector: #main .nav a", 1), 3);
+        assertEquals(LocatorProfiler.instability("By.cssSelector: ul li:nth-child(2) a", 1), 3 + 3);
+        // One step, one index and three slashes
+        assertEquals(LocatorProfiler.instability("By.xpath: //div[2]/a", 1), 1 + 3 + 3);
+        assertEquals(LocatorProfiler.instability("By.cssSelector: a", 0), 1 + 100);
+        assertEquals(LocatorProfiler.instability("By.cssSelector: a", 4), 1 + 10);
+        // Proposals are plain css without the By prefix
+        assertEquals(LocatorProfiler.instability("#main a", 1), 2);
+    }
+
+    @Test
+    public void sharedPrefixesGroupLongCssChains() {
+        Map<String, List<String>> prefixes = LocatorProfiler.sharedPrefixes(Arrays.asList(
+                result("Home.first", "By.cssSelector: div.a div.b ul li a"),
+                result("Home.second", "By.cssSelector: div.a div.b ul li span"),
+                result("Home.other", "By.cssSelector: div.a div.c ul li a"),
+                result("Home.short", "By.cssSelector: div.a div.b ul"),
+                result("Home.xpath", "By.xpath: div.a div.b ul li a")));
+        assertEquals(prefixes.size(), 1, prefixes.toString());
+        assertEquals(prefixes.get("div.a div.b ul"), Arrays.asList("Home.first", "Home.second"));
+    }
+
+    @Test
+    public void reportListsSlowestAndLeastStableFirst() {
+        List<LocatorProfiler.Result> results = new ArrayList<>();
+        results.add(new LocatorProfiler.Result("Home.fast", "By.id: fast", 1, 2.0, Collections.<LocatorProfiler.Candidate>emptyList()));
+        results.add(new LocatorProfiler.Result("Home.slow", "By.cssSelector: div.wrap div.a span", 1, 40.0, Arrays.asList(
+                new LocatorProfiler.Candidate("div.a span", 12.5),
+                new LocatorProfiler.Candidate("#main span", 9.0))));
+        results.add(new LocatorProfiler.Result("Home.missing", "By.name: gone", 0, 1.0, Collections.<LocatorProfiler.Candidate>emptyList()));
+
+        assertEquals(LocatorProfiler.report(results), "# Locator report\n\n## Slowest\n\n"
+                + "| locator | matches | lookup | proposal | lookup |\n|---|---|---|---|---|\n"
+                + "| Home.slow | 1 | 40.0us | `#main span` | 9.0us |\n"
+                + "| Home.fast | 1 | 2.0us | - | - |\n"
+                + "| Home.missing | 0 | 1.0us | - | - |\n"
+                + "\n## Least stable\n\n| locator | score | selector | proposal |\n|---|---|---|---|\n"
+                + "| Home.missing | 101 | `By.name: gone` | - |\n"
+                + "| Home.slow | 3 | `By.cssSelector: div.wrap div.a span` | `#main span` (2) |\n"
+                + "| Home.fast | 1 | `By.id: fast` | - |\n");
+    }
+
+    @Test
+    public void proposalsMatchTheSameNodes() throws IOException {
+        try (FixtureServer server = new FixtureServer("fixtures").route("/profiler", exchange -> PAGE)) {
+            WebDriver driver = new HtmlUnitDriver(true);
+            try {
+                driver.navigate().to(server.url("/profiler"));
+                Map<String, LocatorProfiler.Result> results = new HashMap<>();
+                for (LocatorProfiler.Result result : LocatorProfiler.profile(driver, 1, Fixture.class))
+                    results.put(result.name, result);
+
+                LocatorProfiler.Result pair = results.get("Fixture.pair");
+                assertEquals(pair.matches, 2);
+                // span[data-k="v"] also matches two nodes starting with the same one, but not the same second one
+                assertEquals(css(pair), "[#main .a span]");
+
+                LocatorProfiler.Result link = results.get("Fixture.link");
+                assertEquals(link.matches, 1);
+                assertTrue(css(link).contains("a[href=\"/x\"]"), css(link));
+                assertTrue(css(link).contains("#main a"), css(link));
+                assertFalse(css(link).contains("div.wrap ul.menu li.item a"), css(link));
+            } finally {
+                driver.quit();
+            }
+        }
+    }
+
+    private static LocatorProfiler.Result result(String name, String selector) {
+        return new LocatorProfiler.Result(name, selector, 1, 1.0, Collections.<LocatorProfiler.Candidate>emptyList());
+    }
+
+    private static String css(LocatorProfiler.Result result) {
+        List<String> css = new ArrayList<>();
+        for (LocatorProfiler.Candidate candidate : result.candidates)
+            css.add(candidate.css);
+        return css.toString();
+    }
+
+    public static class Fixture extends BasePage {
+        By pair = By.cssSelector(".a span");
+        By link = By.cssSelector("div.wrap ul.menu li.item a");
+
+        public Fixture(WebDriver driver) {
+            super(driver);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.xpxn.automation.session;
+
+import com.xpxn.automation.StubDriver;
+import com.xpxn.automation.config.Configuration;
+import org.openqa.selenium.TakesScreenshot;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+public class FailureCaptureTest {
+    private static final Pattern DROPPED = Pattern.compile("dropped=(\\d+)");
+    private Path folder;
+
+    @BeforeMethod
+    public void configure() throws IOException {
+        // Starts every test with a fresh pool
+        FailureCapture.drain(5);
+        folder = Files.createTempDirectory("failures");
+        Configuration.envCaptureDir().set(folder.toString());
+        Configuration.envCaptureQueue().set("1");
+        Configuration.envCaptureWaitMs().set("50");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void reset() throws IOException {
+        FailureCapture.drain(5);
+        Configuration.envCaptureDir().set("");
+        Configuration.envCaptureQueue().set("");
+        Configuration.envCaptureWaitMs().set("");
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void writesTheArtifactsOffTheTestThread() throws IOException {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G'};
+        FailureCapture.capture(StubDriver.create((method, args) -> {
+            switch (method) {
+                case "getScreenshotAs":
+                    return png;
+                case "getPageSource":
+                    return "<html><body>failed</body></html>";
+                default:
+                    // manage() is null, the console log is skipped
+                    return null;
+            }
+        }, TakesScreenshot.class), "a.FirstTest#fails");
+        FailureCapture.drain(5);
+
+        List<Path> written;
+        try (Stream<Path> paths = Files.list(folder)) {
+            written = paths.collect(Collectors.toList());
+        }
+        Assert.assertEquals(written.size(), 1);
+        Path artifacts = written.get(0);
+        Assert.assertTrue(artifacts.getFileName().toString().startsWith("a.FirstTest_fails-"), artifacts.toString());
+        Assert.assertEquals(Files.readAllBytes(artifacts.resolve("screenshot.png")), png);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(artifacts.resolve("page.html.gz")))) {
+            Assert.assertEquals(new String(readAll(in), StandardCharsets.UTF_8), "<html><body>failed</body></html>");
+        }
+        Assert.assertFalse(Files.exists(artifacts.resolve("console.log.gz")));
+    }
+
+    @Test
+    public void dropsWhenFullAndRunsEverythingAccepted() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger ran = new AtomicInteger();
+        Runnable blocked = () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+                ran.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        long before = dropped();
+        int accepted = 0;
+        // One or two writers plus a queue of one
+        while (dropped() == before && accepted < 10) {
+            FailureCapture.submit("blocked", blocked);
+            if (dropped() == before) accepted++;
+        }
+        Assert.assertEquals(dropped(), before + 1);
+        Assert.assertTrue(accepted >= 2 && accepted <= 3, "accepted " + accepted);
+
+        release.countDown();
+        FailureCapture.drain(5);
+        Assert.assertEquals(ran.get(), accepted, "Every accepted artifact is written");
+    }
+
+    @Test
+    public void keepsNoQueuedWorkAfterADrain() {
+        AtomicInteger ran = new AtomicInteger();
+        for (int i = 0; i < 20; i++)
+            FailureCapture.submit("quick", ran::incrementAndGet);
+        FailureCapture.drain(5);
+        Assert.assertEquals(ran.get(), 20);
+    }
+
+    private static long dropped() {
+        Matcher matcher = DROPPED.matcher(FailureCapture.stats());
+        Assert.assertTrue(matcher.find());
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) >= 0)
+            out.write(buffer, 0, read);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,136 @@
+package com.xpxn.automation.session;
+
+import com.xpxn.automation.StubDriver;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Counts the page loads of a restore against a simulated browser with cookies and storage per origin.
+ */
+public class SessionCheckpointTest {
+    private String url;
+    private int loads;
+    private final Set<Cookie> cookies = new HashSet<>();
+    private final Map<String, String> storage = new HashMap<>();
+    private WebDriver driver;
+
+    @BeforeMethod
+    public void start() {
+        url = "about:blank";
+        loads = 0;
+        cookies.clear();
+        storage.clear();
+        driver = StubDriver.create((method, args) -> {
+            switch (method) {
+                case "getCurrentUrl":
+                    return url;
+                case "navigate":
+                    return group(WebDriver.Navigation.class, (m, a) -> {
+                        if ("to".equals(m)) {
+                            url = String.valueOf(a[0]);
+                            loads++;
+                        }
+                        return null;
+                    });
+                case "manage":
+                    return group(WebDriver.Options.class, (m, a) -> {
+                        if ("getCookies".equals(m)) return new HashSet<>(cookies);
+                        if ("deleteAllCookies".equals(m)) cookies.clear();
+                        if ("addCookie".equals(m)) cookies.add((Cookie) a[0]);
+                        return null;
+                    });
+                case "executeScript":
+                    return script((String) args[0], (Object[]) args[1]);
+                default:
+                    return null;
+            }
+        }, JavascriptExecutor.class);
+    }
+
+    @Test
+    public void unchangedPageNeedsNoLoad() {
+        open("http://fixture/", "consent", "yes");
+        SessionCheckpoint checkpoint = SessionCheckpoint.capture(driver);
+        loads = 0;
+        checkpoint.restore(driver);
+        assertEquals(loads, 0);
+    }
+
+    @Test
+    public void otherPathOfTheSameOriginNeedsOneLoad() {
+        open("http://fixture/", "consent", "yes");
+        SessionCheckpoint checkpoint = SessionCheckpoint.capture(driver);
+        url = "http://fixture/topic/console-pc";
+        cookies.add(new Cookie("seen", "1"));
+        loads = 0;
+        checkpoint.restore(driver);
+        assertEquals(loads, 1);
+        assertEquals(url, "http://fixture/");
+        assertEquals(cookies, Collections.singleton(new Cookie("consent", "yes")));
+    }
+
+    @Test
+    public void otherOriginWithoutStateNeedsOneLoad() {
+        open("http://fixture/", null, null);
+        SessionCheckpoint checkpoint = SessionCheckpoint.capture(driver);
+        url = "about:blank";
+        loads = 0;
+        checkpoint.restore(driver);
+        assertEquals(loads, 1);
+    }
+
+    @Test
+    public void otherOriginWithStateNeedsTwoLoads() {
+        open("http://fixture/", "consent", "yes");
+        storage.put("theme", "dark");
+        SessionCheckpoint checkpoint = SessionCheckpoint.capture(driver);
+        url = "about:blank";
+        cookies.clear();
+        storage.clear();
+        loads = 0;
+        checkpoint.restore(driver);
+        assertEquals(loads, 2);
+        assertEquals(storage, Collections.singletonMap("theme", "dark"));
+    }
+
+    private void open(String page, String cookie, String value) {
+        url = page;
+        if (cookie != null) cookies.add(new Cookie(cookie, value));
+    }
+
+    // Simulates the capture and restore scripts on the local storage of the page
+    @SuppressWarnings("unchecked")
+    private Object script(String script, Object[] args) {
+        if (script.contains("function dump")) {
+            Map<String, Object> state = new HashMap<>();
+            state.put("local", new HashMap<>(storage));
+            state.put("session", Collections.emptyMap());
+            return state;
+        }
+        if (script.contains("function load")) {
+            Map<String, String> local = (Map<String, String>) args[0];
+            boolean changed = !storage.equals(local);
+            storage.clear();
+            storage.putAll(local);
+            return changed;
+        }
+        return null;
+    }
+
+    private static Object group(Class<?> type, StubDriver.Answer answer) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> answer.answer(method.getName(), args == null ? new Object[0] : args));
+    }
+}
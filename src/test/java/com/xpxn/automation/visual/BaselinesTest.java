@@ -0,0 +1,132 @@
+package com.xpxn.automation.visual;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class BaselinesTest {
+    private Path directory;
+
+    @BeforeMethod
+    public void folder() throws IOException {
+        directory = Files.createTempDirectory("baselines");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void cleanup() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void missingBaselinesAreRecorded() throws IOException {
+        Baselines.Check check = baselines(false).check("home/header", image(0));
+        assertEquals(check.outcome, Baselines.Outcome.RECORDED);
+        assertTrue(check.outcome.passed());
+        assertTrue(Files.exists(directory.resolve("home/header.png")));
+    }
+
+    @Test
+    public void missingBaselinesFailWhenRequired() throws IOException {
+        Baselines.Check check = baselines(true).check("home/header", image(0));
+        assertEquals(check.outcome, Baselines.Outcome.MISSING);
+        assertFalse(check.outcome.passed());
+        assertFalse(Files.exists(directory.resolve("home/header.png")));
+    }
+
+    @Test
+    public void identicalImagesAreDecidedWithoutDecoding() throws IOException {
+        Baselines baselines = baselines(false);
+        baselines.check("header", image(0));
+        Baselines.Check check = baselines.check("header", image(0));
+        assertEquals(check.outcome, Baselines.Outcome.IDENTICAL);
+        assertNull(check.expected);
+    }
+
+    @Test
+    public void distantImagesFailWithoutAPixelDiff() throws IOException {
+        Baselines baselines = baselines(false);
+        baselines.check("header", image(0));
+        Baselines.Check check = baselines.check("header", mirrored());
+        assertEquals(check.outcome, Baselines.Outcome.DIFFERENT);
+        assertTrue(check.distance > 10, check.toString());
+        assertNull(check.diff);
+        // Decoded for the failure report
+        assertNotNull(check.expected);
+    }
+
+    @Test
+    public void closeImagesAreDiffedWithTheTolerance() throws IOException {
+        Baselines baselines = baselines(false);
+        baselines.check("header", image(0));
+        Baselines.Check check = baselines.check("header", image(0x030303));
+        assertEquals(check.outcome, Baselines.Outcome.MATCHING);
+        assertEquals(check.diff.differentPixels, 0);
+
+        assertEquals(baselines.check("header", image(0x303030)).outcome, Baselines.Outcome.DIFFERENT);
+    }
+
+    @Test
+    public void touchedButUnchangedPngsKeepTheirSignature() throws IOException {
+        Baselines baselines = baselines(false);
+        baselines.check("header", image(0));
+        Path png = directory.resolve("header.png");
+        Files.setLastModifiedTime(png, FileTime.fromMillis(Files.getLastModifiedTime(png).toMillis() - 60_000));
+
+        Baselines.Check check = baselines.check("header", image(0));
+        assertEquals(check.outcome, Baselines.Outcome.IDENTICAL);
+        assertNull(check.expected, "The checksum is enough to trust the stored hashes");
+    }
+
+    @Test
+    public void replacedPngsAreHashedAgain() throws IOException {
+        Baselines baselines = baselines(false);
+        baselines.check("header", image(0));
+        Path png = directory.resolve("header.png");
+        FileTime recorded = Files.getLastModifiedTime(png);
+        // Eg. a baseline updated through version control
+        ImageIO.write(mirrored().toImage(), "png", png.toFile());
+        Files.setLastModifiedTime(png, FileTime.fromMillis(recorded.toMillis() + 60_000));
+
+        assertEquals(baselines.check("header", image(0)).outcome, Baselines.Outcome.DIFFERENT);
+        Baselines.Check check = baselines.check("header", mirrored());
+        assertEquals(check.outcome, Baselines.Outcome.IDENTICAL);
+        assertNull(check.expected, "Signed again after the first decode");
+    }
+
+    private Baselines baselines(boolean require) {
+        return new Baselines(directory, 8, 0, 10, false, require);
+    }
+
+    private static PixelImage image(int shift) {
+        int[] pixels = PixelImageTest.gradient(120, 80);
+        for (int i = 0; i < pixels.length; i++)
+            pixels[i] = Math.min(0xFFFFFF, pixels[i] + shift);
+        return PixelImage.of(pixels, 120, 80);
+    }
+
+    private static PixelImage mirrored() {
+        PixelImage image = image(0);
+        int[] pixels = new int[120 * 80];
+        for (int y = 0; y < 80; y++)
+            for (int x = 0; x < 120; x++)
+                pixels[y * 120 + x] = image.rgb(119 - x, y);
+        return PixelImage.of(pixels, 120, 80);
+    }
+}
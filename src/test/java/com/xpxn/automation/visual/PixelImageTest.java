@@ -0,0 +1,98 @@
+package com.xpxn.automation.visual;
+
+import org.testng.annotations.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class PixelImageTest {
+
+    /**
+     * Horizontal gradient with a darker band, so the perceptual hash has structure.
+     */
+    static int[] gradient(int width, int height) {
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int grey = x * 255 / Math.max(1, width - 1);
+                if (y > height / 3 && y < height / 2) grey /= 2;
+                pixels[y * width + x] = grey << 16 | grey << 8 | grey;
+            }
+        }
+        return pixels;
+    }
+
+    @Test
+    public void rejectsTooFewPixels() {
+        expectThrows(IllegalArgumentException.class, () -> PixelImage.of(new int[5], 3, 2));
+    }
+
+    @Test
+    public void regionsShareThePixels() {
+        int[] pixels = gradient(40, 30);
+        PixelImage image = PixelImage.of(pixels, 40, 30);
+        PixelImage region = image.region(10, 5, 20, 10);
+        assertEquals(region.getWidth(), 20);
+        assertEquals(region.getHeight(), 10);
+        assertEquals(region.rgb(0, 0), image.rgb(10, 5));
+        pixels[7 * 40 + 12] = 0x123456;
+        assertEquals(region.rgb(2, 2), 0x123456);
+        expectThrows(IllegalArgumentException.class, () -> image.region(30, 0, 11, 1));
+        expectThrows(IllegalArgumentException.class, () -> image.region(0, 0, 0, 1));
+    }
+
+    @Test
+    public void hashesIgnoreHowThePixelsAreLaidOut() {
+        PixelImage image = PixelImage.of(gradient(50, 40), 50, 40);
+        PixelImage region = image.region(5, 3, 31, 17);
+        int[] copy = new int[31 * 17];
+        for (int y = 0; y < 17; y++)
+            for (int x = 0; x < 31; x++)
+                copy[y * 31 + x] = image.rgb(5 + x, 3 + y);
+        PixelImage standalone = PixelImage.of(copy, 31, 17);
+        assertEquals(region.contentHash(), standalone.contentHash());
+        assertEquals(region.perceptualHash(), standalone.perceptualHash());
+
+        BufferedImage buffered = image.toImage();
+        assertEquals(PixelImage.of(buffered.getSubimage(5, 3, 31, 17)).contentHash(), standalone.contentHash());
+    }
+
+    @Test
+    public void contentHashCoversPixelsAlphaExcludedAndDimensions() {
+        int[] pixels = gradient(16, 8);
+        long hash = PixelImage.of(pixels, 16, 8).contentHash();
+
+        int[] alpha = Arrays.copyOf(pixels, pixels.length);
+        for (int i = 0; i < alpha.length; i++)
+            alpha[i] |= 0xFF000000;
+        assertEquals(PixelImage.of(alpha, 16, 8).contentHash(), hash);
+
+        int[] changed = Arrays.copyOf(pixels, pixels.length);
+        changed[77] ^= 1;
+        assertNotEquals(PixelImage.of(changed, 16, 8).contentHash(), hash);
+        // Same pixels, other shape
+        assertNotEquals(PixelImage.of(pixels, 8, 16).contentHash(), hash);
+    }
+
+    @Test
+    public void perceptualDistanceGrowsWithTheChange() {
+        PixelImage image = PixelImage.of(gradient(90, 80), 90, 80);
+        assertEquals(image.distance(PixelImage.of(gradient(90, 80), 90, 80)), 0);
+
+        int[] noisy = gradient(90, 80);
+        for (int i = 0; i < noisy.length; i += 97)
+            noisy[i] ^= 0x010101;
+        assertTrue(image.distance(PixelImage.of(noisy, 90, 80)) <= 2);
+
+        int[] mirrored = new int[90 * 80];
+        for (int y = 0; y < 80; y++)
+            for (int x = 0; x < 90; x++)
+                mirrored[y * 90 + x] = image.rgb(89 - x, y);
+        assertTrue(image.distance(PixelImage.of(mirrored, 90, 80)) > 32);
+    }
+}
@@ -0,0 +1,82 @@
+package com.xpxn.automation.visual;
+
+import org.testng.annotations.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.testng.Assert.assertEquals;
+
+public class VisualDiffTest {
+
+    @Test
+    public void identicalImagesHaveNoDifferences() {
+        PixelImage image = PixelImage.of(PixelImageTest.gradient(100, 70), 100, 70);
+        VisualDiff diff = VisualDiff.compare(image, PixelImage.of(PixelImageTest.gradient(100, 70), 100, 70), 0);
+        assertEquals(diff.differentPixels, 0);
+        assertEquals(diff.changedTiles, 0);
+        assertEquals(diff.ratio(), 0.0);
+        assertEquals(diff.toString(), "0 of 7000 pixel(s) differ");
+    }
+
+    @Test
+    public void boundsSpanTheChangedTiles() {
+        int[] pixels = PixelImageTest.gradient(200, 150);
+        PixelImage expected = PixelImage.of(pixels.clone(), 200, 150);
+        pixels[70 * 200 + 100] = 0xFF0000;
+        pixels[140 * 200 + 10] = 0x00FF00;
+        pixels[141 * 200 + 11] = 0x0000FF;
+        VisualDiff diff = VisualDiff.compare(expected, PixelImage.of(pixels, 200, 150), 0);
+        assertEquals(diff.differentPixels, 3);
+        // (100, 70) lies in tile (1, 1), the two others in tile (0, 2)
+        assertEquals(diff.changedTiles, 2);
+        assertEquals(diff.toString(), "3 of 30000 pixel(s) differ in 91x72+10+70");
+    }
+
+    @Test
+    public void toleranceAppliesPerChannel() {
+        int[] pixels = PixelImageTest.gradient(10, 10);
+        PixelImage expected = PixelImage.of(pixels.clone(), 10, 10);
+        pixels[0] = pixels[0] + 0x050000;
+        pixels[1] = pixels[1] + 0x000009;
+        PixelImage actual = PixelImage.of(pixels, 10, 10);
+        assertEquals(VisualDiff.compare(expected, actual, 0).differentPixels, 2);
+        assertEquals(VisualDiff.compare(expected, actual, 8).differentPixels, 1);
+        assertEquals(VisualDiff.compare(expected, actual, 9).differentPixels, 0);
+    }
+
+    @Test
+    public void differentSizesDifferEverywhere() {
+        VisualDiff diff = VisualDiff.compare(PixelImage.of(new int[20 * 10], 20, 10), PixelImage.of(new int[15 * 12], 15, 12), 0);
+        assertEquals(diff.totalPixels, 20 * 12);
+        assertEquals(diff.differentPixels, 20 * 12);
+        assertEquals(diff.changedTiles, -1);
+    }
+
+    @Test
+    public void parallelTilesCountLikeASinglePass() {
+        // Above the parallel threshold, with a region view as one side
+        int width = 700, height = 500;
+        int[] pixels = PixelImageTest.gradient(width + 3, height + 2);
+        PixelImage expected = PixelImage.of(pixels.clone(), width + 3, height + 2).region(3, 2, width, height);
+        int count = 0;
+        for (int i = 0; i < pixels.length; i += 1031) {
+            int x = i % (width + 3), y = i / (width + 3);
+            if (x < 3 || y < 2) continue;
+            pixels[i] ^= 0x808080;
+            count++;
+        }
+        VisualDiff diff = VisualDiff.compare(expected, PixelImage.of(pixels, width + 3, height + 2).region(3, 2, width, height), 0);
+        assertEquals(diff.differentPixels, count);
+        assertEquals(diff.totalPixels, (long) width * height);
+    }
+
+    @Test
+    public void highlightMarksTheDifferencesInRed() {
+        int[] pixels = new int[4 * 2];
+        PixelImage expected = PixelImage.of(pixels.clone(), 4, 2);
+        pixels[5] = 0xFFFFFF;
+        BufferedImage out = VisualDiff.highlight(expected, PixelImage.of(pixels, 4, 2), 0);
+        assertEquals(out.getRGB(1, 1) & 0xFFFFFF, 0xFF0000);
+        assertEquals(out.getRGB(0, 0) & 0xFFFFFF, 0xC0C0C0);
+    }
+}
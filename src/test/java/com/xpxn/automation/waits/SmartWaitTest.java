@@ -0,0 +1,68 @@
+package com.xpxn.automation.waits;
+
+import com.xpxn.automation.StubDriver;
+import com.xpxn.automation.metrics.Histograms;
+import com.xpxn.automation.metrics.LatencyHistogram;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class SmartWaitTest {
+    private final WebDriver driver = StubDriver.create((method, args) -> "getCurrentUrl".equals(method) ? "http://fixture/topic/indie" : null);
+
+    @Test
+    public void histogramsAreNamedAfterTheConditionKind() {
+        SmartWait wait = new SmartWait(driver, 1, 1, 5, false);
+        wait.until(ExpectedConditions.urlContains("topic/indie"));
+        wait.until(ExpectedConditions.urlContains("indie"));
+        wait.until(d -> d.getCurrentUrl());
+        wait.until("landing url", d -> d.getCurrentUrl());
+
+        Set<String> names = names();
+        assertTrue(names.contains("ExpectedConditions.urlContains"), names.toString());
+        assertTrue(names.contains("SmartWaitTest lambda"), names.toString());
+        assertTrue(names.contains("landing url"), names.toString());
+        for (String name : names)
+            assertFalse(name.contains("indie") || name.contains("0x"), "locator or lambda id in histogram name: " + name);
+    }
+
+    @Test
+    public void pollsUntilTheConditionHolds() {
+        AtomicInteger checks = new AtomicInteger();
+        long before = count("polled");
+        Boolean result = new SmartWait(driver, 1, 1, 5, false).until("polled", d -> checks.incrementAndGet() >= 3);
+        assertTrue(result);
+        assertEquals(checks.get(), 3);
+        assertEquals(count("polled"), before + 1);
+    }
+
+    @Test
+    public void timeoutIsRecordedSeparately() {
+        long before = count("TIMEOUT ExpectedConditions.urlContains");
+        TimeoutException timeout = expectThrows(TimeoutException.class,
+                () -> new SmartWait(driver, 0, 1, 5, false).until(ExpectedConditions.urlContains("console-pc")));
+        assertTrue(timeout.getMessage().contains("console-pc"), "the exception still names the expected value");
+        assertEquals(count("TIMEOUT ExpectedConditions.urlContains"), before + 1);
+    }
+
+    private static Set<String> names() {
+        return Histograms.ranked(SmartWait.GROUP).stream().map(Map.Entry::getKey).collect(Collectors.toSet());
+    }
+
+    private static long count(String name) {
+        for (Map.Entry<String, LatencyHistogram> entry : Histograms.ranked(SmartWait.GROUP))
+            if (entry.getKey().equals(name)) return entry.getValue().count();
+        return 0;
+    }
+}
@@ -0,0 +1,42 @@
+package load;
+
+import com.xpxn.automation.load.Journey;
+import com.xpxn.automation.load.VirtualUser;
+import org.openqa.selenium.WebDriver;
+import pages.ConsolePcPage;
+import pages.GamasutraBasePage;
+import pages.HomePage;
+
+/**
+ * Reader opening the home page, browsing the Console/PC topic into its first story and trying to log in.
+ */
+public class TopicBrowsing implements Journey {
+    private final String home;
+
+    public TopicBrowsing(String home) {
+        this.home = home;
+    }
+
+    @Override
+    public void run(VirtualUser user) {
+        WebDriver driver = user.driver();
+        GamasutraBasePage landing = user.step("home", () -> {
+            driver.navigate().to(home);
+            return new GamasutraBasePage(driver);
+        });
+        user.step("topic", () -> landing.click("consolePC"));
+        ConsolePcPage topic = new ConsolePcPage(driver);
+        user.step("story", () -> {
+            topic.click("firstTopic");
+            if (!driver.getCurrentUrl().endsWith("/news/first"))
+                throw new IllegalStateException("Expected the first story, got " + driver.getCurrentUrl());
+        });
+        user.step("login", () -> {
+            driver.navigate().to(home);
+            HomePage page = new HomePage(driver);
+            page.click("loginBtn");
+            if (page.getElement("invalidLogin").getText().isEmpty())
+                throw new IllegalStateException("Login did not answer.");
+        });
+    }
+}
@@ -9,10 +9,9 @@ public class SecondTest extends BaseTest {
 
     @Test
     private void topicLinkFirst(){
-        ConsolePcPage pageTest = ConsolePcPage.Go(driver);
-        wait.until(ExpectedConditions.urlContains("console-pc"));
-        pageTest.scrollTo("firstTopic");
-        pageTest.click("firstTopic");
-        wait.until(ExpectedConditions.urlContains("news"));
+        ConsolePcPage pageTest = ConsolePcPage.Go(getDriver());
+        getWait().until(ExpectedConditions.urlContains("console-pc"));
+        pageTest.scrollAndClick("firstTopic");
+        getWait().until(ExpectedConditions.urlContains("news"));
     }
 }
@@ -1,8 +1,9 @@
 package testcases;
 
+import com.xpxn.automation.config.RequiresRendering;
+import com.xpxn.automation.visual.VisualAssert;
 import org.openqa.selenium.By;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.testng.Assert;
 import org.testng.annotations.Test;
 import pages.HomePage;
 import steps.BaseTest;
@@ -11,11 +12,11 @@ public class ThirdTest extends BaseTest {
     private static final  String TEXT_COLOR_INVALID_LOGIN = "#FF0000";
 
     @Test
+    @RequiresRendering
     private void invalidLogin(){
-        HomePage pageTest = HomePage.Go(driver);
-        wait.until(ExpectedConditions.elementToBeClickable(By.id("submit")));
-        pageTest.scrollTo("loginBtn");
-        pageTest.click("loginBtn");
-        Assert.assertEquals(pageTest.getColor("invalidLogin"), TEXT_COLOR_INVALID_LOGIN);
+        HomePage pageTest = HomePage.Go(getDriver());
+        getWait().until(ExpectedConditions.elementToBeClickable(By.id("submit")));
+        pageTest.scrollAndClick("loginBtn");
+        VisualAssert.assertColor(pageTest.getColor("invalidLogin"), TEXT_COLOR_INVALID_LOGIN);
     }
 }